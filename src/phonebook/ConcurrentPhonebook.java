@@ -0,0 +1,338 @@
+package phonebook;
+
+import phonebook.hashes.ConcurrentOpenAddressingHashTable;
+import phonebook.hashes.HashTable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <p>{@link ConcurrentPhonebook} is a <b>thread-safe</b> {@link Phonebook}: every change updates both of its indexes
+ * <b>atomically</b>, so that no thread ever sees a name without its phone number, or the other way around, and the two
+ * indexes always hold exactly the same entries. Unlike {@link Phonebook}, it keeps names and phone numbers in a strict
+ * one to one relation: adding an entry for a name or a number which already has one replaces that entry.</p>
+ *
+ * <p>Both indexes are {@link ConcurrentOpenAddressingHashTable}s, which never lock on lookups. Writers use <b>lock
+ * striping</b>: names and numbers are split among {@link #STRIPES} locks, and a change locks the stripes of every name
+ * and number it touches, always in the same order, so that writers on different stripes run in parallel and never
+ * deadlock. Every stripe also has a <b>version</b>, in the manner of a sequence lock: writers make it odd before
+ * they change the indexes and even again afterwards, and lookups read the version before and after they search, and
+ * start over if a writer was busy on their stripe in the meantime. Lookups therefore never lock, and only ever see
+ * entries which both indexes agree on.</p>
+ *
+ * <p>{@link #size()} is exact when there are no writers, and {@link #freeze()} locks every stripe to take a
+ * consistent snapshot.</p>
+ *
+ * @author Isaac Solomon
+ *
+ * @see Phonebook
+ * @see ConcurrentOpenAddressingHashTable
+ * @see FrozenPhonebook
+ * @see MutationLog
+ */
+public class ConcurrentPhonebook {
+
+    /**
+     * The number of locks that names and phone numbers are split among.
+     */
+    public static final int STRIPES = 32;
+
+    private final HashTable namesToNumbers;
+    private final HashTable numbersToNames;
+    private final ReentrantLock[] locks;
+    private final AtomicIntegerArray versions;      // Odd while a writer is changing a name or number of the stripe.
+    private final LongAdder count;
+    private volatile MutationLog log;   // null unless recoverFrom() attached one.
+
+    // Spreads the high bits of the hash code into the low ones, which pick the stripe.
+    private static int stripe(String key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & (STRIPES - 1);
+    }
+
+    // The distinct stripes of the given keys, in increasing order. null keys are skipped.
+    private static int[] stripes(String... keys) {
+        int[] stripes = new int[keys.length];
+        int n = 0;
+        for (String key : keys) {
+            if (key != null) {
+                stripes[n++] = stripe(key);
+            }
+        }
+        Arrays.sort(stripes, 0, n);
+        int distinct = 0;
+        for (int i = 0; i < n; i++) {
+            if (distinct == 0 || stripes[distinct - 1] != stripes[i]) {
+                stripes[distinct++] = stripes[i];
+            }
+        }
+        return Arrays.copyOf(stripes, distinct);
+    }
+
+    private void lock(int[] stripes) {
+        for (int stripe : stripes) {//always in increasing order, so two writers can't deadlock
+            locks[stripe].lock();
+        }
+    }
+
+    private void unlock(int[] stripes) {
+        for (int stripe : stripes) {
+            locks[stripe].unlock();
+        }
+    }
+
+    // Makes the versions of the stripes odd, or even again. The caller holds their locks.
+    private void bumpVersions(int[] stripes) {
+        for (int stripe : stripes) {
+            versions.incrementAndGet(stripe);
+        }
+    }
+
+    // Searches index for key, and starts over as long as a writer changed the stripe of key in the meantime.
+    private String read(HashTable index, String key) {
+        int stripe = stripe(key);
+        while (true) {
+            int version = versions.get(stripe);
+            if ((version & 1) == 0) {
+                String value = index.get(key).getValue();
+                VarHandle.acquireFence();//the search may not be reordered after the second read of the version
+                if (versions.get(stripe) == version) {
+                    return value;
+                }
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    // Appends a change to the log, if there is one. The caller holds the stripes of the change, so that changes to the
+    // same entries are logged in the order they are made. Returns the sequence number to wait for, 0 if there is none.
+    private static long logChange(MutationLog log, byte op, String name, String number) {
+        try {
+            return (log == null) ? 0 : log.append(op, name, number);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Waits until a logged change is durable. The caller holds no stripe, so that other writers can log their own
+    // changes in the meantime, and share the force.
+    private static void awaitDurable(MutationLog log, long sequence) {
+        if (sequence != 0) {
+            try {
+                log.awaitDurable(sequence);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Instantiates a new, empty {@link ConcurrentPhonebook}.
+     */
+    public ConcurrentPhonebook() {
+        this(new ConcurrentOpenAddressingHashTable(), new ConcurrentOpenAddressingHashTable());
+    }
+
+    /**
+     * Instantiates a new {@link ConcurrentPhonebook} whose indexes are large enough to hold expectedSize entries from
+     * the start.
+     * @param expectedSize The number of entries the {@link ConcurrentPhonebook} is expected to hold.
+     * @throws IllegalArgumentException if expectedSize is negative.
+     */
+    public ConcurrentPhonebook(int expectedSize) {
+        this(new ConcurrentOpenAddressingHashTable(expectedSize), new ConcurrentOpenAddressingHashTable(expectedSize));
+    }
+
+    private ConcurrentPhonebook(HashTable namesToNumbers, HashTable numbersToNames) {
+        this.namesToNumbers = namesToNumbers;
+        this.numbersToNames = numbersToNames;
+        locks = new ReentrantLock[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        versions = new AtomicIntegerArray(STRIPES);
+        count = new LongAdder();
+    }
+
+    /** Retrieves the phone number associated with the provided full name. This method never locks.
+     * @param name The full name of the owner of the phone number that is being searched for.
+     * @return The phone number associated with name, or {@code null} if name is {@code null} or if name
+     * is not in the {@link ConcurrentPhonebook}.
+     */
+    public String getNumberOf(String name) {
+        return (name == null) ? null : read(namesToNumbers, name);
+    }
+
+    /** Retrieves the full name of the owner of the provided phone number. This method never locks.
+     * @param number The phone number whose owner is being searched for.
+     * @return The full name of the owner of number, or {@code null} if number is {@code null} or if number
+     * is not in the {@link ConcurrentPhonebook}.
+     */
+    public String getOwnerOf(String number) {
+        return (number == null) ? null : read(numbersToNames, number);
+    }
+
+    /** Adds the tuple &lt; name, number &gt; in the {@link ConcurrentPhonebook}, atomically. If name already has
+     * another number, or number already has another owner, those entries are <b>replaced</b>. If the
+     * {@link ConcurrentPhonebook} has a {@link MutationLog}, this method returns once the change is durable in it.
+     * Other threads may see the change a little earlier.
+     * @param name The full name of the number's owner.
+     * @param number The phone number of the person.
+     * @throws IllegalArgumentException if either name or number is {@code null}.
+     * @throws UncheckedIOException if the change can't be logged. If the log failed before the change was made, it
+     * isn't made; otherwise it is made, but may not survive a crash.
+     */
+    public void addEntry(String name, String number) {
+        if(name == null || number == null)
+            throw new IllegalArgumentException("Provided: name=" + name + " and number= " + number);
+        MutationLog log = this.log;
+        long sequence = 0;
+        while (sequence == 0) {
+            // The entries we replace have stripes of their own, which we can only know after a first look.
+            String oldNumber = namesToNumbers.get(name).getValue();
+            String oldOwner = numbersToNames.get(number).getValue();
+            int[] stripes = stripes(name, number, oldNumber, oldOwner);
+            lock(stripes);
+            try {
+                if (Objects.equals(oldNumber, namesToNumbers.get(name).getValue())
+                        && Objects.equals(oldOwner, numbersToNames.get(number).getValue())) {//nobody beat us to it
+                    if (number.equals(oldNumber)) {//already there
+                        return;
+                    }
+                    sequence = logChange(log, MutationLog.ADD, name, number);
+                    bumpVersions(stripes);
+                    try {
+                        if (oldNumber != null) {
+                            numbersToNames.remove(oldNumber);
+                            count.decrement();
+                        }
+                        if (oldOwner != null) {
+                            namesToNumbers.remove(oldOwner);
+                            count.decrement();
+                        }
+                        namesToNumbers.put(name, number);
+                        numbersToNames.put(number, name);
+                        count.increment();
+                    } finally {
+                        bumpVersions(stripes);
+                    }
+                    if (log == null) {
+                        return;
+                    }
+                }
+            } finally {
+                unlock(stripes);
+            }
+        }
+        awaitDurable(log, sequence);
+    }
+
+    /** Deletes the entry characterized by the arguments provided, atomically. If the entry is <b>not</b> contained
+     * by this {@link ConcurrentPhonebook}, e.g because name has another number, this method has <b>no effect</b>. If
+     * the {@link ConcurrentPhonebook} has a {@link MutationLog}, this method returns once the change is durable in it.
+     * @param name The &quot;owner&quot; part of the &lt; owner, phone number &gt; tuple.
+     * @param number The &quot;number&quot; part of the &lt; owner, phone number &gt; tuple.
+     * @throws IllegalArgumentException if either name or number is {@code null}.
+     * @throws UncheckedIOException if the change can't be logged. If the log failed before the change was made, it
+     * isn't made; otherwise it is made, but may not survive a crash.
+     */
+    public void deleteEntry(String name, String number) {
+        if(number == null || name == null)
+            throw new IllegalArgumentException("Provided: name=" + name + " and number= " + number);
+        MutationLog log = this.log;
+        long sequence = 0;
+        int[] stripes = stripes(name, number);
+        lock(stripes);
+        try {
+            if (number.equals(namesToNumbers.get(name).getValue())) {
+                sequence = logChange(log, MutationLog.DELETE, name, number);
+                bumpVersions(stripes);
+                try {
+                    namesToNumbers.remove(name);
+                    numbersToNames.remove(number);
+                    count.decrement();
+                } finally {
+                    bumpVersions(stripes);
+                }
+            }
+        } finally {
+            unlock(stripes);
+        }
+        awaitDurable(log, sequence);
+    }
+
+    /** Replays the changes found in log when it was opened, and then <b>logs</b> every later change to this
+     * {@link ConcurrentPhonebook} in it. Changes are logged while their stripes are locked, so that changes to the same
+     * entries are logged in the order they are made, but their writers wait for the log to force them to disk only
+     * after they unlock, so that writers on other stripes log their own changes in the meantime, and the next force
+     * makes them all durable at once. No thread may change this {@link ConcurrentPhonebook} during this method.
+     * @param log The {@link MutationLog} of this {@link ConcurrentPhonebook}.
+     * @return The number of changes replayed.
+     * @throws IllegalArgumentException if log is {@code null}, or if this {@link ConcurrentPhonebook} has a log already.
+     * @see MutationLog
+     */
+    public int recoverFrom(MutationLog log) {
+        if (log == null || this.log != null) {
+            throw new IllegalArgumentException("Provided: log=" + log + ", while this phonebook's log is " + this.log);
+        }
+        int changes = log.recovered();
+        for (int i = 0; i < changes; i++) {
+            if (log.recoveredOp(i) == MutationLog.ADD) {
+                addEntry(log.recoveredName(i), log.recoveredNumber(i));
+            } else {
+                deleteEntry(log.recoveredName(i), log.recoveredNumber(i));
+            }
+        }
+        log.forgetRecovered();
+        this.log = log;
+        return changes;
+    }
+
+    /** Returns the number of entries in the phonebook.
+     * @return the number of entries in the phonebook.
+     */
+    public int size() {
+        return (int) count.sum();
+    }
+
+    /** Queries the phonebook for emptiness.
+     * @return {@code true} if, and only if, there are 0 entries in this {@link ConcurrentPhonebook}, {@code false} otherwise.
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /** Makes room for expectedSize entries in both indexes at once, e.g right before a bulk load.
+     * @param expectedSize The number of entries the {@link ConcurrentPhonebook} should be able to hold.
+     * @throws IllegalArgumentException if expectedSize is negative.
+     * @see HashTable#ensureCapacity(int)
+     */
+    public void ensureCapacity(int expectedSize) {
+        namesToNumbers.ensureCapacity(expectedSize);
+        numbersToNames.ensureCapacity(expectedSize);
+    }
+
+    /** Takes a <b>read-only</b> snapshot of this {@link ConcurrentPhonebook}. Every stripe is locked while the
+     * snapshot is taken, so it holds the entries of some instant, with no change half done.
+     * @return A {@link FrozenPhonebook} with the current entries of this {@link ConcurrentPhonebook}.
+     * @see FrozenPhonebook
+     */
+    public FrozenPhonebook freeze() {
+        int[] all = new int[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            all[i] = i;
+        }
+        lock(all);
+        try {
+            return new FrozenPhonebook(namesToNumbers, numbersToNames);
+        } finally {
+            unlock(all);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package phonebook;
+
+import phonebook.hashes.HashTable;
+import phonebook.hashes.PhoneNumberHashTable;
+import phonebook.utils.KVPair;
+import phonebook.utils.MinimalPerfectHash;
+
+/**
+ * <p>{@link FrozenPhonebook} is a <b>read-only</b> snapshot of a {@link Phonebook}, made with {@link Phonebook#freeze()}.
+ * Since its contents never change, it doesn't need a {@link HashTable} at all: it builds a {@link MinimalPerfectHash}
+ * over the names and another one over the phone numbers, and keeps the records in plain arrays, in the order given by
+ * those functions. A lookup therefore reads <b>exactly one</b> slot of an array, and compares the key stored there with
+ * the one it was given, to rule out names or numbers that are not in the snapshot. There are no collisions to resolve
+ * and no empty cells, and the index itself only takes a few bits per record.</p>
+ *
+ * <p>Later changes to the {@link Phonebook} it was made from are <b>not</b> reflected in a {@link FrozenPhonebook}.
+ * Since it is immutable, a {@link FrozenPhonebook} can be shared between threads freely.</p>
+ *
+ * @author Isaac Solomon
+ *
+ * @see Phonebook#freeze()
+ * @see MinimalPerfectHash
+ */
+public class FrozenPhonebook {
+
+    private final MinimalPerfectHash nameHash;
+    private final String[] names;
+    private final String[] numbersOfNames;
+
+    private final MinimalPerfectHash numberHash;
+    private final String[] numbers;
+    private final String[] ownersOfNumbers;
+
+    private final boolean normalizedNumbers; // The number index only knows numbers as bare digits.
+
+    // Lays out the records of table in the order given by a minimal perfect hash over its keys. out[0] receives
+    // the keys and out[1] the values.
+    private static MinimalPerfectHash layOut(HashTable table, String[][] out) {
+        String[] keys = new String[table.size()];
+        String[] values = new String[table.size()];
+        int i = 0;
+        for (KVPair pair : table) {
+            keys[i] = pair.getKey();
+            values[i++] = pair.getValue();
+        }
+        MinimalPerfectHash hash = new MinimalPerfectHash(keys);
+        out[0] = new String[keys.length];
+        out[1] = new String[keys.length];
+        for (i = 0; i < keys.length; i++) {
+            int index = hash.index(keys[i]);
+            out[0][index] = keys[i];
+            out[1][index] = values[i];
+        }
+        return hash;
+    }
+
+    /**
+     * Snapshots the contents of both indices of a {@link Phonebook}.
+     * @param namesToNumbers The index from names to phone numbers.
+     * @param numbersToNames The index from phone numbers to names.
+     */
+    FrozenPhonebook(HashTable namesToNumbers, HashTable numbersToNames) {
+        String[][] laidOut = new String[2][];
+        nameHash = layOut(namesToNumbers, laidOut);
+        names = laidOut[0];
+        numbersOfNames = laidOut[1];
+
+        numberHash = layOut(numbersToNames, laidOut);
+        numbers = laidOut[0];
+        ownersOfNumbers = laidOut[1];
+
+        normalizedNumbers = numbersToNames instanceof PhoneNumberHashTable;
+    }
+
+    /** Retrieves the phone number associated with the provided full name. If the name is not in the snapshot,
+     * this method returns {@code null}.
+     * @param name The full name of the owner of the phone number that is being searched for.
+     * @return The phone number associated with name, or {@code null} if name is {@code null} or if name
+     * is not in the {@link FrozenPhonebook}.
+     */
+    public String getNumberOf(String name) {
+        if (name == null || names.length == 0) {
+            return null;
+        }
+        int index = nameHash.index(name);
+        return names[index].equals(name) ? numbersOfNames[index] : null;
+    }
+
+    /** Retrieves the full name of the owner of the provided phone number. If the phone number is not in the snapshot,
+     * this method returns {@code null}.
+     * @param number The phone number whose owner is being searched for.
+     * @return The full name of the owner of number, or {@code null} if number is {@code null} or if number
+     * is not in the {@link FrozenPhonebook}.
+     */
+    public String getOwnerOf(String number) {
+        if (number == null || numbers.length == 0) {
+            return null;
+        }
+        if (normalizedNumbers) {
+            try {
+                number = Long.toString(PhoneNumberHashTable.normalize(number)).substring(1);
+            } catch (IllegalArgumentException notANumber) {
+                return null;
+            }
+        }
+        int index = numberHash.index(number);
+        return numbers[index].equals(number) ? ownersOfNumbers[index] : null;
+    }
+
+    /** Returns the number of entries in the snapshot.
+     * @return the number of entries in the snapshot.
+     */
+    public int size() {
+        return names.length;
+    }
+
+    /** Queries the snapshot for emptiness.
+     * @return {@code true} if, and only if, there are 0 entries in this {@link FrozenPhonebook}, {@code false} otherwise.
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+}
@@ -0,0 +1,368 @@
+package phonebook;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32C;
+
+/**
+ * <p>{@link MutationLog} is a <b>write-ahead log</b> of the changes made to a {@link Phonebook} or a
+ * {@link ConcurrentPhonebook}: every {@code addEntry()} and {@code deleteEntry()} is appended to a file and forced to
+ * disk before it returns, so that a phonebook which crashes can be brought back by replaying the log, e.g on top of
+ * its last {@linkplain Phonebook#saveSnapshot(Path) snapshot}. A log is attached to a phonebook by
+ * {@link Phonebook#recoverFrom(MutationLog)}, which replays it first.</p>
+ *
+ * <p>Forcing a file to disk takes far longer than appending to it, so the log uses <b>group commit</b>: changes are
+ * {@linkplain #append(byte, String, String) appended} to a buffer in memory, and a writer which
+ * {@linkplain #awaitDurable(long) waits} for its change to be durable either finds another writer busy forcing the
+ * log, and waits for it, or becomes that writer itself, and forces every change buffered so far with a single
+ * {@link FileChannel#force(boolean)}. Writers which arrive while the log is being forced are buffered for the next
+ * one, so the more writers there are, the more changes every force makes durable.</p>
+ *
+ * <p>Every record carries a CRC-32C checksum. {@link #open(Path)} checks and decodes the records of an existing log
+ * in parallel, and cuts the log right before the first record which is incomplete or corrupt, which is where the
+ * last write before a crash was torn.</p>
+ *
+ * @author Isaac Solomon
+ *
+ * @see Phonebook#recoverFrom(MutationLog)
+ * @see ConcurrentPhonebook#recoverFrom(MutationLog)
+ */
+public final class MutationLog implements Closeable {
+
+    /**
+     * The operation of a record of {@link Phonebook#addEntry(String, String)}.
+     */
+    public static final byte ADD = 1;
+
+    /**
+     * The operation of a record of {@link Phonebook#deleteEntry(String, String)}.
+     */
+    public static final byte DELETE = 2;
+
+    private static final int HEADER = 8;        // The length of the payload, and its checksum.
+
+    private final FileChannel channel;
+    private final ReentrantLock lock;
+    private final Condition flushed;            // Signalled whenever a force is over.
+    private ByteBuffer pending;                 // Records appended since the last force started.
+    private ByteBuffer spare;                   // The buffer being forced, null while it is.
+    private long appended;                      // The number of records appended, ever.
+    private long durable;                       // The number of records forced to disk, ever.
+    private boolean flushing;
+    private IOException failure;                // Why the log can't be written to anymore, if it can't.
+    private boolean closed;
+
+    private byte[] ops;                         // The records found by open(), until they are replayed.
+    private String[] names;
+    private String[] numbers;
+
+    private MutationLog(FileChannel channel) {
+        this.channel = channel;
+        lock = new ReentrantLock();
+        flushed = lock.newCondition();
+        pending = ByteBuffer.allocate(1 << 16);
+        spare = ByteBuffer.allocate(1 << 16);
+        ops = new byte[0];
+        names = numbers = new String[0];
+    }
+
+    // A whole record: the length of its payload, the checksum of its payload, the operation, the length of the name,
+    // the name and the number.
+    private static byte[] encode(byte op, String name, String number) {
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8), numberBytes = number.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer record = ByteBuffer.allocate(HEADER + 1 + 4 + nameBytes.length + numberBytes.length);
+        record.putInt(record.capacity() - HEADER).putInt(0).put(op).putInt(nameBytes.length).put(nameBytes).put(numberBytes);
+        CRC32C checksum = new CRC32C();
+        checksum.update(record.array(), HEADER, record.capacity() - HEADER);
+        record.putInt(4, (int) checksum.getValue());
+        return record.array();
+    }
+
+    // Decodes the i-th record, which starts at offset in log. Returns false if it is corrupt.
+    private boolean decode(ByteBuffer log, int offset, int i) {
+        ByteBuffer record = log.duplicate();
+        int length = record.getInt(offset);
+        record.limit(offset + HEADER + length).position(offset + HEADER);
+        CRC32C checksum = new CRC32C();
+        checksum.update(record.duplicate());
+        if ((int) checksum.getValue() != record.getInt(offset + 4) || length < 5) {
+            return false;
+        }
+        byte op = record.get();
+        int nameLength = record.getInt();
+        if ((op != ADD && op != DELETE) || nameLength < 0 || nameLength > record.remaining()) {
+            return false;
+        }
+        byte[] name = new byte[nameLength], number = new byte[record.remaining() - nameLength];
+        record.get(name).get(number);
+        ops[i] = op;
+        names[i] = new String(name, StandardCharsets.UTF_8);
+        numbers[i] = new String(number, StandardCharsets.UTF_8);
+        return true;
+    }
+
+    // Reads every record already in the log, and cuts the log before the first one which is torn or corrupt.
+    private void recover() throws IOException {
+        long size = channel.size();
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("The log is too large to replay: " + size + " bytes.");
+        }
+        MappedByteBuffer log = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        int[] offsets = new int[16];
+        int records = 0;
+        int offset = 0;
+        while (size - offset >= HEADER) {//only the lengths are read here, the records are checked in parallel below
+            int length = log.getInt(offset);
+            if (length < 0 || length > size - offset - HEADER) {
+                break;
+            }
+            if (records == offsets.length) {
+                offsets = Arrays.copyOf(offsets, records * 2);
+            }
+            offsets[records++] = offset;
+            offset += HEADER + length;
+        }
+
+        ops = new byte[records];
+        names = new String[records];
+        numbers = new String[records];
+        AtomicInteger firstCorrupt = new AtomicInteger(records);
+        int[] starts = offsets;
+        IntStream.range(0, records).parallel().forEach(i -> {
+            if (!decode(log, starts[i], i)) {
+                firstCorrupt.accumulateAndGet(i, Math::min);
+            }
+        });
+
+        records = firstCorrupt.get();
+        long end = (records < ops.length) ? offsets[records] : offset;
+        ops = Arrays.copyOf(ops, records);
+        names = Arrays.copyOf(names, records);
+        numbers = Arrays.copyOf(numbers, records);
+        if (end < size) {
+            channel.truncate(end);
+            channel.force(true);
+        }
+        channel.position(end);
+    }
+
+    /**
+     * Opens the log in file, or creates it, and reads the records it already holds, for
+     * {@link Phonebook#recoverFrom(MutationLog)}. A torn or corrupt record, and every record after it, is cut off.
+     * @param file The path of the log.
+     * @return A {@link MutationLog} which appends to file.
+     * @throws IOException if file can't be opened, read or written to, or is larger than 2GB.
+     */
+    public static MutationLog open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            MutationLog log = new MutationLog(channel);
+            log.recover();
+            return log;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Appends a record to the buffer of the log. The record is <b>not</b> durable until {@link #awaitDurable(long)}
+     * returns for its sequence number. Writers which have to apply their changes in the same order as they are
+     * logged, e.g because they change the same entries, append them while they hold the same lock.
+     * @param op {@link #ADD} or {@link #DELETE}.
+     * @param name The name of the entry.
+     * @param number The phone number of the entry.
+     * @return The sequence number of the record.
+     * @throws IOException if the log is closed, or failed to write an earlier record.
+     * @throws IllegalArgumentException if name or number is {@code null}, or if op is neither {@link #ADD} nor
+     * {@link #DELETE}.
+     */
+    public long append(byte op, String name, String number) throws IOException {
+        if (name == null || number == null || (op != ADD && op != DELETE)) {
+            throw new IllegalArgumentException("Provided: op=" + op + ", name=" + name + " and number= " + number);
+        }
+        byte[] record = encode(op, name, number);
+        lock.lock();
+        try {
+            checkWritable();
+            if (pending.remaining() < record.length) {
+                int capacity = Math.max(pending.capacity() * 2, pending.position() + record.length);
+                pending = ByteBuffer.allocate(capacity).put(pending.flip());
+            }
+            pending.put(record);
+            return ++appended;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until the record with the given sequence number, and every record before it, is forced to disk. The
+     * thread either waits for a force which is already under way, or forces every record buffered so far itself.
+     * @param sequence A sequence number returned by {@link #append(byte, String, String)}.
+     * @throws IOException if the log failed to write the record, or is closed before it could.
+     */
+    public void awaitDurable(long sequence) throws IOException {
+        lock.lock();
+        try {
+            while (durable < sequence) {
+                checkWritable();
+                if (flushing) {
+                    flushed.awaitUninterruptibly();
+                } else {
+                    flush();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Forces every buffered record to disk. The caller holds the lock, which is released during the force, so that
+    // other writers keep appending to the other buffer in the meantime.
+    private void flush() {
+        flushing = true;
+        ByteBuffer batch = pending.flip();
+        pending = spare;
+        spare = null;
+        long last = appended;
+        IOException error = null;
+        lock.unlock();
+        try {
+            while (batch.hasRemaining()) {
+                channel.write(batch);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            error = e;
+        } finally {
+            lock.lock();
+        }
+        spare = batch.clear();
+        flushing = false;
+        if (error == null) {
+            durable = last;
+        } else {
+            failure = error;
+        }
+        flushed.signalAll();
+    }
+
+    private void checkWritable() throws IOException {
+        if (failure != null) {
+            throw new IOException("The log failed to write earlier records.", failure);
+        }
+        if (closed) {
+            throw new IOException("The log is closed.");
+        }
+    }
+
+    /**
+     * Empties the log, e.g right after a snapshot of the phonebook was saved. Records which were appended but are not
+     * durable yet are dropped too, and count as durable, so the snapshot has to hold every change made so far.
+     * @throws IOException if the log can't be truncated, or is closed.
+     */
+    public void truncate() throws IOException {
+        lock.lock();
+        try {
+            while (flushing) {
+                flushed.awaitUninterruptibly();
+            }
+            checkWritable();
+            pending.clear();
+            channel.truncate(0);
+            channel.force(true);
+            durable = appended;
+            flushed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Forces every record appended so far to disk, and closes the log.
+     * @throws IOException if the log fails to write them.
+     */
+    @Override
+    public void close() throws IOException {
+        long last;
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            last = appended;
+        } finally {
+            lock.unlock();
+        }
+        try {
+            awaitDurable(last);
+        } finally {
+            lock.lock();
+            try {
+                if (!closed) {
+                    closed = true;
+                    flushed.signalAll();
+                    channel.close();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of records that {@link #open(Path)} found in the log and that haven't been replayed yet.
+     * @return The number of records to replay.
+     */
+    int recovered() {
+        return ops.length;
+    }
+
+    /**
+     * Returns the operation of the i-th record to replay.
+     * @param i The index of the record, in the order of the log.
+     * @return {@link #ADD} or {@link #DELETE}.
+     */
+    byte recoveredOp(int i) {
+        return ops[i];
+    }
+
+    /**
+     * Returns the name of the i-th record to replay.
+     * @param i The index of the record, in the order of the log.
+     * @return The name of the entry.
+     */
+    String recoveredName(int i) {
+        return names[i];
+    }
+
+    /**
+     * Returns the phone number of the i-th record to replay.
+     * @param i The index of the record, in the order of the log.
+     * @return The phone number of the entry.
+     */
+    String recoveredNumber(int i) {
+        return numbers[i];
+    }
+
+    /**
+     * Lets go of the records to replay, once they have been.
+     */
+    void forgetRecovered() {
+        ops = new byte[0];
+        names = numbers = new String[0];
+    }
+}
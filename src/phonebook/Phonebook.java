@@ -1,6 +1,26 @@
 package phonebook;
 
 import phonebook.hashes.*;
+import phonebook.utils.CsvEntries;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
 
 /**
  * <p>{@link Phonebook} is an abstraction over phonebooks: databases of &lt; Full Name,
@@ -25,11 +45,27 @@ import phonebook.hashes.*;
  * @see SeparateChainingHashTable
  * @see LinearProbingHashTable
  * @see QuadraticProbingHashTable
+ * @see RobinHoodHashTable
+ * @see HopscotchHashTable
+ * @see CuckooHashTable
+ * @see SwissHashTable
+ * @see DoubleHashingHashTable
+ * @see PhoneNumberHashTable
+ * @see GrowthPolicy
+ * @see FrozenPhonebook
+ * @see ConcurrentPhonebook
+ * @see TableSnapshots
+ * @see MutationLog
  */
 public class Phonebook {
 
+    private static final int SNAPSHOT_MAGIC = 0x50425350;   // "PBSP"
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final int SNAPSHOT_BUFFER = 1 << 16;
+
     private HashTable namesToNumbers ;
     private HashTable numbersToNames ;
+    private MutationLog log;            // null unless recoverFrom() attached one.
 
 
     /**
@@ -40,6 +76,8 @@ public class Phonebook {
      *                           create our hash table with <b>peoples' names</b> as keys.
      * @param numbersToNamesHash A {@link CollisionResolver} that will govern which subtype of {@link HashTable} will be used to
      *                           create our hash table with <b>phone numbers</b> as keys.
+     * @throws IllegalArgumentException if namesToNumbersHash is {@link CollisionResolver#NUMERIC_LINEAR_PROBING},
+     *                           which only supports phone numbers as keys.
      * @see CollisionResolver
      */
     public Phonebook(CollisionResolver namesToNumbersHash, CollisionResolver numbersToNamesHash) {
@@ -57,6 +95,23 @@ public class Phonebook {
             case QUADRATIC_PROBING:
                 namesToNumbers = new QuadraticProbingHashTable(false);
                 break;
+            case ROBIN_HOOD:
+                namesToNumbers = new RobinHoodHashTable();
+                break;
+            case HOPSCOTCH:
+                namesToNumbers = new HopscotchHashTable();
+                break;
+            case CUCKOO:
+                namesToNumbers = new CuckooHashTable();
+                break;
+            case SWISS_TABLE:
+                namesToNumbers = new SwissHashTable();
+                break;
+            case DOUBLE_HASHING:
+                namesToNumbers = new DoubleHashingHashTable(false);
+                break;
+            case NUMERIC_LINEAR_PROBING:
+                throw new IllegalArgumentException(namesToNumbersHash + " can only be used for the phone number index.");
             default:
                 throw new RuntimeException("Encountered unsupported CollisionResolver argument: " + namesToNumbersHash  + "." );
         }
@@ -74,11 +129,146 @@ public class Phonebook {
             case QUADRATIC_PROBING:
                 numbersToNames = new QuadraticProbingHashTable(false);
                 break;
+            case ROBIN_HOOD:
+                numbersToNames = new RobinHoodHashTable();
+                break;
+            case HOPSCOTCH:
+                numbersToNames = new HopscotchHashTable();
+                break;
+            case CUCKOO:
+                numbersToNames = new CuckooHashTable();
+                break;
+            case SWISS_TABLE:
+                numbersToNames = new SwissHashTable();
+                break;
+            case DOUBLE_HASHING:
+                numbersToNames = new DoubleHashingHashTable(false);
+                break;
+            case NUMERIC_LINEAR_PROBING:
+                numbersToNames = new PhoneNumberHashTable();
+                break;
             default:
                 throw new RuntimeException("Encountered unsupported Collision Resolver " + numbersToNamesHash + ".");
         }
     }
 
+    /**
+     * Instantiates a new {@link Phonebook} whose hash tables follow the given {@link GrowthPolicy}s, e.g to run a
+     * read-heavy index with a {@link CollisionResolver#ROBIN_HOOD} table at a high load factor.
+     *
+     * @param namesToNumbersHash A {@link CollisionResolver} that will govern which subtype of {@link HashTable} will be used to
+     *                           create our hash table with <b>peoples' names</b> as keys.
+     * @param numbersToNamesHash A {@link CollisionResolver} that will govern which subtype of {@link HashTable} will be used to
+     *                           create our hash table with <b>phone numbers</b> as keys.
+     * @param namesToNumbersPolicy The {@link GrowthPolicy} of the hash table with names as keys.
+     * @param numbersToNamesPolicy The {@link GrowthPolicy} of the hash table with phone numbers as keys.
+     * @throws IllegalArgumentException if namesToNumbersHash is {@link CollisionResolver#NUMERIC_LINEAR_PROBING},
+     *                           if either policy is {@code null}, or if a policy doesn't suit its hash table.
+     * @see CollisionResolver
+     * @see GrowthPolicy
+     */
+    public Phonebook(CollisionResolver namesToNumbersHash, CollisionResolver numbersToNamesHash,
+                     GrowthPolicy namesToNumbersPolicy, GrowthPolicy numbersToNamesPolicy) {
+        if (namesToNumbersHash == CollisionResolver.NUMERIC_LINEAR_PROBING) {
+            throw new IllegalArgumentException(namesToNumbersHash + " can only be used for the phone number index.");
+        }
+        namesToNumbers = newTable(namesToNumbersHash, namesToNumbersPolicy);
+        numbersToNames = newTable(numbersToNamesHash, numbersToNamesPolicy);
+    }
+
+    /**
+     * Instantiates a new {@link Phonebook} whose hash tables are large enough to hold expectedSize entries from the
+     * start, so that bulk loads of a known number of entries never have to resize them.
+     *
+     * @param namesToNumbersHash A {@link CollisionResolver} that will govern which subtype of {@link HashTable} will be used to
+     *                           create our hash table with <b>peoples' names</b> as keys.
+     * @param numbersToNamesHash A {@link CollisionResolver} that will govern which subtype of {@link HashTable} will be used to
+     *                           create our hash table with <b>phone numbers</b> as keys.
+     * @param expectedSize The number of entries the {@link Phonebook} is expected to hold.
+     * @throws IllegalArgumentException if namesToNumbersHash is {@link CollisionResolver#NUMERIC_LINEAR_PROBING}, or
+     *                           if expectedSize is negative.
+     * @see #ensureCapacity(int)
+     */
+    public Phonebook(CollisionResolver namesToNumbersHash, CollisionResolver numbersToNamesHash, int expectedSize) {
+        this(namesToNumbersHash, numbersToNamesHash);
+        ensureCapacity(expectedSize);
+    }
+
+    private Phonebook(HashTable namesToNumbers, HashTable numbersToNames) {
+        this.namesToNumbers = namesToNumbers;
+        this.numbersToNames = numbersToNames;
+    }
+
+    // Appends a change to the log, if there is one, and waits until it's durable.
+    private void logChange(byte op, String name, String number) {
+        if (log != null) {
+            try {
+                log.awaitDurable(log.append(op, name, number));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    // Replays the first changes of log to table, whose keys are the names if byName is true, and the numbers otherwise.
+    // An ADD that table holds already is skipped, since the tables which insert rather than update, e.g Linear Probing,
+    // would hold its entry twice, and a single DELETE would not take it away.
+    private static void replay(MutationLog log, int changes, HashTable table, boolean byName) {
+        for (int i = 0; i < changes; i++) {
+            String key = byName ? log.recoveredName(i) : log.recoveredNumber(i);
+            String value = byName ? log.recoveredNumber(i) : log.recoveredName(i);
+            if (log.recoveredOp(i) == MutationLog.DELETE) {
+                table.remove(key);
+            } else if (!value.equals(table.get(key).getValue())) {
+                table.put(key, value);
+            }
+        }
+    }
+
+    // Runs forNumbers on another thread while this one runs forNames, and waits for both.
+    private static void inParallel(Runnable forNames, Runnable forNumbers) {
+        CompletableFuture<Void> reverse = CompletableFuture.runAsync(forNumbers);
+        try {
+            forNames.run();
+        } finally {
+            try {
+                reverse.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            }
+        }
+    }
+
+    private static HashTable newTable(CollisionResolver resolver, GrowthPolicy policy) {
+        switch(resolver){
+            case SEPARATE_CHAINING:
+                return new SeparateChainingHashTable(policy);
+            case LINEAR_PROBING:
+                return new LinearProbingHashTable(false, policy);
+            case ORDERED_LINEAR_PROBING:
+                return new OrderedLinearProbingHashTable(false, policy);
+            case QUADRATIC_PROBING:
+                return new QuadraticProbingHashTable(false, policy);
+            case ROBIN_HOOD:
+                return new RobinHoodHashTable(policy);
+            case HOPSCOTCH:
+                return new HopscotchHashTable(policy);
+            case CUCKOO:
+                return new CuckooHashTable(policy);
+            case SWISS_TABLE:
+                return new SwissHashTable(policy);
+            case DOUBLE_HASHING:
+                return new DoubleHashingHashTable(false, policy);
+            case NUMERIC_LINEAR_PROBING:
+                return new PhoneNumberHashTable(policy);
+            default:
+                throw new RuntimeException("Encountered unsupported Collision Resolver " + resolver + ".");
+        }
+    }
+
     /** Retrieves the phone number associated with the provided full name. If the name is not in the database,
      * this method returns {@code null}.
      * @param name The full name of the owner of the phone number that is being searched for.
@@ -100,27 +290,37 @@ public class Phonebook {
     }
 
     /** Adds the tuple &lt; name, number &gt; in the {@link Phonebook}. If either name or
-     * number are already in the collection, then the entire entry is <b>updated</b>.
+     * number are already in the collection, then the entire entry is <b>updated</b>. If the {@link Phonebook} has a
+     * {@link MutationLog}, the change is durable in the log before it is made.
      * @param name The full name of the number's owner.
      * @param number The phone number of the person.
-     * @throws IllegalArgumentException if either name or number is {@code null}.
+     * @throws IllegalArgumentException if either name or number is {@code null}, or if the hash table with phone
+     * numbers as keys rejects number, in which case neither hash table is changed.
+     * @throws UncheckedIOException if the change can't be logged, in which case it isn't made.
      */
     public void addEntry(String name, String number) {
         if(name == null || number == null)
             throw new IllegalArgumentException("Provided: name=" + name + " and number= " + number);
+        if (numbersToNames instanceof PhoneNumberHashTable) {
+            PhoneNumberHashTable.normalize(number);//reject it before either table or the log has it
+        }
+        logChange(MutationLog.ADD, name, number);
         namesToNumbers.put(name, number);
         numbersToNames.put(number, name);
     }
 
     /** Deletes the entry characterized by the arguments provided. If either argument is {@code null}, or if the
-     * entry is <b>not</b> contained by this {@link Phonebook} instance, this method has <b>no effect</b>.
+     * entry is <b>not</b> contained by this {@link Phonebook} instance, this method has <b>no effect</b>. If the
+     * {@link Phonebook} has a {@link MutationLog}, the change is durable in the log before it is made.
      * @param name The &quot;owner&quot; part of the &lt; owner, phone number &gt; tuple.
      * @param number The &quot;number&quot; part of the &lt; owner, phone number &gt; tuple.
      * @throws IllegalArgumentException if either name or number is {@code null}.
+     * @throws UncheckedIOException if the change can't be logged, in which case it isn't made.
      */
     public void deleteEntry(String name, String number) {
         if(number == null || name == null)
             throw new IllegalArgumentException("Provided: name=" + name + " and number= " + number);
+        logChange(MutationLog.DELETE, name, number);
         namesToNumbers.remove(name);
         numbersToNames.remove(number);
     }
@@ -136,6 +336,164 @@ public class Phonebook {
         return namesToNumbers.size();
     }
 
+    /** Makes room for expectedSize entries in both hash tables at once, e.g right before a bulk load, so that the
+     * load itself does not resize them.
+     * @param expectedSize The number of entries the {@link Phonebook} should be able to hold.
+     * @throws IllegalArgumentException if expectedSize is negative.
+     * @see HashTable#ensureCapacity(int)
+     */
+    public void ensureCapacity(int expectedSize) {
+        namesToNumbers.ensureCapacity(expectedSize);
+        numbersToNames.ensureCapacity(expectedSize);
+    }
+
+    /** Adds every &lt; name, number &gt; entry of a text file with one {@code name,number} line per entry, as if by
+     * {@link #addEntry(String, String)} in the order of the file. The file is memory-mapped and parsed in parallel
+     * chunks before the {@link Phonebook} is touched, both hash tables are then enlarged once for all of the new
+     * entries, and each of them is filled by a thread of its own. If the {@link Phonebook} has a {@link MutationLog},
+     * every entry is logged first, and made durable with a single force.
+     * @param file The path of a UTF-8 file of {@code name,number} lines.
+     * @return The number of entries read from file.
+     * @throws IOException if file can't be read or is malformed, or if the entries can't be logged, in which case the
+     * {@link Phonebook} is left unchanged.
+     * @throws IllegalArgumentException if the hash table with phone numbers as keys rejects one of them, in which case
+     * none of them is added.
+     * @see CsvEntries
+     */
+    public int importFrom(Path file) throws IOException {
+        CsvEntries entries = CsvEntries.read(file);
+        for (int i = 0; i < entries.size() && numbersToNames instanceof PhoneNumberHashTable; i++) {
+            PhoneNumberHashTable.normalize(entries.getNumber(i));//reject them all before either table or the log has any
+        }
+        if (log != null && entries.size() > 0) {
+            long last = 0;
+            for (int i = 0; i < entries.size(); i++) {
+                last = log.append(MutationLog.ADD, entries.getName(i), entries.getNumber(i));
+            }
+            log.awaitDurable(last);
+        }
+        ensureCapacity(size() + entries.size());
+        inParallel(() -> {
+            for (int i = 0; i < entries.size(); i++) {
+                namesToNumbers.put(entries.getName(i), entries.getNumber(i));
+            }
+        }, () -> {
+            for (int i = 0; i < entries.size(); i++) {
+                numbersToNames.put(entries.getNumber(i), entries.getName(i));
+            }
+        });
+        return entries.size();
+    }
+
+    /** Replays the changes found in log when it was opened, and then <b>logs</b> every later change to this
+     * {@link Phonebook} in it, so that replaying the log brings it back after a crash. Each hash table replays every
+     * change on a thread of its own, in the order of the log. Additions of entries which this {@link Phonebook} already
+     * holds are skipped, so a log may be replayed on top of a {@linkplain #loadSnapshot(Path) snapshot} which was
+     * saved after some of its changes; {@link MutationLog#truncate()} empties it once the snapshot is saved.
+     * @param log The {@link MutationLog} of this {@link Phonebook}.
+     * @return The number of changes replayed.
+     * @throws IllegalArgumentException if log is {@code null}, or if this {@link Phonebook} has a log already.
+     * @see MutationLog
+     */
+    public int recoverFrom(MutationLog log) {
+        if (log == null || this.log != null) {
+            throw new IllegalArgumentException("Provided: log=" + log + ", while this phonebook's log is " + this.log);
+        }
+        int changes = log.recovered();
+        inParallel(() -> replay(log, changes, namesToNumbers, true), () -> replay(log, changes, numbersToNames, false));
+        log.forgetRecovered();
+        this.log = log;
+        return changes;
+    }
+
+    /** Saves both hash tables of this {@link Phonebook} to a binary file, for {@link #loadSnapshot(Path)}. Every
+     * table is written with its {@link CollisionResolver}, {@link GrowthPolicy}, capacity and the exact cell of every
+     * record, and the whole file ends with a CRC-32C checksum. The snapshot is written to a temporary file next to
+     * file first, and forced to disk, before it replaces file in one move, so that a crash never leaves a half
+     * written snapshot behind. The directory is forced after the move too, so that once this method returns, the
+     * snapshot survives a crash, and the {@link MutationLog} of this {@link Phonebook} can be truncated.
+     * @param file The path of the snapshot.
+     * @throws IOException if file can't be written, or if a name or number is longer than 65535 bytes in modified UTF-8.
+     * @see TableSnapshots
+     */
+    public void saveSnapshot(Path file) throws IOException {
+        Path partial = file.resolveSibling(file.getFileName() + ".partial");
+        CRC32C checksum = new CRC32C();
+        try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+                     new BufferedOutputStream(Channels.newOutputStream(channel), SNAPSHOT_BUFFER), checksum))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            TableSnapshots.write(namesToNumbers, out);
+            TableSnapshots.write(numbersToNames, out);
+            out.writeLong(checksum.getValue());
+            out.flush();
+            channel.force(true);//the new snapshot has to be on disk before it replaces the old one
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(partial);
+            throw e;
+        }
+        Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        forceDirectory(file.toAbsolutePath().getParent());
+    }
+
+    // Forces the entries of dir to disk, e.g right after a file was moved into it. Some platforms can't open a
+    // directory, e.g Windows, where a move is as durable as it's going to get already.
+    private static void forceDirectory(Path dir) {
+        if (dir == null) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            //nothing more we can do on this platform
+        }
+    }
+
+    /** Loads a {@link Phonebook} saved by {@link #saveSnapshot(Path)}. The file is read sequentially, straight into
+     * hash tables of the right kind and capacity, without hashing or inserting a single entry, so the {@link Phonebook}
+     * is ready for lookups as soon as the file has been read.
+     * @param file The path of the snapshot.
+     * @return A {@link Phonebook} with the same entries and hash tables as the one that was saved.
+     * @throws IOException if file can't be read, is not a snapshot, or fails its checksum.
+     * @see TableSnapshots
+     */
+    public static Phonebook loadSnapshot(Path file) throws IOException {
+        CRC32C checksum = new CRC32C();
+        try (DataInputStream in = new DataInputStream(new CheckedInputStream(
+                new BufferedInputStream(Files.newInputStream(file), SNAPSHOT_BUFFER), checksum))) {
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                throw new IOException(file + " is not a phonebook snapshot.");
+            }
+            int version = in.readInt();
+            if (version != SNAPSHOT_VERSION) {
+                throw new IOException("Unsupported snapshot version: " + version);
+            }
+            HashTable namesToNumbers = TableSnapshots.read(in);
+            HashTable numbersToNames = TableSnapshots.read(in);
+            long expected = checksum.getValue();
+            if (in.readLong() != expected || in.read() != -1) {
+                throw new IOException(file + " is corrupt: its checksum doesn't match.");
+            }
+            if (namesToNumbers.size() != numbersToNames.size()) {
+                throw new IOException(file + " is corrupt: its hash tables have different sizes.");
+            }
+            return new Phonebook(namesToNumbers, numbersToNames);
+        } catch (EOFException e) {
+            throw new IOException(file + " is truncated.", e);
+        }
+    }
+
+    /** Takes a <b>read-only</b> snapshot of this {@link Phonebook}, whose lookups go through minimal perfect hash
+     * functions instead of hash tables. Later changes to this {@link Phonebook} are not reflected in the snapshot.
+     * @return A {@link FrozenPhonebook} with the current entries of this {@link Phonebook}.
+     * @see FrozenPhonebook
+     */
+    public FrozenPhonebook freeze() {
+        return new FrozenPhonebook(namesToNumbers, numbersToNames);
+    }
+
     /** Queries the phonebook for emptiness.
      * @return {@code true} if, and only if, there are 0 entries in this {@link Phonebook}, {@code false} otherwise.
      */
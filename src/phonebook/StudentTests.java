@@ -4,11 +4,27 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import phonebook.hashes.*;
+import phonebook.utils.KVPair;
 import phonebook.utils.NoMorePrimesException;
-
+import phonebook.utils.Probes;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.*;
 import static phonebook.hashes.CollisionResolver.*;
@@ -29,7 +45,7 @@ import static phonebook.hashes.CollisionResolver.*;
 public class StudentTests {
 
     private Phonebook pb;
-    private CollisionResolver[] resolvers = {SEPARATE_CHAINING, LINEAR_PROBING, ORDERED_LINEAR_PROBING, QUADRATIC_PROBING};
+    private CollisionResolver[] resolvers = {SEPARATE_CHAINING, LINEAR_PROBING, ORDERED_LINEAR_PROBING, QUADRATIC_PROBING, ROBIN_HOOD, HOPSCOTCH, CUCKOO, SWISS_TABLE, DOUBLE_HASHING};
     private HashMap<String, String> testingPhoneBook;
     private static final long SEED = 47;
     private static final Random RNG = new Random(SEED);
@@ -45,6 +61,42 @@ public class StudentTests {
         return "Received a " + t.getClass().getSimpleName() + " with message: " + t.getMessage() + ".";
     }
 
+    // Runs a random mix of insertions, updates and deletions against both the table and a java.util.HashMap,
+    // and checks that the two always agree.
+    private void checkAgainstHashMap(HashTable table, String tableName) {
+        Map<String, String> expected = new HashMap<>();
+        Random rng = new Random(SEED);
+        for (int i = 0; i < NUMS; i++) {
+            String key = Integer.toString(rng.nextInt(UPPER_BOUND * 3));
+            String value = Integer.toString(rng.nextInt(UPPER_BOUND));
+            if (rng.nextInt(3) == 0) {
+                assertEquals(tableName + " returned the wrong value when removing " + key + ".",
+                        expected.remove(key), table.remove(key).getValue());
+            } else {
+                table.put(key, value);
+                expected.put(key, value);
+            }
+            assertEquals(tableName + " reports the wrong size after operation #" + i + ".", expected.size(), table.size());
+        }
+        for (int i = 0; i < UPPER_BOUND * 3; i++) {
+            String key = Integer.toString(i);
+            assertEquals(tableName + " returned the wrong value for " + key + ".", expected.get(key), table.get(key).getValue());
+        }
+    }
+
+    // Every string of the given number of "Aa" and "BB" blocks: 2^blocks keys, which all share a single hash code.
+    private static List<String> sameHashCodeKeys(int blocks) {
+        List<String> keys = new ArrayList<>();
+        for (int bits = 0; bits < 1 << blocks; bits++) {
+            StringBuilder key = new StringBuilder();
+            for (int b = 0; b < blocks; b++) {
+                key.append(((bits >> b) & 1) == 0 ? "Aa" : "BB");
+            }
+            keys.add(key.toString());
+        }
+        return keys;
+    }
+
     @Before
     public void setUp() {
         testingPhoneBook = new HashMap<>();
@@ -277,5 +329,1000 @@ public class StudentTests {
 
 
 
+    }
+
+    @Test
+    public void testRobinHood() {
+        RobinHoodHashTable rh = new RobinHoodHashTable();
+        assertEquals("Robin Hood hash should have a capacity of 7 at startup.", 7, rh.capacity());
+        for (Map.Entry<String, String> entry : testingPhoneBook.entrySet()) {
+            rh.put(entry.getKey(), entry.getValue());
+        }
+        assertEquals(4, rh.size());
+        rh.put("Arnold", "705-12-7500");
+        assertEquals("Putting an existing key should update it, not add it.", 4, rh.size());
+        assertEquals("705-12-7500", rh.get("Arnold").getValue());
+        assertEquals("705-12-7500", rh.remove("Jessie").getValue());
+        assertNull(rh.get("Jessie").getValue());
+        assertEquals(3, rh.size());
+
+        checkAgainstHashMap(new RobinHoodHashTable(), "Robin Hood hash");
+    }
+
+    @Test
+    public void testHopscotch() {
+        HopscotchHashTable hh = new HopscotchHashTable();
+        for (int i = 0; i < NUMS; i++) {
+            hh.put(Integer.toString(i), Integer.toString(i));
+        }
+        assertTrue("Hopscotch hash should be allowed to get more than half full.",
+                (float) hh.size() / hh.capacity() > .5);
+        for (int i = 0; i < NUMS; i++) {
+            String key = Integer.toString(i);
+            assertEquals(key, hh.get(key).getValue());
+            assertTrue("Hopscotch hash made more probes than its neighborhood has cells.",
+                    hh.get(key).getProbes() <= HopscotchHashTable.NEIGHBORHOOD);
+        }
+
+        checkAgainstHashMap(new HopscotchHashTable(), "Hopscotch hash");
+
+        // More keys share a hash code than a neighborhood has cells: the rest overflow, rather than grow the table.
+        hh = new HopscotchHashTable();
+        List<String> keys = sameHashCodeKeys(7);
+        for (String key : keys) {
+            hh.put(key, key.toLowerCase());
+        }
+        assertEquals(keys.size(), hh.size());
+        assertTrue("Hopscotch hash grew too much for " + keys.size() + " keys: " + hh.capacity(),
+                hh.capacity() <= 4 * keys.size());
+        for (String key : keys) {
+            assertEquals(key.toLowerCase(), hh.get(key).getValue());
+            assertTrue(hh.containsKey(key));
+        }
+        int seen = 0;
+        for (KVPair pair : hh) {
+            assertEquals(pair.getKey().toLowerCase(), pair.getValue());
+            seen++;
+        }
+        assertEquals(keys.size(), seen);
+        for (int i = 0; i < keys.size(); i += 2) {
+            assertEquals(keys.get(i).toLowerCase(), hh.remove(keys.get(i)).getValue());
+        }
+        for (int i = 0; i < keys.size(); i++) {
+            assertEquals(i % 2 == 0 ? null : keys.get(i).toLowerCase(), hh.get(keys.get(i)).getValue());
+        }
+        assertEquals(keys.size() / 2, hh.size());
+    }
+
+    @Test
+    public void testCuckoo() {
+        CuckooHashTable ch = new CuckooHashTable();
+        for (int i = 0; i < NUMS; i++) {
+            ch.put(Integer.toString(i), Integer.toString(i));
+        }
+        for (int i = 0; i < 2 * NUMS; i++) {
+            String key = Integer.toString(i);
+            assertEquals(i < NUMS ? key : null, ch.get(key).getValue());
+            assertTrue("Cuckoo hash made more probes than two cells and its stash.",
+                    ch.get(key).getProbes() <= 2 + CuckooHashTable.STASH_SIZE);
+        }
+
+        checkAgainstHashMap(new CuckooHashTable(), "Cuckoo hash");
+
+        // Keys that share a hash code still get cells of their own, so the table neither grows without bound nor
+        // needs more than its stash.
+        for (CuckooHashTable table : new CuckooHashTable[]{new CuckooHashTable(), new CuckooHashTable(GrowthPolicy.POWER_OF_TWO)}) {
+            List<String> keys = sameHashCodeKeys(10);
+            for (String key : keys) {
+                table.put(key, key.toLowerCase());
+            }
+            assertEquals(keys.size(), table.size());
+            assertTrue("Cuckoo hash grew too much for " + keys.size() + " keys: " + table.capacity(),
+                    table.capacity() <= 8 * keys.size());
+            for (String key : keys) {
+                assertEquals(key.toLowerCase(), table.get(key).getValue());
+                assertTrue("Cuckoo hash made more probes than two cells and its stash.",
+                        table.get(key).getProbes() <= 2 + CuckooHashTable.STASH_SIZE);
+            }
+            for (int i = 0; i < keys.size(); i += 2) {
+                assertEquals(keys.get(i).toLowerCase(), table.remove(keys.get(i)).getValue());
+            }
+            for (int i = 0; i < keys.size(); i++) {
+                assertEquals(i % 2 == 0 ? null : keys.get(i).toLowerCase(), table.get(keys.get(i)).getValue());
+            }
+        }
+    }
+
+    @Test
+    public void testSwissTable() {
+        SwissHashTable st = new SwissHashTable();
+        assertEquals("SwissTable hash should start with a single group.", SwissHashTable.GROUP_SIZE, st.capacity());
+        for (int i = 0; i < NUMS; i++) {
+            st.put(Integer.toString(i), Integer.toString(i));
+        }
+        assertEquals("SwissTable hash should have a power of two capacity.", 0, st.capacity() & (st.capacity() - 1));
+        for (int i = 0; i < NUMS; i += 2) { // Churn that leaves DELETED cells behind should not grow the table.
+            int capacity = st.capacity();
+            st.remove(Integer.toString(i));
+            st.put(Integer.toString(i), "again");
+            assertEquals(capacity, st.capacity());
+        }
+        assertEquals(NUMS, st.size());
+
+        checkAgainstHashMap(new SwissHashTable(), "SwissTable hash");
+    }
+
+    @Test
+    public void testDoubleHashing() {
+        DoubleHashingHashTable hard = new DoubleHashingHashTable(false);
+        DoubleHashingHashTable soft = new DoubleHashingHashTable(true);
+        for (Map.Entry<String, String> entry : testingPhoneBook.entrySet()) {
+            hard.put(entry.getKey(), entry.getValue());
+            soft.put(entry.getKey(), entry.getValue());
+        }
+        hard.remove("Arnold");
+        soft.remove("Arnold");
+        assertEquals(3, hard.size());
+        assertEquals(3, soft.size());
+        assertEquals("Soft deletion should leave a tombstone behind.", 4, soft.sizeWithTombstones());
+        soft.put("DeAndre", "888-1212-3340"); // 4 / 7 cells taken, tombstone included.
+        assertEquals("Tombstones should count towards the load under soft deletion.", 13, soft.capacity());
+
+        checkAgainstHashMap(new DoubleHashingHashTable(false), "Double Hashing hash (hard deletion)");
+        checkAgainstHashMap(new DoubleHashingHashTable(true), "Double Hashing hash (soft deletion)");
+    }
+
+    @Test
+    public void testConcurrentSeparateChaining() throws InterruptedException {
+        ConcurrentSeparateChainingHashTable csc = new ConcurrentSeparateChainingHashTable();
+        Thread[] writers = new Thread[4];
+        for (int t = 0; t < writers.length; t++) {
+            final int offset = t * NUMS;
+            writers[t] = new Thread(() -> {
+                for (int i = offset; i < offset + NUMS; i++) {
+                    csc.put(Integer.toString(i), Integer.toString(i));
+                    if (i % 2 == 0) {
+                        csc.remove(Integer.toString(i));
+                    }
+                }
+            });
+            writers[t].start();
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        assertEquals(writers.length * NUMS / 2, csc.size());
+        for (int i = 0; i < writers.length * NUMS; i++) {
+            String key = Integer.toString(i);
+            assertEquals(i % 2 == 0 ? null : key, csc.get(key).getValue());
+        }
+
+        checkAgainstHashMap(new ConcurrentSeparateChainingHashTable(), "Concurrent Separate Chaining hash");
+    }
+
+    @Test
+    public void testConcurrentOpenAddressing() throws InterruptedException {
+        ConcurrentOpenAddressingHashTable coa = new ConcurrentOpenAddressingHashTable();
+        AtomicInteger missedReads = new AtomicInteger();
+        Thread[] writers = new Thread[4];
+        for (int t = 0; t < writers.length; t++) {
+            final int offset = t * NUMS / 2;
+            writers[t] = new Thread(() -> {
+                for (int i = offset; i < offset + NUMS / 2; i++) {
+                    coa.put(Integer.toString(i), Integer.toString(i));
+                    if (i % 2 == 0) {
+                        coa.remove(Integer.toString(i));
+                    } else if (coa.get(Integer.toString(i)).getValue() == null) {//must be visible while others migrate
+                        missedReads.incrementAndGet();
+                    }
+                }
+            });
+            writers[t].start();
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        assertEquals("Some reads missed a key that was just put.", 0, missedReads.get());
+        assertEquals(writers.length * NUMS / 4, coa.size());
+        for (int i = 0; i < writers.length * NUMS / 2; i++) {
+            String key = Integer.toString(i);
+            assertEquals(i % 2 == 0 ? null : key, coa.get(key).getValue());
+        }
+
+        checkAgainstHashMap(new ConcurrentOpenAddressingHashTable(), "Concurrent Open Addressing hash");
+    }
+
+    @Test
+    public void testConcurrentPhonebook() throws InterruptedException {
+        ConcurrentPhonebook cpb = new ConcurrentPhonebook();
+        cpb.addEntry("Arnold", "894-59-0011");
+        cpb.addEntry("Tiffany", "894-59-0011");// Takes the number over from Arnold.
+        cpb.addEntry("Tiffany", "705-12-7500");// Gives it up again.
+        cpb.deleteEntry("Arnold", "705-12-7500");// Not an entry.
+        assertNull(cpb.getNumberOf("Arnold"));
+        assertNull(cpb.getOwnerOf("894-59-0011"));
+        assertEquals("Tiffany", cpb.getOwnerOf("705-12-7500"));
+        assertEquals(1, cpb.size());
+        cpb.deleteEntry("Tiffany", "705-12-7500");
+        assertTrue(cpb.isEmpty());
+
+        // Writers pick names and numbers from small pools, so that they keep replacing each other's entries.
+        Thread[] writers = new Thread[4];
+        for (int t = 0; t < writers.length; t++) {
+            final Random rng = new Random(SEED + t);
+            writers[t] = new Thread(() -> {
+                for (int i = 0; i < 10 * NUMS; i++) {
+                    String name = "Person " + rng.nextInt(NUMS / 4), number = "301-405-" + (1000 + rng.nextInt(NUMS / 4));
+                    if (rng.nextInt(4) == 0) {
+                        cpb.deleteEntry(name, number);
+                    } else {
+                        cpb.addEntry(name, number);
+                    }
+                }
+            });
+            writers[t].start();
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        int names = 0, numbers = 0;
+        for (int i = 0; i < NUMS / 4; i++) {
+            String name = "Person " + i, number = "301-405-" + (1000 + i);
+            if (cpb.getNumberOf(name) != null) {
+                names++;
+                assertEquals("Lost the reverse entry of " + name + ".", name, cpb.getOwnerOf(cpb.getNumberOf(name)));
+            }
+            if (cpb.getOwnerOf(number) != null) {
+                numbers++;
+                assertEquals("Lost the reverse entry of " + number + ".", number, cpb.getNumberOf(cpb.getOwnerOf(number)));
+            }
+        }
+        assertEquals(names, numbers);
+        assertEquals(names, cpb.size());
+        assertEquals(names, cpb.freeze().size());
+    }
+
+    @Test
+    public void testOffHeap() {
+        OffHeapHashTable oh = new OffHeapHashTable();
+        oh.put("Zo\u00eb", "555-0100");
+        oh.put("\u0141ukasz", "555-0101");
+        oh.put("Zo\u00eb", "555-0102");
+        assertEquals("Off-heap hash should decode UTF-8 keys and values.", "555-0102", oh.get("Zo\u00eb").getValue());
+        assertEquals("555-0101", oh.remove("\u0141ukasz").getValue());
+        assertFalse(oh.containsKey("\u0141ukasz"));
+        assertTrue(oh.containsValue("555-0102"));
+        assertEquals(1, oh.size());
+
+        checkAgainstHashMap(new OffHeapHashTable(), "Off-heap hash");
+    }
+
+    @Test
+    public void testPhoneNumberIndex() {
+        for (CollisionResolver namesToPhones : resolvers) {
+            pb = new Phonebook(namesToPhones, NUMERIC_LINEAR_PROBING);
+            for (Map.Entry<String, String> entry : testingPhoneBook.entrySet()) {
+                pb.addEntry(entry.getKey(), entry.getValue());
+            }
+            assertEquals(format("Reverse lookup failed. ", namesToPhones, NUMERIC_LINEAR_PROBING),
+                    "Jessie", pb.getOwnerOf("705-12-7500"));
+            assertEquals(format("Separators should not matter. ", namesToPhones, NUMERIC_LINEAR_PROBING),
+                    "Jessie", pb.getOwnerOf("(705) 12 7500"));
+            assertNull(pb.getOwnerOf("not a number"));
+            try {
+                pb.addEntry("Bob", "call me");
+                fail("A number that the numeric table rejects should not be added.");
+            } catch (IllegalArgumentException expected) {
+                assertNull("A rejected entry should leave both tables alone.", pb.getNumberOf("Bob"));
+                assertEquals("Jessie", pb.getOwnerOf("705-12-7500"));
+            }
+        }
+
+        PhoneNumberHashTable pn = new PhoneNumberHashTable();
+        assertNotEquals(PhoneNumberHashTable.normalize("007"), PhoneNumberHashTable.normalize("7"));
+        try {
+            pn.put("301-FLOWERS", "Shop");
+            fail("Phone number hash should reject keys that are not phone numbers.");
+        } catch (IllegalArgumentException ignored) {
+            // Expected.
+        }
+        try {
+            new Phonebook(NUMERIC_LINEAR_PROBING, LINEAR_PROBING);
+            fail("Phonebook should not allow names to be indexed by a numeric table.");
+        } catch (IllegalArgumentException ignored) {
+            // Expected.
+        }
+
+        checkAgainstHashMap(pn, "Phone number hash");
+    }
+
+    @Test
+    public void testImportFrom() throws IOException {
+        Path file = Files.createTempFile("phonebook", ".csv");
+        try {
+            StringBuilder contents = new StringBuilder();
+            for (int i = 0; i < UPPER_BOUND; i++) {
+                contents.append("Person ").append(i).append(",301-405-").append(1000 + i).append('\n');
+            }
+            Files.write(file, contents.toString().getBytes(StandardCharsets.UTF_8));
+            for (CollisionResolver namesToPhones : resolvers) {
+                for (CollisionResolver phonesToNames : resolvers) {
+                    pb = new Phonebook(namesToPhones, phonesToNames);
+                    pb.addEntry("Jessie", "705-12-7500");
+                    assertEquals(UPPER_BOUND, pb.importFrom(file));
+                    assertEquals(format("Import has the wrong size. ", namesToPhones, phonesToNames), UPPER_BOUND + 1, pb.size());
+                    for (int i = 0; i < UPPER_BOUND; i++) {
+                        assertEquals(format("Imported lookup by name failed. ", namesToPhones, phonesToNames),
+                                "301-405-" + (1000 + i), pb.getNumberOf("Person " + i));
+                        assertEquals(format("Imported lookup by number failed. ", namesToPhones, phonesToNames),
+                                "Person " + i, pb.getOwnerOf("301-405-" + (1000 + i)));
+                    }
+                    assertEquals("705-12-7500", pb.getNumberOf("Jessie"));
+                }
+            }
+
+            Files.write(file, "Arnold,894-59-0011\nTiffany\n".getBytes(StandardCharsets.UTF_8));
+            pb = new Phonebook(LINEAR_PROBING, LINEAR_PROBING);
+            try {
+                pb.importFrom(file);
+                fail("A malformed line should have been rejected.");
+            } catch (IOException expected) {
+                assertTrue("A failed import should leave the phonebook alone.", pb.isEmpty());
+            }
+
+            Files.write(file, "Arnold,894-59-0011\nTiffany,call me\n".getBytes(StandardCharsets.UTF_8));
+            pb = new Phonebook(LINEAR_PROBING, NUMERIC_LINEAR_PROBING);
+            try {
+                pb.importFrom(file);
+                fail("A number that the numeric table rejects should have been rejected.");
+            } catch (IllegalArgumentException expected) {
+                assertTrue("A failed import should leave the phonebook alone.", pb.isEmpty());
+                assertNull(pb.getNumberOf("Arnold"));
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    // The records of table, in the order of its cells.
+    private static List<String> cells(HashTable table) {
+        List<String> cells = new ArrayList<>();
+        for (KVPair pair : table) {
+            cells.add(pair.getKey() + "=" + pair.getValue());
+        }
+        return cells;
+    }
+
+    @Test
+    public void testTableSnapshots() throws IOException {
+        HashTable[] tables = {new SeparateChainingHashTable(), new LinearProbingHashTable(true),
+                new LinearProbingHashTable(false, true), new OrderedLinearProbingHashTable(false),
+                new QuadraticProbingHashTable(false), new QuadraticProbingHashTable(true), new RobinHoodHashTable(),
+                new HopscotchHashTable(), new CuckooHashTable(), new SwissHashTable(), new DoubleHashingHashTable(true),
+                new LinearProbingHashTable(false, GrowthPolicy.POWER_OF_TWO), new PhoneNumberHashTable()};
+        for (HashTable table : tables) {
+            for (int i = 0; i < UPPER_BOUND; i++) {
+                table.put("301-405-" + (1000 + i), "Person " + i);
+            }
+            for (int i = 0; i < UPPER_BOUND; i += 3) {
+                table.remove("301-405-" + (1000 + i));
+            }
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            TableSnapshots.write(table, new DataOutputStream(bytes));
+            HashTable copy = TableSnapshots.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+            String name = table.getClass().getSimpleName();
+            assertEquals(name + " came back as another kind of table.", table.getClass(), copy.getClass());
+            assertEquals(name + " came back with another capacity.", table.capacity(), copy.capacity());
+            assertEquals(name + " came back with another size.", table.size(), copy.size());
+            assertEquals(name + " came back with another layout.", cells(table), cells(copy));
+            copy.put("301-405-9999", "Jessie");
+            copy.remove("301-405-1001");
+            assertEquals(name + " can't be written to after it's read.", "Jessie", copy.get("301-405-9999").getValue());
+            assertNull(name + " can't be written to after it's read.", copy.get("301-405-1001").getValue());
+            assertEquals(name + " can't be written to after it's read.", "Person 2", copy.get("301-405-1002").getValue());
+        }
+    }
+
+    @Test
+    public void testSnapshots() throws IOException {
+        Path file = Files.createTempFile("phonebook", ".snapshot");
+        try {
+            List<CollisionResolver> numberResolvers = new ArrayList<>(Arrays.asList(resolvers));
+            numberResolvers.add(NUMERIC_LINEAR_PROBING);
+            for (CollisionResolver namesToPhones : resolvers) {
+                for (CollisionResolver phonesToNames : numberResolvers) {
+                    pb = new Phonebook(namesToPhones, phonesToNames);
+                    for (int i = 0; i < UPPER_BOUND; i++) {
+                        pb.addEntry("Person " + i, "301-405-" + (1000 + i));
+                    }
+                    for (int i = 0; i < UPPER_BOUND; i += 4) {
+                        pb.deleteEntry("Person " + i, "301-405-" + (1000 + i));
+                    }
+                    pb.saveSnapshot(file);
+                    Phonebook loaded = Phonebook.loadSnapshot(file);
+                    assertEquals(format("Snapshot has the wrong size. ", namesToPhones, phonesToNames), pb.size(), loaded.size());
+                    for (int i = 0; i < UPPER_BOUND; i++) {
+                        assertEquals(format("Snapshot lookup by name failed. ", namesToPhones, phonesToNames),
+                                pb.getNumberOf("Person " + i), loaded.getNumberOf("Person " + i));
+                        assertEquals(format("Snapshot lookup by number failed. ", namesToPhones, phonesToNames),
+                                pb.getOwnerOf("301-405-" + (1000 + i)), loaded.getOwnerOf("301-405-" + (1000 + i)));
+                    }
+                }
+            }
+
+            byte[] snapshot = Files.readAllBytes(file);
+            for (int corrupt : new int[]{0, snapshot.length / 2, snapshot.length - 1}) {
+                byte[] bytes = snapshot.clone();
+                bytes[corrupt] ^= 0x10;
+                Files.write(file, bytes);
+                try {
+                    Phonebook.loadSnapshot(file);
+                    fail("A snapshot with byte " + corrupt + " flipped should have been rejected.");
+                } catch (IOException expected) {
+                    // Good.
+                }
+            }
+            Files.write(file, Arrays.copyOf(snapshot, snapshot.length - 3));
+            try {
+                Phonebook.loadSnapshot(file);
+                fail("A truncated snapshot should have been rejected.");
+            } catch (IOException expected) {
+                // Good.
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testMutationLog() throws IOException {
+        Path file = Files.createTempFile("phonebook", ".log");
+        try {
+            for (CollisionResolver namesToPhones : resolvers) {
+                for (CollisionResolver phonesToNames : resolvers) {
+                    Files.write(file, new byte[0]);
+                    pb = new Phonebook(namesToPhones, phonesToNames);
+                    try (MutationLog log = MutationLog.open(file)) {
+                        assertEquals(0, pb.recoverFrom(log));
+                        for (int i = 0; i < UPPER_BOUND; i++) {
+                            pb.addEntry("Person " + i, "301-405-" + (1000 + i));
+                        }
+                        for (int i = 0; i < UPPER_BOUND; i += 4) {
+                            pb.deleteEntry("Person " + i, "301-405-" + (1000 + i));
+                        }
+                        pb.addEntry("Person 8", "301-405-1008");
+                    }
+
+                    Phonebook recovered = new Phonebook(namesToPhones, phonesToNames);
+                    try (MutationLog log = MutationLog.open(file)) {
+                        assertEquals(UPPER_BOUND + UPPER_BOUND / 4 + 1, recovered.recoverFrom(log));
+                    }
+                    assertEquals(format("Replay has the wrong size. ", namesToPhones, phonesToNames), pb.size(), recovered.size());
+                    for (int i = 0; i < UPPER_BOUND; i++) {
+                        assertEquals(format("Replayed lookup by name failed. ", namesToPhones, phonesToNames),
+                                pb.getNumberOf("Person " + i), recovered.getNumberOf("Person " + i));
+                        assertEquals(format("Replayed lookup by number failed. ", namesToPhones, phonesToNames),
+                                pb.getOwnerOf("301-405-" + (1000 + i)), recovered.getOwnerOf("301-405-" + (1000 + i)));
+                    }
+                }
+            }
+
+            long intact = Files.size(file);
+            Files.write(file, new byte[]{0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);//a write torn by a crash
+            pb = new Phonebook(LINEAR_PROBING, QUADRATIC_PROBING);
+            try (MutationLog log = MutationLog.open(file)) {
+                assertEquals("A torn record should be cut off.", intact, Files.size(file));
+                assertEquals(UPPER_BOUND + UPPER_BOUND / 4 + 1, pb.recoverFrom(log));
+                pb.addEntry("Jessie", "705-12-7500");
+            }
+            byte[] bytes = Files.readAllBytes(file);
+            bytes[bytes.length - 2] ^= 0x10;//the last record, which holds Jessie
+            Files.write(file, bytes);
+            pb = new Phonebook(LINEAR_PROBING, QUADRATIC_PROBING);
+            try (MutationLog log = MutationLog.open(file)) {
+                assertEquals("A corrupt record should be cut off.", intact, Files.size(file));
+                pb.recoverFrom(log);
+            }
+            assertEquals("301-405-1008", pb.getNumberOf("Person 8"));
+            assertNull("A corrupt record should not be replayed.", pb.getNumberOf("Jessie"));
+
+            // A crash between a snapshot and the truncation of the log replays changes that the snapshot holds.
+            Path snapshot = Files.createTempFile("phonebook", ".snapshot");
+            try {
+                for (CollisionResolver namesToPhones : resolvers) {
+                    for (CollisionResolver phonesToNames : resolvers) {
+                        Files.write(file, new byte[0]);
+                        pb = new Phonebook(namesToPhones, phonesToNames);
+                        try (MutationLog log = MutationLog.open(file)) {
+                            pb.recoverFrom(log);
+                            pb.addEntry("Bob", "301-405-0555");
+                            pb.saveSnapshot(snapshot);
+                        }
+                        Phonebook recovered = Phonebook.loadSnapshot(snapshot);
+                        try (MutationLog log = MutationLog.open(file)) {
+                            assertEquals(1, recovered.recoverFrom(log));
+                            assertEquals(format("Replay duplicated an entry of the snapshot. ", namesToPhones, phonesToNames),
+                                    1, recovered.size());
+                            recovered.deleteEntry("Bob", "301-405-0555");
+                        }
+                        assertEquals(format("Replay duplicated an entry of the snapshot. ", namesToPhones, phonesToNames),
+                                0, recovered.size());
+                        assertNull(recovered.getNumberOf("Bob"));
+                        assertNull(recovered.getOwnerOf("301-405-0555"));
+                    }
+                }
+            } finally {
+                Files.delete(snapshot);
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testGroupCommit() throws Exception {
+        Path file = Files.createTempFile("phonebook", ".log");
+        try {
+            ConcurrentPhonebook concurrent = new ConcurrentPhonebook();
+            final int threads = 8, entries = 200;
+            try (MutationLog log = MutationLog.open(file)) {
+                concurrent.recoverFrom(log);
+                List<Thread> writers = new ArrayList<>();
+                AtomicInteger failures = new AtomicInteger();
+                for (int t = 0; t < threads; t++) {
+                    final int writer = t;
+                    writers.add(new Thread(() -> {
+                        try {
+                            for (int i = 0; i < entries; i++) {
+                                concurrent.addEntry("Person " + writer + "-" + i, "301-" + writer + "-" + i);
+                                if (i % 5 == 0) {
+                                    concurrent.deleteEntry("Person " + writer + "-" + i, "301-" + writer + "-" + i);
+                                }
+                            }
+                        } catch (RuntimeException e) {
+                            failures.incrementAndGet();
+                        }
+                    }));
+                }
+                for (Thread writer : writers) {
+                    writer.start();
+                }
+                for (Thread writer : writers) {
+                    writer.join();
+                }
+                assertEquals(0, failures.get());
+            }
+
+            ConcurrentPhonebook recovered = new ConcurrentPhonebook();
+            try (MutationLog log = MutationLog.open(file)) {
+                assertEquals(threads * (entries + entries / 5), recovered.recoverFrom(log));
+            }
+            assertEquals(concurrent.size(), recovered.size());
+            for (int t = 0; t < threads; t++) {
+                for (int i = 0; i < entries; i++) {
+                    assertEquals(concurrent.getNumberOf("Person " + t + "-" + i), recovered.getNumberOf("Person " + t + "-" + i));
+                }
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testFreeze() {
+        for (CollisionResolver namesToPhones : resolvers) {
+            for (CollisionResolver phonesToNames : resolvers) {
+                pb = new Phonebook(namesToPhones, phonesToNames);
+                assertTrue(format("Frozen phonebook should be empty. ", namesToPhones, phonesToNames), pb.freeze().isEmpty());
+                for (int i = 0; i < UPPER_BOUND; i++) {
+                    pb.addEntry("Person " + i, "301-405-" + (1000 + i));
+                }
+                FrozenPhonebook frozen = pb.freeze();
+                pb.deleteEntry("Person 0", "301-405-1000");
+                assertEquals(format("Frozen phonebook has the wrong size. ", namesToPhones, phonesToNames), UPPER_BOUND, frozen.size());
+                for (int i = 0; i < UPPER_BOUND; i++) {
+                    assertEquals(format("Frozen lookup by name failed. ", namesToPhones, phonesToNames),
+                            "301-405-" + (1000 + i), frozen.getNumberOf("Person " + i));
+                    assertEquals(format("Frozen lookup by number failed. ", namesToPhones, phonesToNames),
+                            "Person " + i, frozen.getOwnerOf("301-405-" + (1000 + i)));
+                }
+                assertNull(frozen.getNumberOf("Nobody"));
+                assertNull(frozen.getOwnerOf("000-000-0000"));
+            }
+        }
+
+        pb = new Phonebook(LINEAR_PROBING, NUMERIC_LINEAR_PROBING);
+        pb.addEntry("Jessie", "705-12-7500");
+        assertEquals("Jessie", pb.freeze().getOwnerOf("(705) 12 7500"));
+    }
+
+    @Test
+    public void testIncrementalResize() {
+        for (boolean soft : new boolean[]{false, true}) {
+            checkAgainstHashMap(new LinearProbingHashTable(soft, true), "Incremental Linear Probing hash");
+            checkAgainstHashMap(new QuadraticProbingHashTable(soft, true), "Incremental Quadratic Probing hash");
+            checkAgainstHashMap(new OrderedLinearProbingHashTable(soft, true), "Incremental Ordered Linear Probing hash");
+        }
+
+        // No single insertion should pay for moving the whole table.
+        HashTable lp = new LinearProbingHashTable(false, true);
+        HashTable stopTheWorld = new LinearProbingHashTable(false);
+        int worstProbes = 0, worstStopTheWorldProbes = 0;
+        for (int i = 0; i < NUMS * 4; i++) {
+            String key = Integer.toString(i);
+            worstProbes = Math.max(worstProbes, lp.put(key, key).getProbes());
+            worstStopTheWorldProbes = Math.max(worstStopTheWorldProbes, stopTheWorld.put(key, key).getProbes());
+        }
+        assertTrue("The worst incremental insertion made " + worstProbes + " probes, versus " + worstStopTheWorldProbes +
+                " without incremental resizing.", worstProbes * 2 < worstStopTheWorldProbes);
+        assertEquals(NUMS * 4, lp.size());
+        int found = 0;
+        for (KVPair pair : lp) {
+            assertEquals(pair.getKey(), pair.getValue());
+            found++;
+        }
+        assertEquals("Iteration should see the records of both tables during a resize.", NUMS * 4, found);
+    }
+
+    @Test
+    public void testGrowthPolicy() {
+        GrowthPolicy dense = new GrowthPolicy(.85f, .1f, 2f, 7);
+        checkAgainstHashMap(new LinearProbingHashTable(true, true, dense), "Dense incremental Linear Probing hash");
+        checkAgainstHashMap(new OrderedLinearProbingHashTable(false, true, dense), "Dense incremental Ordered Linear Probing hash");
+        for (HashTable table : new HashTable[]{new LinearProbingHashTable(false, dense), new OrderedLinearProbingHashTable(false, dense)}) {
+            for (int i = 0; i < NUMS; i++) {
+                table.put(Integer.toString(i), Integer.toString(i));
+            }
+            assertEquals(NUMS, table.size());
+            assertTrue("Expected a load between .425 and .85, but it was " + (float) table.size() / table.capacity() + ".",
+                    (float) table.size() / table.capacity() <= .85f && (float) table.size() / table.capacity() > .425f);
+        }
+        checkAgainstHashMap(new RobinHoodHashTable(dense), "Dense Robin Hood hash");
+        checkAgainstHashMap(new HopscotchHashTable(dense), "Dense Hopscotch hash");
+        checkAgainstHashMap(new CuckooHashTable(dense), "Dense Cuckoo hash");
+        checkAgainstHashMap(new SwissHashTable(dense), "Dense Swiss table");
+        checkAgainstHashMap(new OffHeapHashTable(dense), "Dense off-heap hash");
+        checkAgainstHashMap(new ConcurrentOpenAddressingHashTable(dense), "Dense concurrent Open Addressing hash");
+        checkAgainstHashMap(new ConcurrentSeparateChainingHashTable(new GrowthPolicy(4f, 0f, 2f, 7)), "Dense concurrent Separate Chaining hash");
+        checkAgainstHashMap(new DoubleHashingHashTable(false, new GrowthPolicy(.75f, .1f, 2f, 7)), "Dense Double Hashing hash");
+
+        // A denser Robin Hood table holds the same keys in fewer cells.
+        HashTable sparse = new RobinHoodHashTable(), robinHood = new RobinHoodHashTable(dense);
+        for (int i = 0; i < NUMS; i++) {
+            sparse.put(Integer.toString(i), Integer.toString(i));
+            robinHood.put(Integer.toString(i), Integer.toString(i));
+        }
+        assertTrue("A Robin Hood table with a maximum load factor of .85 has " + robinHood.capacity() + " cells, versus " +
+                sparse.capacity() + " by default.", robinHood.capacity() < sparse.capacity());
+        assertTrue((float) robinHood.size() / robinHood.capacity() <= .85f);
+
+        // The initial capacity is rounded up to the next prime, or the next power of two for Swiss tables.
+        GrowthPolicy presized = new GrowthPolicy(.5f, .125f, 1.5f, 1000);
+        assertEquals(1009, new LinearProbingHashTable(false, presized).capacity());
+        assertEquals(1009, new SeparateChainingHashTable(presized).capacity());
+        assertEquals(1024, new SwissHashTable(presized).capacity());
+        HashTable slowGrowth = new QuadraticProbingHashTable(false, presized);
+        for (int i = 0; i <= 505; i++) {
+            slowGrowth.put(Integer.toString(i), Integer.toString(i));
+        }
+        assertTrue("A growth multiplier of 1.5 enlarged 1009 cells into " + slowGrowth.capacity() + ".",
+                slowGrowth.capacity() > 1009 && slowGrowth.capacity() < 1009 * 1.5);
+
+        // Policies that would break a table are rejected up front.
+        try {
+            new QuadraticProbingHashTable(false, dense);
+            fail("Quadratic probing should reject a maximum load factor above .5.");
+        } catch (IllegalArgumentException expected) {
+            // Quadratic probing only visits about half of the cells.
+        }
+        try {
+            new LinearProbingHashTable(false, GrowthPolicy.CHAINING);
+            fail("Open addressing should reject a maximum load factor of 1.");
+        } catch (IllegalArgumentException expected) {
+            // There would be no empty cell left to end searches.
+        }
+        try {
+            new GrowthPolicy(.5f, .3f, 2f, 7);
+            fail("A minimum load factor above half of the maximum one should be rejected.");
+        } catch (IllegalArgumentException expected) {
+            // A table would shrink right after growing.
+        }
+
+        pb = new Phonebook(ROBIN_HOOD, NUMERIC_LINEAR_PROBING, dense, dense);
+        for (Map.Entry<String, String> entry : testingPhoneBook.entrySet()) {
+            pb.addEntry(entry.getKey(), entry.getValue());
+        }
+        assertEquals("Jessie", pb.getOwnerOf("705-12-7500"));
+        assertEquals("888-1212-3340", pb.getNumberOf("Mary"));
+    }
+
+    @Test
+    public void testShrinkAfterDeletions() {
+        String[] keys = new String[NUMS];
+        for (int i = 0; i < NUMS; i++) {
+            keys[i] = Integer.toString(i);// The same instances throughout, since some tables compare keys with ==.
+        }
+        HashTable[] tables = {new SeparateChainingHashTable(), new LinearProbingHashTable(false),
+                new QuadraticProbingHashTable(false), new OrderedLinearProbingHashTable(false),
+                new LinearProbingHashTable(false, true), new RobinHoodHashTable(), new HopscotchHashTable(),
+                new CuckooHashTable(), new SwissHashTable(), new DoubleHashingHashTable(false), new OffHeapHashTable(),
+                new PhoneNumberHashTable(), new ConcurrentSeparateChainingHashTable(), new ConcurrentOpenAddressingHashTable()};
+        for (HashTable table : tables) {
+            String name = table.getClass().getSimpleName();
+            for (String key : keys) {
+                table.put(key, key);
+            }
+            int peak = table.capacity();
+            for (int i = 10; i < NUMS; i++) {
+                assertEquals(name + " failed to remove " + keys[i] + ".", keys[i], table.remove(keys[i]).getValue());
+            }
+            assertTrue(name + " still has " + table.capacity() + " cells out of " + peak + " for 10 records.",
+                    table.capacity() < peak / 8);
+            for (int i = 0; i < 10; i++) {
+                assertEquals(name + " lost " + keys[i] + " while shrinking.", keys[i], table.get(keys[i]).getValue());
+            }
+
+            for (int i = 10; i < NUMS; i++) {// Growing back works just as well.
+                table.put(keys[i], keys[i]);
+            }
+            assertEquals(name + " lost records after growing back.", NUMS, table.size());
+        }
+
+        // Tables under soft deletion keep their tombstones, and hence their capacity.
+        LinearProbingHashTable soft = new LinearProbingHashTable(true);
+        for (String key : keys) {
+            soft.put(key, key);
+        }
+        int peak = soft.capacity();
+        for (int i = 10; i < NUMS; i++) {
+            soft.remove(keys[i]);
+        }
+        assertEquals(peak, soft.capacity());
+    }
+
+    @Test
+    public void testPresizing() {
+        String[] keys = new String[NUMS];
+        for (int i = 0; i < NUMS; i++) {
+            keys[i] = Integer.toString(i);// The same instances throughout, since some tables compare keys with ==.
+        }
+        HashTable[] hinted = {new SeparateChainingHashTable(NUMS), new LinearProbingHashTable(false, NUMS),
+                new QuadraticProbingHashTable(false, NUMS), new OrderedLinearProbingHashTable(false, NUMS),
+                new RobinHoodHashTable(NUMS), new HopscotchHashTable(NUMS), new CuckooHashTable(NUMS),
+                new SwissHashTable(NUMS), new DoubleHashingHashTable(false, NUMS), new OffHeapHashTable(NUMS),
+                new PhoneNumberHashTable(NUMS), new ConcurrentSeparateChainingHashTable(NUMS),
+                new ConcurrentOpenAddressingHashTable(NUMS)};
+        HashTable[] ensured = {new SeparateChainingHashTable(), new LinearProbingHashTable(false),
+                new QuadraticProbingHashTable(false), new OrderedLinearProbingHashTable(false),
+                new LinearProbingHashTable(false, true), new RobinHoodHashTable(), new HopscotchHashTable(),
+                new CuckooHashTable(), new SwissHashTable(), new DoubleHashingHashTable(false), new OffHeapHashTable(),
+                new PhoneNumberHashTable(), new ConcurrentSeparateChainingHashTable(), new ConcurrentOpenAddressingHashTable()};
+        for (HashTable table : ensured) {// Records already in the table are moved over.
+            table.put(Integer.toString(NUMS), Integer.toString(NUMS));
+            table.ensureCapacity(NUMS + 1);
+        }
+        for (HashTable[] tables : new HashTable[][]{hinted, ensured}) {
+            for (HashTable table : tables) {
+                String name = table.getClass().getSimpleName();
+                int capacity = table.capacity();
+                assertTrue(name + " only has " + capacity + " cells for " + NUMS + " records.", capacity > NUMS);
+                for (String key : keys) {
+                    table.put(key, key);
+                }
+                assertEquals(name + " resized during a bulk load of a known size.", capacity, table.capacity());
+                assertEquals(name + " lost records.", (tables == hinted) ? NUMS : NUMS + 1, table.size());
+                capacity = table.capacity();
+                table.ensureCapacity(NUMS / 2);// Never shrinks.
+                assertEquals(capacity, table.capacity());
+            }
+        }
+
+        Phonebook pb = new Phonebook(CollisionResolver.ROBIN_HOOD, CollisionResolver.NUMERIC_LINEAR_PROBING, NUMS);
+        pb.addEntry("Mary", "888-1212-3340");
+        assertEquals("Mary", pb.getOwnerOf("888.1212.3340"));
+        pb.ensureCapacity(2 * NUMS);
+        assertEquals("888-1212-3340", pb.getNumberOf("Mary"));
+        try {
+            new LinearProbingHashTable(false).ensureCapacity(-1);
+            fail("Negative sizes should be rejected.");
+        } catch (IllegalArgumentException expected) {
+            // Good.
+        }
+    }
+
+    // Tables keep count of their records as they go, rather than scan the table for them.
+    @Test
+    public void testExactCounts() {
+        String[] keys = new String[NUMS];
+        for (int i = 0; i < NUMS; i++) {
+            keys[i] = Integer.toString(i);// The same instances throughout, since some tables compare keys with ==.
+        }
+        for (boolean soft : new boolean[]{false, true}) {
+            for (OpenAddressingHashTable table : new OpenAddressingHashTable[]{new LinearProbingHashTable(soft),
+                    new QuadraticProbingHashTable(soft), new OrderedLinearProbingHashTable(soft)}) {
+                String name = table.getClass().getSimpleName() + (soft ? " with soft deletions" : "");
+                for (String key : keys) {
+                    table.put(key, key);
+                }
+                int expected = NUMS;
+                for (int i = 0; i < NUMS; i += 3) {
+                    assertEquals(keys[i], table.remove(keys[i]).getValue());
+                    assertNull(table.remove(keys[i]).getValue());
+                    expected--;
+                    assertEquals(name + " miscounted a deletion.", expected, table.size());
+                }
+                int records = 0;
+                for (KVPair pair : table) {
+                    records++;
+                }
+                assertEquals(name + " miscounted its records.", records, table.size());
+                for (int i = 0; i < NUMS; i += 3) {
+                    table.put(keys[i], keys[i]);
+                }
+                assertEquals(name + " miscounted insertions.", NUMS, table.size());
+            }
+        }
+    }
+
+    @Test
+    public void testSoftDeletionChurn() {
+        String[] keys = new String[NUMS];
+        for (int i = 0; i < NUMS; i++) {
+            keys[i] = Integer.toString(i);// The same instances throughout, since LinearProbingHashTable compares keys with ==.
+        }
+        LinearProbingHashTable lp = new LinearProbingHashTable(true);
+        for (int i = 0; i < NUMS / 2; i++) {
+            lp.put(keys[i], keys[i]);
+        }
+        int capacity = lp.capacity();
+        for (int round = 0; round < 20; round++) {// Replace half of the records, over and over again.
+            for (int i = 0; i < NUMS / 4; i++) {
+                int out = (round * NUMS / 4 + i) % (NUMS / 2), in = out + NUMS / 2;
+                if (lp.get(keys[out]).getValue() == null) {
+                    in = out;
+                    out += NUMS / 2;
+                }
+                assertEquals(keys[out], lp.remove(keys[out]).getValue());
+                lp.put(keys[in], keys[in]);
+            }
+            assertEquals("Churn should not grow the table.", capacity, lp.capacity());
+            assertTrue("Tombstones should be purged.", lp.sizeWithTombstones() - lp.size() <= capacity / 8);
+        }
+        assertEquals(NUMS / 2, lp.size());
+        int found = 0;
+        for (String key : keys) {
+            if (lp.get(key).getValue() != null) {
+                found++;
+            }
+        }
+        assertEquals("Compaction lost records.", NUMS / 2, found);
+    }
+
+    @Test
+    public void testLinearProbingHardDeletion() {
+        // "Aa" and "BB" have the same hash code, so the keys come in colliding pairs, and clusters are long.
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < NUMS / 2; i++) {
+            keys.add("Aa" + i);
+            keys.add("BB" + i);
+        }
+        LinearProbingHashTable lp = new LinearProbingHashTable(false);
+        for (String key : keys) {
+            lp.put(key, key);
+        }
+        Collections.shuffle(keys, RNG);
+        for (int i = 0; i < NUMS / 2; i++) {
+            assertEquals(keys.get(i), lp.remove(keys.get(i)).getValue());
+            if (i % 50 == 0) {
+                for (int j = 0; j < NUMS; j++) {
+                    assertEquals("Deletion #" + i + " broke a cluster.", (j <= i) ? null : keys.get(j),
+                            lp.get(keys.get(j)).getValue());
+                }
+            }
+        }
+        assertEquals(NUMS / 2, lp.size());
+    }
+
+    @Test
+    public void testQuadraticHardDeletion() {
+        String[] keys = new String[NUMS];
+        for (int i = 0; i < NUMS; i++) {
+            keys[i] = Integer.toString(i);
+        }
+        QuadraticProbingHashTable qp = new QuadraticProbingHashTable(false);
+        for (String key : keys) {
+            qp.put(key, key);
+        }
+        int capacity = qp.capacity(), probes = 0;
+        for (int i = 0; i < NUMS / 2; i++) {
+            Probes removal = qp.remove(keys[2 * i]);
+            assertEquals(keys[2 * i], removal.getValue());
+            probes += removal.getProbes();
+        }
+        assertEquals(capacity, qp.capacity());
+        assertTrue("Deletions should not rebuild the table every time, but made " + probes + " probes.",
+                probes < 8 * (NUMS / 2));
+        assertTrue("Tombstones should be purged.", qp.sizeWithTombstones() - qp.size() <= capacity / 8);
+        for (int i = 0; i < NUMS; i++) {
+            assertEquals((i % 2 == 0) ? null : keys[i], qp.get(keys[i]).getValue());
+        }
+        assertEquals(NUMS / 2, qp.size());
+    }
+
+    @Test
+    public void testPowerOfTwoCapacities() {
+        GrowthPolicy policy = GrowthPolicy.POWER_OF_TWO;
+        checkAgainstHashMap(new LinearProbingHashTable(true, true, policy), "Power of two incremental Linear Probing hash");
+        checkAgainstHashMap(new OrderedLinearProbingHashTable(false, true, policy), "Power of two incremental Ordered Linear Probing hash");
+        checkAgainstHashMap(new RobinHoodHashTable(policy), "Power of two Robin Hood hash");
+        checkAgainstHashMap(new HopscotchHashTable(policy), "Power of two Hopscotch hash");
+        checkAgainstHashMap(new CuckooHashTable(policy), "Power of two Cuckoo hash");
+        checkAgainstHashMap(new DoubleHashingHashTable(false, policy), "Power of two Double Hashing hash (hard deletion)");
+        checkAgainstHashMap(new DoubleHashingHashTable(true, policy), "Power of two Double Hashing hash (soft deletion)");
+
+        String[] keys = new String[NUMS];
+        for (int i = 0; i < NUMS; i++) {
+            keys[i] = Integer.toString(i);// The same instances throughout, since some tables compare keys with ==.
+        }
+        for (HashTable table : new HashTable[]{new LinearProbingHashTable(false, policy), new RobinHoodHashTable(policy),
+                new DoubleHashingHashTable(false, policy)}) {
+            String name = table.getClass().getSimpleName();
+            assertEquals(name + " should start from 8 cells.", 8, table.capacity());
+            for (String key : keys) {
+                table.put(key, key);
+            }
+            assertEquals(name + " should double up to 2048 cells.", 2048, table.capacity());
+            for (int i = 10; i < NUMS; i++) {
+                table.remove(keys[i]);
+            }
+            assertEquals(name + " should halve back down to 64 cells.", 64, table.capacity());
+            table.ensureCapacity(NUMS);
+            assertEquals(2048, table.capacity());
+            for (int i = 0; i < 10; i++) {
+                assertEquals(name + " lost " + keys[i] + ".", keys[i], table.get(keys[i]).getValue());
+            }
+        }
+
+        try {
+            new QuadraticProbingHashTable(false, policy);
+            fail("Quadratic probing should reject power of two capacities.");
+        } catch (IllegalArgumentException expected) {
+            // Good.
+        }
+        try {
+            new GrowthPolicy(.5f, .1f, 1.5f, 7).withPowerOfTwoCapacities();
+            fail("Power of two capacities need a power of two growth multiplier.");
+        } catch (IllegalArgumentException expected) {
+            // Good.
+        }
+    }
+
+    @Test
+    public void testCachedHashCodes() {
+        // "Aa" and "BB" have the same hash code, so every pair of keys below collides. Every key is built afresh, so
+        // a table that compares keys with == instead of equals() finds none of them.
+        for (HashTable table : new HashTable[]{new LinearProbingHashTable(false), new LinearProbingHashTable(true),
+                new OrderedLinearProbingHashTable(false), new QuadraticProbingHashTable(true), new RobinHoodHashTable(),
+                new HopscotchHashTable(), new CuckooHashTable(), new DoubleHashingHashTable(false)}) {
+            String name = table.getClass().getSimpleName();
+            for (int i = 0; i < 100; i++) {
+                table.put("Aa" + i, "first " + i);
+                table.put("BB" + i, "second " + i);
+            }
+            assertTrue(name + " should have been enlarged.", table.capacity() >= 200);
+            for (int i = 0; i < 100; i++) {
+                assertEquals(name + " mixed up colliding keys.", "first " + i, table.get("Aa" + i).getValue());
+                assertEquals(name + " mixed up colliding keys.", "second " + i, table.get("BB" + i).getValue());
+            }
+            for (int i = 0; i < 100; i += 2) {
+                assertEquals(name + " removed the wrong record.", "first " + i, table.remove("Aa" + i).getValue());
+            }
+            for (int i = 0; i < 100; i++) {
+                assertEquals(name + " still has Aa" + i + ".", (i % 2 == 0) ? null : "first " + i, table.get("Aa" + i).getValue());
+                assertEquals(name + " lost BB" + i + ".", "second " + i, table.get("BB" + i).getValue());
+            }
+        }
     }
 }
@@ -2,7 +2,7 @@ package phonebook.hashes;
 
 /**
  * <p>{@link CollisionResolver} is an enum which provides named constants for
- * four of the most widely used collision resolution techniques in hash tables: </p>
+ * the most widely used collision resolution techniques in hash tables: </p>
  * <ol>
  *     <li><i>Separate Chaining</i>, a simple collision resolver which allocates a linked list for every cell of the hash table.
  *          All keys hashed to the same cell are put in the back of a linked list which containsKVPair all same-hash keys. Enlarging this hash table
@@ -14,6 +14,9 @@ package phonebook.hashes;
  *     making searches destined to fail, fail <b>faster!</b></li>
  *     <li><i>Quadratic Probing</i>, a  modification of Linear Probing where collisions are resolved by having the key make quadratically - increased &quot; jumps &quot;
  *     until it finds an empty cell. See writeup for more details.</li>
+ *     <li><i>Numeric Linear Probing</i>, Linear Probing over phone numbers normalized into primitive {@code long}s,
+ *     which avoids hashing and comparing strings. It can only be used for the <b>phone number</b> index of a
+ *     {@link phonebook.Phonebook}.</li>
  * </ol>
  *
  * <p><b>**** DO NOT EDIT THIS ENUM! ****** </b></p>
@@ -24,10 +27,22 @@ package phonebook.hashes;
  * @see SeparateChainingHashTable
  * @see LinearProbingHashTable
  * @see QuadraticProbingHashTable
+ * @see RobinHoodHashTable
+ * @see HopscotchHashTable
+ * @see CuckooHashTable
+ * @see SwissHashTable
+ * @see DoubleHashingHashTable
+ * @see PhoneNumberHashTable
  */
 public enum CollisionResolver {
     SEPARATE_CHAINING,
     LINEAR_PROBING,
     ORDERED_LINEAR_PROBING,
-    QUADRATIC_PROBING
+    QUADRATIC_PROBING,
+    ROBIN_HOOD,
+    HOPSCOTCH,
+    CUCKOO,
+    SWISS_TABLE,
+    DOUBLE_HASHING,
+    NUMERIC_LINEAR_PROBING
 }
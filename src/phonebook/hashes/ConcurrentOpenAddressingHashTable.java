@@ -0,0 +1,499 @@
+package phonebook.hashes;
+
+import phonebook.utils.KVPair;
+import phonebook.utils.PrimeGenerator;
+import phonebook.utils.Probes;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>{@link ConcurrentOpenAddressingHashTable} is a <b>non-blocking</b>, thread-safe {@link HashTable} which resolves
+ * collisions with Linear Probing. Every cell of the table is only ever changed with a single <em>compare-and-set</em>
+ * through a {@link VarHandle}, and {@link #get(String)} never takes a lock or waits for another thread, which makes
+ * it a good fit for read-mostly workloads.</p>
+ *
+ * <p>To keep the cells easy to reason about, a key never leaves the cell it was first put in, until the whole table is
+ * migrated. Deleting a key just replaces its cell with an entry that has the same key and a {@code null} value, and
+ * putting the key back re-uses that cell. When too many cells are taken, writers start a <b>migration</b> to a new
+ * table (bigger, or the same size if most of the taken cells are deleted keys), deletions start one to a smaller
+ * table when too few records are left, and every writer that comes along
+ * afterwards copies a small chunk of cells before doing its own work. To copy a cell, it is first <em>frozen</em>, so
+ * that no writer can change it in the old table anymore, then its entry is copied over, and then it is marked as
+ * <em>moved</em>. Empty cells are <em>closed</em> instead, so that no key can be put in them anymore. Writers always
+ * freeze and copy the cell of their key in the old table before they change the new one, and searches that meet a
+ * moved cell or a closed cell continue in the new table. When every cell of the old table has been copied, the new table
+ * takes its place.</p>
+ *
+ * <p>Starting a migration is the only place where a (short) lock is taken, to pick the size of the new table from our
+ * {@link PrimeGenerator}. {@link #size()} is exact when there are no writers; {@link #containsValue(String)} is only
+ * weakly consistent, since it scans tables that might be changing under it.</p>
+ *
+ * @author Isaac Solomon
+ *
+ * @see HashTable
+ * @see LinearProbingHashTable
+ * @see ConcurrentSeparateChainingHashTable
+ */
+public class ConcurrentOpenAddressingHashTable implements HashTable {
+
+    /* ****************************************************************** */
+    /* ***** PRIVATE FIELDS / METHODS ************************************ */
+    /* ****************************************************************** */
+
+
+    /**
+     * The number of cells that every writer copies to the new table while a migration is in progress.
+     */
+    public static final int MIGRATION_CHUNK = 64;
+
+    private static final int LIVE = 0, FROZEN = 1, MOVED = 2;
+
+    // Cells hold null, CLOSED, or an immutable Entry. A null value marks a deleted key.
+    private static final class Entry {
+        final String key;
+        final String value;
+        final int state;
+
+        Entry(String key, String value, int state) {
+            this.key = key;
+            this.value = value;
+            this.state = state;
+        }
+    }
+
+    private static final Object CLOSED = new Object();
+
+    private static final class Table {
+        final Object[] cells;
+        final AtomicInteger taken = new AtomicInteger();        // Cells that ever got an Entry.
+        final AtomicInteger copyIndex = new AtomicInteger();    // Next chunk of cells to be copied.
+        final AtomicInteger copied = new AtomicInteger();       // Cells that are CLOSED or MOVED.
+        volatile Table next;                                    // Where we migrate to, null if we are not migrating.
+
+        Table(int capacity) {
+            cells = new Object[capacity];
+        }
+    }
+
+    private static final VarHandle CELLS = MethodHandles.arrayElementVarHandle(Object[].class);
+    private static final VarHandle ROOT;
+
+    static {
+        try {
+            ROOT = MethodHandles.lookup().findVarHandle(ConcurrentOpenAddressingHashTable.class, "root", Table.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static final int PUT = 0, REMOVE = 1, COPY = 2;
+
+    private volatile Table root;            // The oldest table which is still in use.
+    private final LongAdder count;
+    private final PrimeGenerator primeGenerator;    // Only used by startMigration(), under this' lock.
+    private final GrowthPolicy growthPolicy;
+    private final float maxLoadFactor;
+    private final float minLoadFactor;
+    private final int minCapacity;
+
+    // We mask the top bit of the default hashCode() to filter away negative values.
+    private static int hash(String key, int length) {
+        return (key.hashCode() & 0x7fffffff) % length;
+    }
+
+    private void startMigration(Table t) {
+        synchronized (this) {
+            if (t.next == null) {// t is the newest table, so the current prime is its capacity.
+                long live = count.sum();
+                int capacity;
+                if (t.cells.length > minCapacity && live < t.cells.length * minLoadFactor) {
+                    capacity = primeGenerator.getPreviousPrime();
+                } else if (live < t.cells.length / 4) {// Mostly deleted entries, just clean them up.
+                    capacity = primeGenerator.getCurrPrime();
+                } else {
+                    capacity = primeGenerator.getNextPrime();
+                }
+                t.next = new Table(capacity);
+            }
+        }
+    }
+
+    private Table newest() {
+        Table t = root;
+        while (t.next != null) {
+            t = t.next;
+        }
+        return t;
+    }
+
+    // Starts a migration to a smaller table once the newest table falls below the minimum load factor.
+    private void shrinkIfNeeded() {
+        Table t = newest();
+        if (t.cells.length > minCapacity && count.sum() < t.cells.length * minLoadFactor) {
+            startMigration(t);
+        }
+    }
+
+    // Makes t.next take t's place, if t has been copied in its entirety. Repeats for the tables after it.
+    private void promote() {
+        while (true) {
+            Table r = root;
+            if (r.next == null || r.copied.get() < r.cells.length || !ROOT.compareAndSet(this, r, r.next)) {
+                return;
+            }
+        }
+    }
+
+    private void cellCopied(Table t) {
+        if (t.copied.incrementAndGet() == t.cells.length) {
+            promote();
+        }
+    }
+
+    // Brings cell index of t to a final state, CLOSED or MOVED, copying its entry to t.next if needed.
+    private void copyCell(Table t, int index) {
+        while (true) {
+            Object cell = CELLS.getVolatile(t.cells, index);
+            if (cell == null) {
+                if (CELLS.compareAndSet(t.cells, index, null, CLOSED)) {
+                    cellCopied(t);
+                    return;
+                }
+            } else if (cell == CLOSED) {
+                return;
+            } else {
+                Entry e = (Entry) cell;
+                if (e.state == MOVED) {
+                    return;
+                } else if (e.state == LIVE) {
+                    CELLS.compareAndSet(t.cells, index, e, new Entry(e.key, e.value, FROZEN));// Loop to see what happened.
+                } else {
+                    if (e.value != null) {// Deleted keys are not copied.
+                        write(t.next, e.key, e.value, COPY, new int[1]);
+                    }
+                    if (CELLS.compareAndSet(t.cells, index, e, new Entry(e.key, e.value, MOVED))) {
+                        cellCopied(t);
+                    }
+                    return;// Whoever failed the last CAS lost to another copier.
+                }
+            }
+        }
+    }
+
+    private void helpMigrate(Table t) {
+        int start = t.copyIndex.getAndAdd(MIGRATION_CHUNK);
+        for (int i = start; i < Math.min(start + MIGRATION_CHUNK, t.cells.length); i++) {
+            copyCell(t, i);
+        }
+    }
+
+    // Called on a migrating table t: makes sure that key can't be changed in t anymore, by copying its cell over,
+    // or closing the empty cell that ends its probe sequence. Returns true if key had a cell in t.
+    private boolean retire(Table t, String key, int[] probes) {
+        int index = hash(key, t.cells.length);
+        for (int i = 0; i < t.cells.length; i++) {
+            probes[0]++;
+            Object cell = CELLS.getVolatile(t.cells, index);
+            if (cell == null) {
+                if (CELLS.compareAndSet(t.cells, index, null, CLOSED)) {
+                    cellCopied(t);
+                    return false;
+                }
+                i--;// Lost a race for this cell, look at it again.
+                continue;
+            }
+            if (cell == CLOSED) {
+                return false;
+            }
+            if (((Entry) cell).key.equals(key)) {
+                copyCell(t, index);
+                return true;
+            }
+            index = (index + 1) % t.cells.length;
+        }
+        return false;
+    }
+
+    // Puts, removes, or copies (i.e puts only if the key has never been in the table) key, starting from table t.
+    // Returns the previous value of key, null if there was none.
+    private String write(Table t, String key, String value, int mode, int[] probes) {
+        while (true) {
+            Table next = t.next;
+            if (next != null) {
+                if (mode != COPY) {
+                    helpMigrate(t);
+                }
+                if (retire(t, key, probes) && mode == COPY) {// Anything already in t is newer than what we copy.
+                    return null;
+                }
+                t = next;
+                continue;
+            }
+
+            Object[] cells = t.cells;
+            int index = hash(key, cells.length);
+            boolean restart = false;
+            for (int i = 0; i < cells.length && !restart; i++) {
+                probes[0]++;
+                Object cell = CELLS.getVolatile(cells, index);
+                if (cell == null) {
+                    if (mode == REMOVE) {
+                        return null;
+                    }
+                    if (CELLS.compareAndSet(cells, index, null, new Entry(key, value, LIVE))) {
+                        if (mode == PUT) {
+                            count.increment();
+                        }
+                        if (t.taken.incrementAndGet() > cells.length * maxLoadFactor && mode == PUT) {
+                            startMigration(t);
+                        }
+                        return null;
+                    }
+                    i--;// Lost a race for this cell, look at it again.
+                    continue;
+                }
+                if (cell == CLOSED) {// A migration started under our feet.
+                    restart = true;
+                    continue;
+                }
+                Entry e = (Entry) cell;
+                if (!e.key.equals(key)) {
+                    if (e.state != LIVE) {
+                        restart = true;
+                    }
+                    index = (index + 1) % cells.length;
+                    continue;
+                }
+                if (mode == COPY) {
+                    return null;
+                }
+                if (e.state != LIVE) {
+                    restart = true;
+                    continue;
+                }
+                if (mode == REMOVE && e.value == null) {
+                    return null;
+                }
+                if (CELLS.compareAndSet(cells, index, e, new Entry(key, mode == REMOVE ? null : value, LIVE))) {
+                    if (mode == REMOVE) {
+                        count.decrement();
+                    } else if (e.value == null) {
+                        count.increment();
+                    }
+                    return e.value;
+                }
+                i--;// Lost a race for this cell, look at it again.
+            }
+            if (!restart) {// Went around the whole table without finding an empty cell.
+                if (mode == REMOVE) {
+                    return null;
+                }
+                startMigration(t);
+            }
+        }
+    }
+
+    /* **************************************** */
+    /*  PUBLIC METHODS:                         */
+    /* **************************************** */
+
+    /**
+     *  Default constructor. Initializes the internal storage with a size equal to the default of {@link PrimeGenerator}.
+     */
+    public ConcurrentOpenAddressingHashTable() {
+        this(GrowthPolicy.DEFAULT);
+    }
+
+    /**
+     * Constructor with a {@link GrowthPolicy}.
+     * @param growthPolicy The {@link GrowthPolicy} which decides the initial capacity and when the table migrates.
+     * @throws IllegalArgumentException if growthPolicy is {@code null}, or if its maximum load factor is not smaller than 1.
+     */
+    public ConcurrentOpenAddressingHashTable(GrowthPolicy growthPolicy) {
+        if (growthPolicy == null) {
+            throw new IllegalArgumentException("null argument");
+        }
+        this.growthPolicy = growthPolicy;
+        maxLoadFactor = growthPolicy.requireMaxLoadFactor(1f).getMaxLoadFactor();
+        minLoadFactor = growthPolicy.getMinLoadFactor();
+        primeGenerator = growthPolicy.newPrimeGenerator();
+        minCapacity = primeGenerator.getCurrPrime();
+        root = new Table(primeGenerator.getCurrPrime());
+        count = new LongAdder();
+    }
+
+    /**
+     * Constructor with a capacity hint, for tables whose final size is known in advance: the table starts out large
+     * enough to hold expectedSize records without ever migrating, and never shrinks below that.
+     * @param expectedSize The number of records the table is expected to hold.
+     * @throws IllegalArgumentException if expectedSize is negative.
+     * @see GrowthPolicy#forExpectedSize(int)
+     */
+    public ConcurrentOpenAddressingHashTable(int expectedSize) {
+        this(GrowthPolicy.DEFAULT.forExpectedSize(expectedSize));
+    }
+
+    /**
+     * Makes room for expectedSize records, by starting a migration straight to a table of the smallest prime capacity
+     * which holds them under the maximum load factor of its {@link GrowthPolicy}. Like any other migration, the
+     * records are copied over by the operations that follow.
+     * @param expectedSize The number of records the table should be able to hold.
+     * @throws IllegalArgumentException if expectedSize is negative.
+     */
+    @Override
+    public void ensureCapacity(int expectedSize) {
+        int capacity = growthPolicy.capacityFor(expectedSize);
+        synchronized (this) {
+            Table t = newest();
+            if (capacity > t.cells.length) {
+                t.next = new Table(primeGenerator.getPrimeAtLeast(capacity));
+            }
+        }
+    }
+
+    /**
+     * Inserts the pair &lt;key, value&gt; into this. If key is already in the table, its value is <b>updated</b>.
+     * A migration to a new table is started when more than half of the cells of the newest table are taken, or more
+     * than the maximum load factor of its {@link GrowthPolicy}.
+     *
+     * @param key The record's key.
+     * @param value The record's value.
+     * @return The {@link phonebook.utils.Probes} with the value added and the number of probes it makes.
+     * @throws IllegalArgumentException if either argument is {@code null}.
+     */
+    @Override
+    public Probes put(String key, String value) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException("null argument");
+        }
+        int[] probes = new int[1];
+        write(root, key, value, PUT, probes);
+        return new Probes(value, probes[0]);
+    }
+
+    /**
+     * Get the value associated with key in the {@link HashTable}. This method never locks, never writes and never
+     * waits for other threads.
+     *
+     * @param key The key to search for.
+     * @return The {@link phonebook.utils.Probes} with associated value and the number of probe used. If the key is {@code null}, return value {@code null}
+     * and 0 as number of probes; if the key dones't exists in the database, return {@code null} and the number of probes used.
+     */
+    @Override
+    public Probes get(String key) {
+        if (key == null) {
+            return new Probes(null, 0);
+        }
+
+        int probes = 0;
+        Table t = root;
+        while (t != null) {
+            Object[] cells = t.cells;
+            int index = hash(key, cells.length);
+            Table next = t.next;
+            boolean moveOn = false;
+            for (int i = 0; i < cells.length && !moveOn; i++) {
+                probes++;
+                Object cell = CELLS.getVolatile(cells, index);
+                if (cell == null) {// No writer can have put key in a newer table without closing this cell first.
+                    return new Probes(null, probes);
+                }
+                if (cell == CLOSED) {
+                    moveOn = true;
+                } else {
+                    Entry e = (Entry) cell;
+                    if (e.key.equals(key)) {
+                        if (e.state != MOVED) {// Nobody can have changed key in a newer table before it's MOVED.
+                            return new Probes(e.value, probes);
+                        }
+                        moveOn = true;
+                    }
+                    index = (index + 1) % cells.length;
+                }
+            }
+            t = (next != null) ? next : t.next;// Our snapshot of next might be stale if we went around the table.
+        }
+        return new Probes(null, probes);
+    }
+
+    @Override
+    public Probes remove(String key) {
+        if (key == null) {
+            return new Probes(null, 0);
+        }
+        int[] probes = new int[1];
+        String value = write(root, key, null, REMOVE, probes);
+        if (value != null) {
+            shrinkIfNeeded();
+        }
+        return new Probes(value, probes[0]);
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        return get(key).getValue() != null;
+    }
+
+    @Override
+    public boolean containsValue(String value) {
+        for (Table t = root; t != null; t = t.next) {
+            for (int i = 0; i < t.cells.length; i++) {
+                Object cell = CELLS.getVolatile(t.cells, i);
+                if (cell instanceof Entry && ((Entry) cell).state != MOVED && value.equals(((Entry) cell).value)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int size() {
+        return (int) count.sum();
+    }
+
+    /**
+     * Returns the capacity of the newest table, i.e the one that new keys are put in.
+     * @return the number of cells in the newest table.
+     */
+    @Override
+    public int capacity() {
+        Table t = root;
+        while (t.next != null) {
+            t = t.next;
+        }
+        return t.cells.length;
+    }
+
+    /**
+     * Iterates over copies of the records of the table. Like {@link #containsValue(String)}, the iteration is only
+     * <b>weakly consistent</b>: every key is reported once, with the value {@link #get(String)} returned for it
+     * while the iteration was being built.
+     * @return An {@link Iterator} over copies of the records of the table, which does not support removal.
+     */
+    @Override
+    public Iterator<KVPair> iterator() {
+        List<KVPair> pairs = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (Table t = root; t != null; t = t.next) {
+            for (int i = 0; i < t.cells.length; i++) {
+                Object cell = CELLS.getVolatile(t.cells, i);
+                if (cell instanceof Entry && ((Entry) cell).state != MOVED && seen.add(((Entry) cell).key)) {
+                    String value = get(((Entry) cell).key).getValue();
+                    if (value != null) {
+                        pairs.add(new KVPair(((Entry) cell).key, value));
+                    }
+                }
+            }
+        }
+        return pairs.iterator();
+    }
+}
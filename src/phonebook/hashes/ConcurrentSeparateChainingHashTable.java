@@ -0,0 +1,343 @@
+package phonebook.hashes;
+
+import phonebook.utils.KVPair;
+import phonebook.utils.PrimeGenerator;
+import phonebook.utils.Probes;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <p>{@link ConcurrentSeparateChainingHashTable} is a <b>thread-safe</b> {@link HashTable} that resolves collisions with
+ * <b>Separate Chaining</b>, like {@link SeparateChainingHashTable}. Instead of a single lock around the whole table, it
+ * uses <b>lock striping</b>: the cells of the table are split among {@link #STRIPES} locks, and insertions or deletions
+ * only lock the stripe their cell belongs to. Operations on cells of different stripes run in parallel.</p>
+ *
+ * <p>Searches never lock at all. Nodes are linked through {@code volatile} references and a node is always fully
+ * built before it is linked into a chain, so a search always sees a consistent chain. Resizing, whether it enlarges
+ * the table or shrinks it after mass deletions, locks every stripe, but it copies the nodes into a brand new table
+ * instead of relinking them, so searches that are still walking the old table are not disturbed. The number of records is kept in a {@link LongAdder}, so that writers on different stripes
+ * do not all contend on the same counter.</p>
+ *
+ * @author Isaac Solomon
+ *
+ * @see HashTable
+ * @see SeparateChainingHashTable
+ * @see ConcurrentOpenAddressingHashTable
+ */
+public class ConcurrentSeparateChainingHashTable implements HashTable {
+
+    /* ****************************************************************** */
+    /* ***** PRIVATE FIELDS / METHODS ************************************ */
+    /* ****************************************************************** */
+
+    /**
+     * The number of locks that the cells of the table are split among.
+     */
+    public static final int STRIPES = 32;
+
+    private static final class Node {
+        final String key;
+        volatile String value;
+        volatile Node next;
+
+        Node(String key, String value, Node next) {
+            this.key = key;
+            this.value = value;
+            this.next = next;
+        }
+    }
+
+    private volatile AtomicReferenceArray<Node> table;
+    private final ReentrantLock[] locks;
+    private final LongAdder count;
+    private final PrimeGenerator primeGenerator;//only ever used while holding every lock
+    private final GrowthPolicy growthPolicy;
+    private final float maxLoadFactor;
+    private final float minLoadFactor;
+    private final int minCapacity;
+
+    // We mask the top bit of the default hashCode() to filter away negative values.
+    private static int hash(String key, int length) {
+        return (key.hashCode() & 0x7fffffff) % length;
+    }
+
+    private ReentrantLock lockFor(int index) {
+        return locks[index % STRIPES];
+    }
+
+    // Locks the stripe of key's cell in the current table and returns that table. Since a resize needs every lock,
+    // the table can't change while we hold the stripe.
+    private AtomicReferenceArray<Node> lockTable(String key) {
+        while (true) {
+            AtomicReferenceArray<Node> current = table;
+            ReentrantLock lock = lockFor(hash(key, current.length()));
+            lock.lock();
+            if (current == table) {
+                return current;
+            }
+            lock.unlock();//resized in the meantime, try again with the new table
+        }
+    }
+
+    private boolean tooFull(AtomicReferenceArray<Node> t) {
+        return (float) count.sum() / t.length() > maxLoadFactor;
+    }
+
+    private boolean tooEmpty(AtomicReferenceArray<Node> t) {
+        return t.length() > minCapacity && (float) count.sum() / t.length() < minLoadFactor;
+    }
+
+    private void lockAll() {
+        for (ReentrantLock lock : locks) {//always in the same order, so two resizing threads can't deadlock
+            lock.lock();
+        }
+    }
+
+    private void unlockAll() {
+        for (ReentrantLock lock : locks) {
+            lock.unlock();
+        }
+    }
+
+    // Copies every node into a new table of the given capacity. The caller holds every lock.
+    private void rehash(int capacity) {
+        AtomicReferenceArray<Node> oldTable = table;
+        AtomicReferenceArray<Node> newTable = new AtomicReferenceArray<>(capacity);
+        for (int i = 0; i < oldTable.length(); i++) {
+            for (Node node = oldTable.get(i); node != null; node = node.next) {//copies, so readers of oldTable are unaffected
+                int index = hash(node.key, newTable.length());
+                newTable.set(index, new Node(node.key, node.value, newTable.get(index)));
+            }
+        }
+        table = newTable;
+    }
+
+    // Insertions may only enlarge the table and deletions may only shrink it, so that a presized table stays put.
+    private void resizeIfNeeded(boolean removed) {
+        if (removed ? !tooEmpty(table) : !tooFull(table)) {
+            return;
+        }
+        lockAll();
+        try {
+            if (!removed && tooFull(table)) {
+                rehash(primeGenerator.getNextPrime());
+            } else if (removed && tooEmpty(table)) {
+                rehash(primeGenerator.getPreviousPrime());
+            }//otherwise, someone else resized already
+        } finally {
+            unlockAll();
+        }
+    }
+
+    /* **************************************** */
+    /*  PUBLIC METHODS:                         */
+    /* **************************************** */
+
+    /**
+     *  Default constructor. Initializes the internal storage with a size equal to the default of {@link PrimeGenerator}.
+     */
+    public ConcurrentSeparateChainingHashTable() {
+        this(GrowthPolicy.CHAINING);
+    }
+
+    /**
+     * Constructor with a {@link GrowthPolicy}. Since chains can hold any number of keys, the maximum load factor may
+     * exceed 1.
+     * @param growthPolicy The {@link GrowthPolicy} which decides the initial capacity and when the table resizes.
+     * @throws IllegalArgumentException if growthPolicy is {@code null}.
+     */
+    public ConcurrentSeparateChainingHashTable(GrowthPolicy growthPolicy) {
+        if (growthPolicy == null) {
+            throw new IllegalArgumentException("null argument");
+        }
+        this.growthPolicy = growthPolicy;
+        maxLoadFactor = growthPolicy.getMaxLoadFactor();
+        minLoadFactor = growthPolicy.getMinLoadFactor();
+        primeGenerator = growthPolicy.newPrimeGenerator();
+        table = new AtomicReferenceArray<>(primeGenerator.getCurrPrime());
+        minCapacity = table.length();
+        locks = new ReentrantLock[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        count = new LongAdder();
+    }
+
+    /**
+     * Constructor with a capacity hint, for tables whose final size is known in advance: the table starts out large
+     * enough to hold expectedSize records without ever resizing, and never shrinks below that.
+     * @param expectedSize The number of records the table is expected to hold.
+     * @throws IllegalArgumentException if expectedSize is negative.
+     * @see GrowthPolicy#forExpectedSize(int)
+     */
+    public ConcurrentSeparateChainingHashTable(int expectedSize) {
+        this(GrowthPolicy.CHAINING.forExpectedSize(expectedSize));
+    }
+
+    /**
+     * Makes room for expectedSize records, by copying every chain straight into a table of the smallest prime
+     * capacity which holds them under the maximum load factor of its {@link GrowthPolicy}. Like any other resize, this
+     * locks every stripe.
+     * @param expectedSize The number of records the table should be able to hold.
+     * @throws IllegalArgumentException if expectedSize is negative.
+     */
+    @Override
+    public void ensureCapacity(int expectedSize) {
+        int capacity = growthPolicy.capacityFor(expectedSize);
+        if (capacity <= table.length()) {
+            return;
+        }
+        lockAll();
+        try {
+            if (capacity > table.length()) {
+                rehash(primeGenerator.getPrimeAtLeast(capacity));
+            }
+        } finally {
+            unlockAll();
+        }
+    }
+
+    /**
+     * Inserts the pair &lt;key, value&gt; into this. If key is already in the table, its value is <b>updated</b>.
+     * Only the stripe of key's cell is locked. The table is enlarged when it holds more records than cells.
+     *
+     * @param key The record's key.
+     * @param value The record's value.
+     * @return The {@link phonebook.utils.Probes} with the value added and the number of nodes examined.
+     * @throws IllegalArgumentException if either argument is {@code null}.
+     */
+    @Override
+    public Probes put(String key, String value) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException("null argument");
+        }
+
+        int probes = 1;
+        AtomicReferenceArray<Node> current = lockTable(key);
+        int index = hash(key, current.length());
+        try {
+            for (Node node = current.get(index); node != null; node = node.next) {
+                if (node.key.equals(key)) {//already here, just update
+                    node.value = value;
+                    return new Probes(value, probes);
+                }
+                probes++;
+            }
+            current.set(index, new Node(key, value, current.get(index)));//fully built before it's published
+            count.increment();
+        } finally {
+            lockFor(index).unlock();
+        }
+        resizeIfNeeded(false);
+        return new Probes(value, probes);
+    }
+
+    /**
+     * Get the value associated with key in the {@link HashTable}. This method never blocks.
+     *
+     * @param key The key to search for.
+     * @return The {@link phonebook.utils.Probes} with associated value and the number of probe used. If the key is {@code null}, return value {@code null}
+     * and 0 as number of probes; if the key dones't exists in the database, return {@code null} and the number of probes used.
+     */
+    @Override
+    public Probes get(String key) {
+        if (key == null) {
+            return new Probes(null, 0);
+        }
+
+        AtomicReferenceArray<Node> current = table;
+        int probes = 1;
+        for (Node node = current.get(hash(key, current.length())); node != null; node = node.next) {
+            if (node.key.equals(key)) {
+                return new Probes(node.value, probes);
+            }
+            probes++;
+        }
+        return new Probes(null, probes);
+    }
+
+    @Override
+    public Probes remove(String key) {
+        if (key == null) {
+            return new Probes(null, 0);
+        }
+
+        int probes = 1;
+        String value = null;
+        AtomicReferenceArray<Node> current = lockTable(key);
+        int index = hash(key, current.length());
+        try {
+            Node previous = null;
+            for (Node node = current.get(index); node != null; node = node.next) {
+                if (node.key.equals(key)) {//unlinking leaves node.next intact for readers that are standing on node
+                    if (previous == null) {
+                        current.set(index, node.next);
+                    } else {
+                        previous.next = node.next;
+                    }
+                    count.decrement();
+                    value = node.value;
+                    break;
+                }
+                previous = node;
+                probes++;
+            }
+        } finally {
+            lockFor(index).unlock();
+        }
+        if (value != null) {
+            resizeIfNeeded(true);
+        }
+        return new Probes(value, probes);
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        return get(key).getValue() != null;
+    }
+
+    @Override
+    public boolean containsValue(String value) {
+        AtomicReferenceArray<Node> current = table;
+        for (int i = 0; i < current.length(); i++) {
+            for (Node node = current.get(i); node != null; node = node.next) {
+                if (node.value.equals(value)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int size() {
+        return (int) count.sum();
+    }
+
+    @Override
+    public int capacity() {
+        return table.length();
+    }
+
+    /**
+     * Iterates over copies of the records of the table. The iteration is <b>weakly consistent</b>: it never locks,
+     * and it may or may not reflect the writes that happen while it's being built.
+     * @return An {@link Iterator} over copies of the records of the table, which does not support removal.
+     */
+    @Override
+    public Iterator<KVPair> iterator() {
+        AtomicReferenceArray<Node> current = table;
+        List<KVPair> pairs = new ArrayList<>();
+        for (int i = 0; i < current.length(); i++) {
+            for (Node node = current.get(i); node != null; node = node.next) {
+                pairs.add(new KVPair(node.key, node.value));
+            }
+        }
+        return pairs.iterator();
+    }
+}
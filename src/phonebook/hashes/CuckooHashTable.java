@@ -0,0 +1,522 @@
+package phonebook.hashes;
+
+import phonebook.utils.KVPair;
+import phonebook.utils.PrimeGenerator;
+import phonebook.utils.Probes;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * <p>{@link CuckooHashTable} is an Openly Addressed {@link HashTable} which resolves collisions with
+ * <b>Cuckoo Hashing</b>. Every key has exactly two possible cells, given by two <b>independent</b> hash functions
+ * of its characters: seeded FNV-1a hashes, rather than {@link String#hashCode()}, so that keys which share a hash code
+ * still get cells of their own. If both cells are taken during an insertion, the new key <em>kicks out</em> the
+ * key in its first cell, which then moves to <b>its</b> other cell, possibly kicking out another key, and so on.
+ * Chains of evictions that grow longer than {@link #MAX_EVICTIONS} are given up on, and the homeless key is put in
+ * a tiny <b>stash</b> of {@link #STASH_SIZE} cells. When the stash is full too, the table is enlarged if it's as full
+ * as its {@link GrowthPolicy} allows, and otherwise rehashed with two new hash functions. A resize which can't place
+ * every key reseeds the hash functions, and enlarges the table every other time, at most {@link #MAX_REHASHES} times
+ * in a row, and then leaves the table as it was, with the last key in an overflow cell of the stash. Only keys whose
+ * hashes collide under every seed can get that far.</p>
+ *
+ * <p>The result is that searches and deletions are <b>worst-case</b> constant time: they look at two cells and the
+ * stash, and nothing else. {@link #get(String)} never reports more than 2 + {@link #STASH_SIZE} probes, short of
+ * overflow cells. The price is
+ * paid by insertions, which can be much more expensive than in other {@link HashTable}s. That's a good trade-off
+ * for read-heavy data like a {@link phonebook.Phonebook}.</p>
+ *
+ * @author Isaac Solomon
+ *
+ * @see HashTable
+ * @see HopscotchHashTable
+ * @see CollisionResolver
+ */
+public class CuckooHashTable extends OpenAddressingHashTable {
+
+    /* ********************************************************************/
+    /* ** INSERT ANY PRIVATE METHODS OR FIELDS YOU WANT TO USE HERE: ******/
+    /* ********************************************************************/
+
+    /**
+     * The maximum number of keys a single insertion is allowed to kick out before it gives up and uses the stash.
+     */
+    public static final int MAX_EVICTIONS = 32;
+
+    /**
+     * The number of cells in the stash that holds keys for which eviction failed.
+     */
+    public static final int STASH_SIZE = 4;
+
+    /**
+     * The number of times in a row that a resize reseeds the hash functions, and enlarges the table every other time,
+     * before it gives up on placing every key in its cells.
+     */
+    public static final int MAX_REHASHES = 8;
+
+    private int seed;                   // The two hash functions are picked by it, and change with it.
+    private int firstSeed;
+    private int secondSeed;
+    private int[] altHashes;            // The second hash of the key in every cell. hashes holds the first one.
+    private KVPair[] stash;
+    private int[] stashHashes;          // The hashes of the stashed keys, like hashes and altHashes for the table.
+    private int[] stashAltHashes;
+
+    // Seeded FNV-1a over the characters of key, finished with mix() so that the low bits depend on all of them.
+    // Unlike String.hashCode(), it tells apart keys which only collide under String.hashCode(), like "Aa" and "BB".
+    private static int hashChars(String key, int seed) {
+        int h = 0x811c9dc5 ^ seed;
+        for (int i = 0; i < key.length(); i++) {
+            h = (h ^ key.charAt(i)) * 0x01000193;
+        }
+        return mix(h ^ key.length());
+    }
+
+    private int firstHash(String key) {
+        return hashChars(key, firstSeed);
+    }
+
+    private int secondHash(String key) {
+        return hashChars(key, secondSeed);
+    }
+
+    // Picks two new, unrelated hash functions.
+    private void reseed(int seed) {
+        this.seed = seed;
+        firstSeed = mix(2 * seed + 1);
+        secondSeed = mix(~(2 * seed + 1));
+    }
+
+    // The cell of a key with the given hash.
+    private int cell(int h) {
+        return powerOfTwo ? h & (table.length - 1) : reduce(h & 0x7fffffff, table.length);
+    }
+
+    // The cell that the key with the given hashes should move to if it's kicked out of index.
+    private int alternateIndex(int first, int second, int index) {
+        int firstCell = cell(first);
+        return (index == firstCell) ? cell(second) : firstCell;
+    }
+
+    // Returns the index of key in the table, -1 if it's not in either of its cells.
+    private int find(String key, int first, int second) {
+        int index = cell(first);
+        if (holds(index, key, first)) {
+            return index;
+        }
+        index = cell(second);
+        if (holds(index, key, first) && altHashes[index] == second) {
+            return index;
+        }
+        return -1;
+    }
+
+    // Returns the index of key in the stash, -1 if it's not there.
+    private int findInStash(String key, int first) {
+        for (int i = 0; i < stash.length; i++) {
+            if (stash[i] != null && stashHashes[i] == first && stash[i].getKey().equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int stashSize() {
+        int size = 0;
+        for (KVPair pair : stash) {
+            if (pair != null) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    private void allocateStash(int length) {
+        stash = new KVPair[length];
+        stashHashes = new int[length];
+        stashAltHashes = new int[length];
+    }
+
+    @Override
+    protected void allocateTable(int capacity) {
+        super.allocateTable(capacity);
+        altHashes = new int[capacity];
+    }
+
+    // Inserts a key that is known not to be in the table. Returns false if both the eviction chain and the stash
+    // were exhausted; in that case, some other key has been left homeless and is stored in homeless[0].
+    private boolean insert(KVPair pair, int first, int second, KVPair[] homeless) {
+        int index = cell(first);
+        if (table[index] == null) {
+            table[index] = pair;
+            hashes[index] = first;
+            altHashes[index] = second;
+            return true;
+        }
+        index = cell(second);
+        for (int evictions = 0; evictions < MAX_EVICTIONS; evictions++) {
+            if (table[index] == null) {
+                table[index] = pair;
+                hashes[index] = first;
+                altHashes[index] = second;
+                return true;
+            }
+            KVPair evicted = table[index];//kick the resident out and send it to its other cell
+            int evictedFirst = hashes[index], evictedSecond = altHashes[index];
+            table[index] = pair;
+            hashes[index] = first;
+            altHashes[index] = second;
+            pair = evicted;
+            first = evictedFirst;
+            second = evictedSecond;
+            index = alternateIndex(first, second, index);
+        }
+        if (table[index] == null) {
+            table[index] = pair;
+            hashes[index] = first;
+            altHashes[index] = second;
+            return true;
+        }
+
+        for (int i = 0; i < stash.length; i++) {
+            if (stash[i] == null) {
+                stash[i] = pair;
+                stashHashes[i] = first;
+                stashAltHashes[i] = second;
+                return true;
+            }
+        }
+        homeless[0] = pair;
+        return false;
+    }
+
+    // Inserts a key that used to be in a table hashed with oldSeed, whose hashes are still good if the seed is too.
+    private boolean reinsert(KVPair pair, int first, int second, int oldSeed, KVPair[] homeless) {
+        if (seed != oldSeed) {
+            first = firstHash(pair.getKey());
+            second = secondHash(pair.getKey());
+        }
+        return insert(pair, first, second, homeless);
+    }
+
+    // Moves every key, including the stashed ones and extra, if any, into a table of the given capacity, with new hash
+    // functions if fresh is true, and the current ones otherwise. If some key can't be placed, they are reseeded, and
+    // the table is enlarged every other time, up to MAX_REHASHES times in a row. After that, the table is left as it
+    // was, and extra is put in an overflow cell of the stash, so that no key is ever lost and the table never grows
+    // without bound.
+    private void resize(KVPair extra, int capacity, boolean fresh) {
+        KVPair[] oldTable = table;//hold onto old table
+        int[] oldHashes = hashes, oldAltHashes = altHashes;
+        KVPair[] oldStash = stash;
+        int[] oldStashHashes = stashHashes, oldStashAltHashes = stashAltHashes;
+        int oldSeed = seed;
+        KVPair[] homeless = new KVPair[1];
+        if (fresh) {
+            reseed(seed + 1);
+        }
+
+        for (int attempt = 1; ; attempt++) {
+            allocateTable(capacity);
+            allocateStash(STASH_SIZE);
+            boolean done = extra == null
+                    || insert(extra, firstHash(extra.getKey()), secondHash(extra.getKey()), homeless);
+            for (int i = 0; i < oldTable.length && done; i++) {
+                if (oldTable[i] != null) {
+                    done = reinsert(oldTable[i], oldHashes[i], oldAltHashes[i], oldSeed, homeless);
+                }
+            }
+            for (int i = 0; i < oldStash.length && done; i++) {
+                if (oldStash[i] != null) {
+                    done = reinsert(oldStash[i], oldStashHashes[i], oldStashAltHashes[i], oldSeed, homeless);
+                }
+            }
+            if (done) {
+                return;
+            }
+            if (attempt == MAX_REHASHES) {//only keys whose hashes collide under every seed can get here
+                table = oldTable;
+                hashes = oldHashes;
+                altHashes = oldAltHashes;
+                stash = oldStash;
+                stashHashes = oldStashHashes;
+                stashAltHashes = oldStashAltHashes;
+                reseed(oldSeed);
+                primeGenerator.getPrimeAtLeast(oldTable.length);
+                if (extra != null) {
+                    int overflow = stash.length;
+                    stash = Arrays.copyOf(stash, overflow + 1);
+                    stashHashes = Arrays.copyOf(stashHashes, overflow + 1);
+                    stashAltHashes = Arrays.copyOf(stashAltHashes, overflow + 1);
+                    stash[overflow] = extra;
+                    stashHashes[overflow] = firstHash(extra.getKey());
+                    stashAltHashes[overflow] = secondHash(extra.getKey());
+                }
+                return;
+            }
+            reseed(seed + 1);
+            if (attempt % 2 == 0) {
+                capacity = primeGenerator.getNextPrime();
+            }
+        }
+    }
+
+    @Override
+    protected int resizeTo(int capacity) {
+        resize(null, capacity, false);
+        return 0;
+    }
+
+    /**
+     * Writes the cells of the table, then the seed of its hash functions and the second hash of every key, and then
+     * the stash.
+     * @param out Where to write the cells.
+     * @throws IOException if out can't be written to.
+     */
+    @Override
+    protected void writeCells(DataOutput out) throws IOException {
+        super.writeCells(out);
+        out.writeInt(seed);
+        for (int i = 0; i < table.length; i++) {
+            if (table[i] != null) {
+                out.writeInt(altHashes[i]);
+            }
+        }
+        out.writeInt(stashSize());
+        for (int i = 0; i < stash.length; i++) {
+            if (stash[i] != null) {
+                out.writeInt(stashHashes[i]);
+                out.writeInt(stashAltHashes[i]);
+                out.writeUTF(stash[i].getKey());
+                out.writeUTF(stash[i].getValue());
+            }
+        }
+    }
+
+    /**
+     * Reads the cells of the table back, and then the stash.
+     * @param in Where to read the cells from.
+     * @throws IOException if in can't be read from, or holds a capacity that this table can't have.
+     */
+    @Override
+    protected void readCells(DataInput in) throws IOException {
+        super.readCells(in);
+        reseed(in.readInt());
+        for (int i = 0; i < table.length; i++) {
+            if (table[i] != null) {
+                altHashes[i] = in.readInt();
+            }
+        }
+        int stashed = in.readInt();
+        if (stashed < 0 || stashed > table.length) {
+            throw new IOException("Invalid number of stashed keys: " + stashed);
+        }
+        allocateStash(Math.max(STASH_SIZE, stashed));
+        for (int i = 0; i < stashed; i++) {
+            stashHashes[i] = in.readInt();
+            stashAltHashes[i] = in.readInt();
+            stash[i] = new KVPair(in.readUTF(), in.readUTF());
+        }
+    }
+
+    /* ******************************************/
+    /*  IMPLEMENT THE FOLLOWING PUBLIC METHODS: */
+    /* **************************************** */
+
+    /**
+     * Default constructor. Initializes the internal storage with a size equal to the starting value of {@link PrimeGenerator}.
+     * Since every key can only ever be in one of two cells, {@link CuckooHashTable} has no notion of soft deletion.
+     */
+    public CuckooHashTable() {
+        this(GrowthPolicy.DEFAULT);
+    }
+
+    /**
+     * Constructor with a {@link GrowthPolicy}. With two cells per key, insertions start failing often above 50&#37;,
+     * so higher maximum load factors mostly trade enlargements for longer eviction chains.
+     * @param growthPolicy The {@link GrowthPolicy} which decides the initial capacity and when the table resizes.
+     * @throws IllegalArgumentException if growthPolicy is {@code null}, or if its maximum load factor is not smaller than 1.
+     */
+    public CuckooHashTable(GrowthPolicy growthPolicy) {
+        setGrowthPolicy(growthPolicy, 1f);
+        reseed(0);
+        allocateTable(primeGenerator.getCurrPrime());
+        allocateStash(STASH_SIZE);
+        softFlag = false;
+        count = 0;
+    }
+
+    /**
+     * Constructor with a capacity hint, for tables whose final size is known in advance: the table starts out large
+     * enough to hold expectedSize records without resizing, and never shrinks below that. Evictions which fail can
+     * still force a rehash, at the same capacity.
+     * @param expectedSize The number of records the table is expected to hold.
+     * @throws IllegalArgumentException if expectedSize is negative.
+     * @see GrowthPolicy#forExpectedSize(int)
+     */
+    public CuckooHashTable(int expectedSize) {
+        this(GrowthPolicy.DEFAULT.forExpectedSize(expectedSize));
+    }
+
+    /**
+     * Inserts the pair &lt;key, value&gt; into this. If key is already in the table, its value is <b>updated</b>.
+     * Instances of {@link CuckooHashTable} are enlarged when they are 50&#37; full (or as full as the maximum load
+     * factor of their {@link GrowthPolicy}). An insertion which exhausts both its eviction chain and the stash below
+     * that load rehashes the table with new hash functions instead.
+     *
+     * @param key   The record's key.
+     * @param value The record's value.
+     * @return The {@link phonebook.utils.Probes} with the value added and the number of probes it makes.
+     * @throws IllegalArgumentException if either argument is {@code null}.
+     */
+    @Override
+    public Probes put(String key, String value) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException("null argument");
+        }
+
+        int first = firstHash(key), second = secondHash(key);
+        int index = find(key, first, second);
+        if (index != -1) {//already here, just update
+            table[index].setValue(value);
+            return new Probes(value, 2);
+        }
+        index = findInStash(key, first);
+        if (index != -1) {
+            stash[index].setValue(value);
+            return new Probes(value, 2 + stashSize());
+        }
+
+        KVPair pair = new KVPair(key, value);
+        KVPair[] homeless = new KVPair[1];
+        if (exceedsMaxLoad(count, table.length)) {//exceeds threshold, increase capacity of table
+            resize(pair, primeGenerator.getNextPrime(), false);
+        } else if (!insert(pair, first, second, homeless)) {//unlucky hash functions, not a full table: pick new ones
+            resize(homeless[0], table.length, true);
+        }
+        count++;
+        return new Probes(value, 2 + stashSize());
+    }
+
+    /**
+     * Get the value associated with key in the {@link HashTable}. This method only looks at the two cells of the key
+     * and at the stash, so it makes <b>at most</b> 2 + {@link #STASH_SIZE} probes.
+     *
+     * @param key The key to search for.
+     * @return The {@link phonebook.utils.Probes} with associated value and the number of probe used. If the key is {@code null}, return value {@code null}
+     * and 0 as number of probes; if the key doesn't exist in the database, return {@code null} and the number of probes used.
+     */
+    @Override
+    public Probes get(String key) {
+        if (key == null) {
+            return new Probes(null, 0);
+        }
+
+        int first = firstHash(key);
+        int index = cell(first);
+        if (holds(index, key, first)) {
+            return new Probes(table[index].getValue(), 1);
+        }
+        int second = secondHash(key);
+        index = cell(second);
+        if (holds(index, key, first) && altHashes[index] == second) {
+            return new Probes(table[index].getValue(), 2);
+        }
+        index = findInStash(key, first);
+        return new Probes(index == -1 ? null : stash[index].getValue(), 2 + stashSize());
+    }
+
+    @Override
+    public Probes remove(String key) {
+        if (key == null) {
+            return new Probes(null, 0);
+        }
+
+        String value;
+        int numProbes;
+        int first = firstHash(key), second = secondHash(key);
+        int index = find(key, first, second);
+        if (index != -1) {
+            value = table[index].getValue();
+            numProbes = (index == cell(first)) ? 1 : 2;
+            table[index] = null;
+
+            for (int i = 0; i < stash.length; i++) {//a stashed key might fit in the cell we just emptied
+                if (stash[i] != null && (cell(stashHashes[i]) == index || cell(stashAltHashes[i]) == index)) {
+                    table[index] = stash[i];
+                    hashes[index] = stashHashes[i];
+                    altHashes[index] = stashAltHashes[i];
+                    stash[i] = null;
+                    break;
+                }
+            }
+        } else {
+            numProbes = 2 + stashSize();
+            index = findInStash(key, first);
+            if (index == -1) {
+                return new Probes(null, numProbes);
+            }
+            value = stash[index].getValue();
+            stash[index] = null;
+        }
+        count--;
+        if (belowMinLoad(count, table.length)) {//mostly empty, shrink the table
+            resize(null, primeGenerator.getPreviousPrime(), false);
+        }
+        return new Probes(value, numProbes);
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        if (key == null) {
+            return false;
+        }
+        int first = firstHash(key);
+        return find(key, first, secondHash(key)) != -1 || findInStash(key, first) != -1;
+    }
+
+    @Override
+    public boolean containsValue(String value) {
+        for (KVPair pair : table) {
+            if (pair != null && pair.getValue().equals(value)) {
+                return true;
+            }
+        }
+        for (KVPair pair : stash) {
+            if (pair != null && pair.getValue().equals(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Iterates over the records of the table, and then over the stashed ones.
+     * @return An {@link Iterator} over the {@link KVPair}s of the table, which does not support removal.
+     */
+    @Override
+    public Iterator<KVPair> iterator() {
+        List<KVPair> pairs = new ArrayList<>(count);
+        super.iterator().forEachRemaining(pairs::add);
+        for (KVPair pair : stash) {
+            if (pair != null) {
+                pairs.add(pair);
+            }
+        }
+        return pairs.iterator();
+    }
+
+    @Override
+    public int size() {
+        return count;
+    }
+
+    @Override
+    public int capacity() {
+        return table.length;
+    }
+}
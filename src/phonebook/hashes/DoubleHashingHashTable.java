@@ -0,0 +1,250 @@
+package phonebook.hashes;
+
+import phonebook.utils.KVPair;
+import phonebook.utils.PrimeGenerator;
+import phonebook.utils.Probes;
+
+/**
+ * <p>{@link DoubleHashingHashTable} is an Openly Addressed {@link HashTable} which uses <b>Double Hashing</b> as its
+ * collision resolution strategy. Like {@link QuadraticProbingHashTable}, it resolves collisions by jumping over the
+ * table, but the length of the jumps is given by a <b>second</b> hash of the key, {@link #secondaryHash(String)},
+ * instead of being the same sequence for every key. Two keys that hash to the same cell are therefore very unlikely
+ * to follow the same probe sequence, which gets rid of the &quot; secondary clustering &quot; that quadratic probing
+ * still suffers from. Since our capacities are always prime, every jump length between 1 and the capacity - 1
+ * is coprime with the capacity, so every probe sequence visits every cell of the table.</p>
+ *
+ * <p>Deletions always leave tombstones behind, since there is no cluster we can repair. With soft deletion, tombstones
+ * count towards the load of the table, exactly like in the other openly addressed tables. With hard deletion,
+ * they are an internal detail: they don't count towards the load, and they are purged in batches, by rebuilding the
+ * table at the same capacity whenever they make up more than 1/8 of it, or at the previous prime capacity if the table
+ * has fallen below its minimum load factor. This keeps hard deletions amortized constant time. In both modes,
+ * insertions re-use the first tombstone of their probe sequence.</p>
+ *
+ * @author Isaac Solomon
+ *
+ * @see HashTable
+ * @see QuadraticProbingHashTable
+ * @see OpenAddressingHashTable#secondaryHash(String)
+ * @see CollisionResolver
+ */
+public class DoubleHashingHashTable extends OpenAddressingHashTable {
+
+    /* ********************************************************************/
+    /* ** INSERT ANY PRIVATE METHODS OR FIELDS YOU WANT TO USE HERE: ******/
+    /* ********************************************************************/
+
+    // The jump length for key, between 1 and table.length - 1, hence coprime with our prime capacities. With power of
+    // two capacities, any odd jump length is.
+    private int step(int hashCode) {
+        if (powerOfTwo) {
+            return secondaryHash(hashCode) | 1;
+        }
+        return (table.length == 1) ? 1 : 1 + secondaryHash(hashCode) % (table.length - 1);
+    }
+
+    // Returns the index of key, or -1 if it's not in the table. probes[0] accumulates the probes made, and
+    // probes[1] is set to the cell an insertion of key should use: the first tombstone met along the way, or the
+    // empty cell that ended the search.
+    private int find(String key, int hashCode, int[] probes) {
+        int index = hash(hashCode, table.length);
+        int step = step(hashCode);
+        probes[1] = -1;
+
+        for (int i = 0; i < table.length; i++) {
+            probes[0]++;
+            if (table[index] == null) {//end of the probe sequence
+                if (probes[1] == -1) {
+                    probes[1] = index;
+                }
+                return -1;
+            }
+            if (table[index] == TOMBSTONE) {
+                if (probes[1] == -1) {
+                    probes[1] = index;
+                }
+            } else if (hashes[index] == hashCode && table[index].getKey().equals(key)) {
+                return index;
+            }
+            index = (index + step) % table.length;
+        }
+        return -1;//visited every cell
+    }
+
+    // Rebuilds the table at the given capacity, without any tombstones. The stored hash codes spare us the keys.
+    private int rebuild(int capacity) {
+        KVPair[] oldTable = table;//hold onto old table
+        int[] oldHashes = hashes;
+        allocateTable(capacity);
+        tombstones = 0;
+        int probes = 0;
+
+        for (int i = 0; i < oldTable.length; i++) {
+            if (oldTable[i] != null && oldTable[i] != TOMBSTONE) {
+                int index = hash(oldHashes[i], table.length);
+                int step = step(oldHashes[i]);
+                probes++;
+                while (table[index] != null) {
+                    index = (index + step) % table.length;
+                    probes++;
+                }
+                table[index] = oldTable[i];
+                hashes[index] = oldHashes[i];
+            }
+        }
+        return probes;
+    }
+
+    @Override
+    protected int resizeTo(int capacity) {
+        return rebuild(capacity);
+    }
+
+    /* ******************************************/
+    /*  IMPLEMENT THE FOLLOWING PUBLIC METHODS: */
+    /* **************************************** */
+
+    /**
+     * Constructor with soft deletion option. Initializes the internal storage with a size equal to the starting value of  {@link PrimeGenerator}.
+     * @param soft A boolean indicator of whether we want to use soft deletion or not. {@code true} if and only if
+     *               we want soft deletion, {@code false} otherwise.
+     */
+    public DoubleHashingHashTable(boolean soft) {
+        this(soft, GrowthPolicy.DEFAULT);
+    }
+
+    /**
+     * Constructor with soft deletion option and a {@link GrowthPolicy}. Since the tombstones of hard deletions may take
+     * up another 1/8 of the table on top of the records, the maximum load factor may not exceed 75&#37;.
+     * @param soft A boolean indicator of whether we want to use soft deletion or not. {@code true} if and only if
+     *               we want soft deletion, {@code false} otherwise.
+     * @param growthPolicy The {@link GrowthPolicy} which decides the initial capacity and when the table resizes.
+     * @throws IllegalArgumentException if growthPolicy is {@code null}, or if its maximum load factor is above 75&#37;.
+     */
+    public DoubleHashingHashTable(boolean soft, GrowthPolicy growthPolicy) {
+        setGrowthPolicy(growthPolicy, .75f);
+        allocateTable(primeGenerator.getCurrPrime());
+        softFlag = soft;
+        count = 0;
+        tombstones = 0;
+    }
+
+    /**
+     * Constructor with soft deletion option and a capacity hint, for tables whose final size is known in advance: the
+     * table starts out large enough to hold expectedSize records without ever resizing, and never shrinks below that.
+     * @param soft A boolean indicator of whether we want to use soft deletion or not. {@code true} if and only if
+     *               we want soft deletion, {@code false} otherwise.
+     * @param expectedSize The number of records the table is expected to hold.
+     * @throws IllegalArgumentException if expectedSize is negative.
+     * @see GrowthPolicy#forExpectedSize(int)
+     */
+    public DoubleHashingHashTable(boolean soft, int expectedSize) {
+        this(soft, GrowthPolicy.DEFAULT.forExpectedSize(expectedSize));
+    }
+
+    /**
+     * Inserts the pair &lt;key, value&gt; into this. If key is already in the table, its value is <b>updated</b>.
+     * Instances of {@link DoubleHashingHashTable} are enlarged when they are at least 50&#37; full (or as full as the
+     * maximum load factor of their {@link GrowthPolicy}), where, under soft
+     * deletion, tombstones count as full cells.
+     *
+     * @param key   The record's key.
+     * @param value The record's value.
+     * @return The {@link phonebook.utils.Probes} with the value added and the number of probes it makes.
+     * @throws IllegalArgumentException if either argument is {@code null}.
+     */
+    @Override
+    public Probes put(String key, String value) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException("null argument");
+        }
+
+        int numProbes = 0;
+        int load = softFlag ? sizeWithTombstones() : count;
+        if (exceedsMaxLoad(load, table.length)) {//exceeds threshold, increase capacity of table
+            numProbes += rebuild(primeGenerator.getNextPrime());
+        }
+
+        int h = key.hashCode();
+        int[] probes = new int[2];
+        int index = find(key, h, probes);
+        numProbes += probes[0];
+        if (index != -1) {//already here, just update
+            table[index].setValue(value);
+            return new Probes(value, numProbes);
+        }
+
+        index = probes[1];
+        if (table[index] == TOMBSTONE) {//re-use the first tombstone we met
+            tombstones--;
+        }
+        table[index] = new KVPair(key, value);
+        hashes[index] = h;
+        count++;
+        return new Probes(value, numProbes);
+    }
+
+    @Override
+    public Probes get(String key) {
+        if (key == null) {
+            return new Probes(null, 0);
+        }
+
+        int[] probes = new int[2];
+        int index = find(key, key.hashCode(), probes);
+        return new Probes(index == -1 ? null : table[index].getValue(), probes[0]);
+    }
+
+    @Override
+    public Probes remove(String key) {
+        if (key == null) {
+            return new Probes(null, 0);
+        }
+
+        int[] probes = new int[2];
+        int index = find(key, key.hashCode(), probes);
+        if (index == -1) {
+            return new Probes(null, probes[0]);
+        }
+
+        String value = table[index].getValue();
+        table[index] = TOMBSTONE;
+        tombstones++;
+        count--;
+        int numProbes = probes[0];
+        if (belowMinLoad(count, table.length)) {//mostly empty, shrink the table
+            numProbes += rebuild(primeGenerator.getPreviousPrime());
+        } else if (!softFlag && tombstones > table.length / 8) {//purge the tombstones of hard deletions in one go
+            numProbes += rebuild(table.length);
+        }
+        return new Probes(value, numProbes);
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        return key != null && find(key, key.hashCode(), new int[2]) != -1;
+    }
+
+    @Override
+    public boolean containsValue(String value) {
+        for (KVPair pair : table) {
+            if (pair != null && pair != TOMBSTONE && pair.getValue().equals(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int size() {
+        return count;
+    }
+
+    public int sizeWithTombstones() {
+        return count + tombstones;
+    }
+
+    @Override
+    public int capacity() {
+        return table.length;
+    }
+}
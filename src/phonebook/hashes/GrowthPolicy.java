@@ -0,0 +1,247 @@
+package phonebook.hashes;
+
+import phonebook.utils.PowerOfTwoGenerator;
+import phonebook.utils.PrimeGenerator;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * <p>{@link GrowthPolicy} is an <b>immutable</b> set of parameters which decides how big a {@link HashTable} is, and
+ * when it is resized:</p>
+ * <ol>
+ *     <li>The <b>maximum load factor</b>: the table is enlarged when the ratio of its records to its capacity would
+ *     exceed it. Higher values save memory, at the cost of longer probe sequences or chains.</li>
+ *     <li>The <b>minimum load factor</b>: tables which shrink may shrink when the ratio drops below it. It has to be
+ *     small enough that a table which just grew is not immediately below it, so that a table never keeps growing and
+ *     shrinking around the same size.</li>
+ *     <li>The <b>growth multiplier</b>: by how much the capacity is multiplied when the table is enlarged, and divided
+ *     when it shrinks.</li>
+ *     <li>The <b>initial capacity</b>: the capacity of a new table, rounded up to the next valid capacity for that
+ *     table (a prime, for most of them).</li>
+ * </ol>
+ *
+ * <p>Every table has its own default policy, which is what its constructors without a {@link GrowthPolicy} use. Open
+ * addressing needs empty cells to end its searches, so openly addressed tables reject maximum load factors of 1 or
+ * more, and some of them are stricter than that. Engines which keep their probe sequences short, like
+ * {@link RobinHoodHashTable} or {@link HopscotchHashTable}, run well at 0.8 or more, which is a good fit for indexes
+ * which are read far more often than they are written.</p>
+ *
+ * <p>Capacities are primes by default, so that a plain {@link String#hashCode()} modulo the capacity spreads keys well.
+ * A policy made with {@link #withPowerOfTwoCapacities()} uses powers of two instead: openly addressed tables then
+ * scramble the hash code with the MurmurHash3 finalizer and keep its low bits with a mask, which saves them a division
+ * on every lookup. {@link QuadraticProbingHashTable} rejects them, since its probe sequence only covers enough cells of
+ * a prime table. The other tables accept them too, but keep reducing their hash codes with a division.</p>
+ *
+ * @author Isaac Solomon
+ *
+ * @see HashTable
+ * @see PrimeGenerator#PrimeGenerator(int, float)
+ * @see PowerOfTwoGenerator
+ */
+public final class GrowthPolicy {
+
+    /**
+     * The policy of openly addressed tables that do not say otherwise: enlarge at 50&#37;, shrink below 12.5&#37;,
+     * double the capacity, and start from 7 cells.
+     */
+    public static final GrowthPolicy DEFAULT = new GrowthPolicy(.5f, .125f, 2f, 7);
+
+    /**
+     * The policy of {@link SeparateChainingHashTable} and {@link ConcurrentSeparateChainingHashTable}: since chains
+     * can hold any number of records, they enlarge at 100&#37; and shrink below 25&#37;.
+     */
+    public static final GrowthPolicy CHAINING = new GrowthPolicy(1f, .25f, 2f, 7);
+
+    /**
+     * {@link #DEFAULT} with power of two capacities, starting from 8 cells.
+     */
+    public static final GrowthPolicy POWER_OF_TWO = DEFAULT.withPowerOfTwoCapacities();
+
+    private final float maxLoadFactor;
+    private final float minLoadFactor;
+    private final float growthMultiplier;
+    private final int initialCapacity;
+    private final boolean powerOfTwo;
+
+    /**
+     * Creates a {@link GrowthPolicy}.
+     * @param maxLoadFactor The load factor above which tables are enlarged.
+     * @param minLoadFactor The load factor below which tables may shrink. 0 means never.
+     * @param growthMultiplier By how much the capacity changes on every resize.
+     * @param initialCapacity The capacity of a new table, at least.
+     * @throws IllegalArgumentException if maxLoadFactor is not positive, if minLoadFactor is negative or not smaller than
+     * maxLoadFactor / growthMultiplier, if growthMultiplier is not larger than 1, or if initialCapacity is smaller than 2
+     * or larger than {@link PrimeGenerator#MAX_PRIME}.
+     */
+    public GrowthPolicy(float maxLoadFactor, float minLoadFactor, float growthMultiplier, int initialCapacity) {
+        if (!(maxLoadFactor > 0) || Float.isInfinite(maxLoadFactor)) {
+            throw new IllegalArgumentException("Invalid maximum load factor: " + maxLoadFactor);
+        }
+        if (!(growthMultiplier > 1) || Float.isInfinite(growthMultiplier)) {
+            throw new IllegalArgumentException("Invalid growth multiplier: " + growthMultiplier);
+        }
+        if (!(minLoadFactor >= 0) || minLoadFactor >= maxLoadFactor / growthMultiplier) {
+            throw new IllegalArgumentException("Invalid minimum load factor: " + minLoadFactor +
+                    ", it has to be smaller than " + maxLoadFactor / growthMultiplier);
+        }
+        if (initialCapacity < 2 || initialCapacity > PrimeGenerator.MAX_PRIME) {
+            throw new IllegalArgumentException("Invalid initial capacity: " + initialCapacity);
+        }
+        this.maxLoadFactor = maxLoadFactor;
+        this.minLoadFactor = minLoadFactor;
+        this.growthMultiplier = growthMultiplier;
+        this.initialCapacity = initialCapacity;
+        this.powerOfTwo = false;
+    }
+
+    private GrowthPolicy(GrowthPolicy policy, int initialCapacity, boolean powerOfTwo) {
+        this.maxLoadFactor = policy.maxLoadFactor;
+        this.minLoadFactor = policy.minLoadFactor;
+        this.growthMultiplier = policy.growthMultiplier;
+        this.initialCapacity = initialCapacity;
+        this.powerOfTwo = powerOfTwo;
+    }
+
+    /**
+     * Returns a copy of this policy whose capacities are powers of two, so that tables can index with a mask instead
+     * of a division. The initial capacity is rounded up to a power of two by the table.
+     * @return A {@link GrowthPolicy} with the same parameters, and power of two capacities.
+     * @throws IllegalArgumentException if the growth multiplier is not a power of two, or if the initial capacity is
+     * larger than {@link PowerOfTwoGenerator#MAX_CAPACITY}.
+     * @see PowerOfTwoGenerator
+     */
+    public GrowthPolicy withPowerOfTwoCapacities() {
+        new PowerOfTwoGenerator(initialCapacity, growthMultiplier);//validates both
+        return new GrowthPolicy(this, initialCapacity, true);
+    }
+
+    /**
+     * Returns whether the capacities of this policy are powers of two rather than primes.
+     * @return {@code true} if this policy was made by {@link #withPowerOfTwoCapacities()}.
+     */
+    public boolean hasPowerOfTwoCapacities() {
+        return powerOfTwo;
+    }
+
+    /**
+     * Returns the load factor above which tables are enlarged.
+     * @return The maximum load factor.
+     */
+    public float getMaxLoadFactor() {
+        return maxLoadFactor;
+    }
+
+    /**
+     * Returns the load factor below which tables may shrink.
+     * @return The minimum load factor.
+     */
+    public float getMinLoadFactor() {
+        return minLoadFactor;
+    }
+
+    /**
+     * Returns by how much the capacity changes on every resize.
+     * @return The growth multiplier.
+     */
+    public float getGrowthMultiplier() {
+        return growthMultiplier;
+    }
+
+    /**
+     * Returns the smallest capacity of a new table.
+     * @return The initial capacity.
+     */
+    public int getInitialCapacity() {
+        return initialCapacity;
+    }
+
+    /**
+     * Returns the smallest capacity which holds the given number of records without going above the maximum load
+     * factor, and still has an empty cell.
+     * @param records The number of records.
+     * @return The capacity needed for records, at most {@link PrimeGenerator#MAX_PRIME}.
+     * @throws IllegalArgumentException if records is negative.
+     */
+    public int capacityFor(int records) {
+        if (records < 0) {
+            throw new IllegalArgumentException("Negative number of records: " + records);
+        }
+        long capacity = Math.max(records + 1L, (long) Math.ceil(records / (double) maxLoadFactor));
+        return (int) Math.min(capacity, PrimeGenerator.MAX_PRIME);
+    }
+
+    /**
+     * Returns a copy of this policy whose initial capacity holds the given number of records, for tables whose final
+     * size is known in advance.
+     * @param records The number of records the table is expected to hold.
+     * @return A {@link GrowthPolicy} with the same load factors and growth multiplier, and a large enough initial capacity.
+     * @throws IllegalArgumentException if records is negative.
+     * @see #capacityFor(int)
+     */
+    public GrowthPolicy forExpectedSize(int records) {
+        return new GrowthPolicy(this, Math.max(initialCapacity, capacityFor(records)), powerOfTwo);
+    }
+
+    /**
+     * Creates a {@link PrimeGenerator} which starts from the initial capacity and steps by the growth multiplier, or a
+     * {@link PowerOfTwoGenerator} if the capacities of this policy are powers of two.
+     * @return A new {@link PrimeGenerator} for a table which follows this policy.
+     */
+    public PrimeGenerator newPrimeGenerator() {
+        return powerOfTwo ? new PowerOfTwoGenerator(initialCapacity, growthMultiplier)
+                : new PrimeGenerator(initialCapacity, growthMultiplier);
+    }
+
+    /**
+     * Checks that this policy leaves empty cells in an openly addressed table.
+     * @param limit The largest maximum load factor that the table supports.
+     * @return this.
+     * @throws IllegalArgumentException if the maximum load factor of this policy is larger than limit, or not smaller
+     * than 1.
+     */
+    GrowthPolicy requireMaxLoadFactor(float limit) {
+        if (maxLoadFactor > limit || maxLoadFactor >= 1) {
+            throw new IllegalArgumentException("Maximum load factor " + maxLoadFactor + " is too high for this table.");
+        }
+        return this;
+    }
+
+    /**
+     * Writes the parameters of this policy, for {@link #readFrom(DataInput)}.
+     * @param out Where to write them.
+     * @throws IOException if out can't be written to.
+     */
+    void writeTo(DataOutput out) throws IOException {
+        out.writeFloat(maxLoadFactor);
+        out.writeFloat(minLoadFactor);
+        out.writeFloat(growthMultiplier);
+        out.writeInt(initialCapacity);
+        out.writeBoolean(powerOfTwo);
+    }
+
+    /**
+     * Reads back a policy written by {@link #writeTo(DataOutput)}.
+     * @param in Where to read it from.
+     * @return A {@link GrowthPolicy} with the same parameters as the one that was written.
+     * @throws IOException if in can't be read from, or holds parameters that no policy has.
+     */
+    static GrowthPolicy readFrom(DataInput in) throws IOException {
+        float maxLoadFactor = in.readFloat(), minLoadFactor = in.readFloat(), growthMultiplier = in.readFloat();
+        int initialCapacity = in.readInt();
+        boolean powerOfTwo = in.readBoolean();
+        try {
+            GrowthPolicy policy = new GrowthPolicy(maxLoadFactor, minLoadFactor, growthMultiplier, initialCapacity);
+            return powerOfTwo ? policy.withPowerOfTwoCapacities() : policy;
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid growth policy: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "GrowthPolicy(max load " + maxLoadFactor + ", min load " + minLoadFactor + ", x" + growthMultiplier +
+                ", initial capacity " + initialCapacity + (powerOfTwo ? ", powers of two)" : ")");
+    }
+}
@@ -1,5 +1,6 @@
 package phonebook.hashes;
 
+import phonebook.utils.KVPair;
 import phonebook.utils.Probes;
 
 /**
@@ -8,6 +9,9 @@ import phonebook.utils.Probes;
  * deletion. The method names that you have to implement are the namesakes of {@link java.util.Hashtable}
  * (<b>not</b> {@link java.util.HashMap}!). </p>
  *
+ * <p>Every {@link HashTable} can also be iterated over, which yields each of its records exactly once, in no
+ * particular order. Iterators do not support removal.</p>
+ *
  *  <p><b>**** DO NOT EDIT THIS INTERFACE'S DECLARATION! ****** </b></p>
  * *
  * @author <a href="https://github.com/JasonFil">Jason Filippou</a>
@@ -18,7 +22,7 @@ import phonebook.utils.Probes;
  * @see OrderedLinearProbingHashTable
  * @see QuadraticProbingHashTable
  */
-public interface HashTable {
+public interface HashTable extends Iterable<KVPair> {
 
     /**
      * Inserts the pair &lt;key, value&gt; into this. The container should <b>not</b> allow for {@code null}
@@ -82,4 +86,14 @@ public interface HashTable {
      * @return the number of cells in the table.
      */
     int capacity();
+
+    /**
+     * Makes room for expectedSize records, so that the table can hold that many records without being enlarged again.
+     * Bulk loads of a known number of records should call this first, so that the final table is allocated once, instead
+     * of walking up to it one enlargement at a time. If the table is already big enough, this method has no effect.
+     * @param expectedSize The number of records the table should be able to hold.
+     * @throws IllegalArgumentException if expectedSize is negative.
+     * @see GrowthPolicy#capacityFor(int)
+     */
+    void ensureCapacity(int expectedSize);
 }
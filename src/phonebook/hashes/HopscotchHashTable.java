@@ -0,0 +1,390 @@
+package phonebook.hashes;
+
+import phonebook.utils.KVPair;
+import phonebook.utils.PrimeGenerator;
+import phonebook.utils.Probes;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * <p>{@link HopscotchHashTable} is an Openly Addressed {@link HashTable} which resolves collisions with
+ * <b>Hopscotch Hashing</b>. Every key is stored within a fixed-size <em>neighborhood</em> of {@link #NEIGHBORHOOD}
+ * cells starting at its home cell, and every home cell keeps a bitmap (its &quot; hop info &quot;) of which cells
+ * in its neighborhood hold keys that hash to it. A search therefore only looks at the cells flagged in one bitmap,
+ * which puts a hard upper bound on the number of probes of <b>every</b> lookup, no matter how full the table is.</p>
+ *
+ * <p>When an insertion finds its closest empty cell outside its neighborhood, it &quot; hops &quot; that empty cell
+ * backwards by moving keys that can legally move further away from their home cells, until the empty cell is close
+ * enough. If no such sequence of moves exists, the key goes to a small <b>overflow list</b>, which searches only look
+ * at when the neighborhood of their key doesn't have it. The table is only ever enlarged when it's as full as its
+ * {@link GrowthPolicy} allows, and every resize tries to move the overflowing keys back into their neighborhoods.
+ * Enlarging the table whenever a neighborhood is full would not help with keys that share a hash code, which share a
+ * home cell in tables of every size, so more than {@link #NEIGHBORHOOD} of them would make it grow forever.</p>
+ *
+ * <p>Since keys never have to be found by walking a cluster, {@link HopscotchHashTable} can run at much higher load
+ * factors than {@link LinearProbingHashTable}, and deletions simply clear the cell and its bit, without
+ * tombstones.</p>
+ *
+ * @author Isaac Solomon
+ *
+ * @see HashTable
+ * @see LinearProbingHashTable
+ * @see RobinHoodHashTable
+ * @see CollisionResolver
+ */
+public class HopscotchHashTable extends OpenAddressingHashTable {
+
+    /* ********************************************************************/
+    /* ** INSERT ANY PRIVATE METHODS OR FIELDS YOU WANT TO USE HERE: ******/
+    /* ********************************************************************/
+
+    /**
+     * The maximum number of cells, starting from its home cell, that a key can be stored in. It matches the number of
+     * bits in the {@code int} bitmaps we keep for every cell.
+     */
+    public static final int NEIGHBORHOOD = 32;
+
+    private static final GrowthPolicy DEFAULT_GROWTH_POLICY = new GrowthPolicy(.9f, .125f, 2f, 7);
+
+    // hopInfo[i] has its bit d set if, and only if, cell (i + d) % table.length holds a key whose home cell is i.
+    private int[] hopInfo;
+
+    // The keys which could not be brought into their neighborhood, empty unless the hash codes of many keys collide.
+    private List<KVPair> overflow;
+
+    // Tables smaller than NEIGHBORHOOD cells have neighborhoods as big as the table itself.
+    private int neighborhood() {
+        return Math.min(NEIGHBORHOOD, table.length);
+    }
+
+    // Returns the index of key in the table, or -1 if it's not there.
+    private int find(String key, int hashCode, int home) {
+        int bits = hopInfo[home];
+        while (bits != 0) {
+            int offset = Integer.numberOfTrailingZeros(bits);
+            int index = (home + offset) % table.length;
+            if (hashes[index] == hashCode && table[index].getKey().equals(key)) {
+                return index;
+            }
+            bits &= bits - 1;//clear lowest set bit
+        }
+        return -1;
+    }
+
+    // Returns the index of key in the overflow list, or -1 if it's not there.
+    private int findInOverflow(String key, int hashCode) {
+        for (int i = 0; i < overflow.size(); i++) {
+            String other = overflow.get(i).getKey();
+            if (other.hashCode() == hashCode && other.equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // How many cells find() would examine in the neighborhood of home.
+    private int neighborhoodProbes(int home) {
+        return Math.max(1, Integer.bitCount(hopInfo[home]));
+    }
+
+    // Inserts a key that is known not to be in the table, into the overflow list if not into its neighborhood.
+    private void place(KVPair pair, int hashCode) {
+        if (!insert(pair, hashCode)) {
+            overflow.add(pair);
+        }
+    }
+
+    // Inserts a key that is known not to be in the table. Returns false if the key could not be brought into its
+    // neighborhood, in which case the table is left unchanged except for keys that were hopped around.
+    private boolean insert(KVPair pair, int hashCode) {
+        int home = hash(hashCode, table.length);
+        int distance = 0;
+        while (distance < table.length && table[(home + distance) % table.length] != null) {//linear search for an empty cell
+            distance++;
+        }
+        if (distance == table.length) {//full table
+            return false;
+        }
+
+        int h = neighborhood();
+        while (distance >= h) {//hop the empty cell backwards until it's inside our neighborhood
+            int free = (home + distance) % table.length;
+            boolean hopped = false;
+
+            for (int back = h - 1; back > 0 && !hopped; back--) {
+                int candidate = (free - back + table.length) % table.length;
+                int bits = hopInfo[candidate];
+                if (bits != 0) {
+                    int offset = Integer.numberOfTrailingZeros(bits);
+                    if (offset < back) {//a key of candidate lives before the empty cell, so it can move there
+                        int from = (candidate + offset) % table.length;
+                        table[free] = table[from];
+                        hashes[free] = hashes[from];
+                        table[from] = null;
+                        hopInfo[candidate] = (bits & ~(1 << offset)) | (1 << back);
+                        distance -= back - offset;
+                        hopped = true;
+                    }
+                }
+            }
+            if (!hopped) {
+                return false;
+            }
+        }
+
+        table[(home + distance) % table.length] = pair;
+        hashes[(home + distance) % table.length] = hashCode;
+        hopInfo[home] |= 1 << distance;
+        return true;
+    }
+
+    // Moves every key, including the overflowing ones, into a table of the given capacity. Keys which cannot be
+    // placed in their neighborhood overflow.
+    private void resize(int capacity) {
+        KVPair[] oldTable = table;//hold onto old table
+        int[] oldHashes = hashes;
+        List<KVPair> oldOverflow = overflow;
+        allocateTable(capacity);
+        hopInfo = new int[table.length];
+        overflow = new ArrayList<>(0);
+        for (int i = 0; i < oldTable.length; i++) {
+            if (oldTable[i] != null) {
+                place(oldTable[i], oldHashes[i]);
+            }
+        }
+        for (KVPair pair : oldOverflow) {
+            place(pair, pair.getKey().hashCode());
+        }
+    }
+
+    @Override
+    protected int resizeTo(int capacity) {
+        resize(capacity);
+        return 0;
+    }
+
+    /**
+     * Writes the cells of the table, and then the overflowing keys.
+     * @param out Where to write the cells.
+     * @throws IOException if out can't be written to.
+     */
+    @Override
+    protected void writeCells(DataOutput out) throws IOException {
+        super.writeCells(out);
+        out.writeInt(overflow.size());
+        for (KVPair pair : overflow) {
+            out.writeUTF(pair.getKey());
+            out.writeUTF(pair.getValue());
+        }
+    }
+
+    /**
+     * Reads the cells and the overflowing keys back, and rebuilds the neighborhood bitmaps from their cached hash codes.
+     * @param in Where to read the cells from.
+     * @throws IOException if in can't be read from, or if a key is outside of its neighborhood.
+     */
+    @Override
+    protected void readCells(DataInput in) throws IOException {
+        super.readCells(in);
+        int overflowing = in.readInt();
+        if (overflowing < 0 || overflowing > count) {
+            throw new IOException("Invalid number of overflowing keys: " + overflowing);
+        }
+        overflow = new ArrayList<>(overflowing);
+        for (int i = 0; i < overflowing; i++) {
+            overflow.add(new KVPair(in.readUTF(), in.readUTF()));
+        }
+        hopInfo = new int[table.length];
+        for (int i = 0; i < table.length; i++) {
+            if (table[i] != null) {
+                int home = hash(hashes[i], table.length);
+                int distance = (i - home + table.length) % table.length;
+                if (distance >= neighborhood()) {
+                    throw new IOException("Key " + table[i].getKey() + " is outside of its neighborhood.");
+                }
+                hopInfo[home] |= 1 << distance;
+            }
+        }
+    }
+
+    /* ******************************************/
+    /*  IMPLEMENT THE FOLLOWING PUBLIC METHODS: */
+    /* **************************************** */
+
+    /**
+     * Default constructor. Initializes the internal storage with a size equal to the starting value of {@link PrimeGenerator}.
+     * Since deletions in {@link HopscotchHashTable} never leave tombstones, it has no notion of soft deletion.
+     */
+    public HopscotchHashTable() {
+        this(DEFAULT_GROWTH_POLICY);
+    }
+
+    /**
+     * Constructor with a {@link GrowthPolicy}. The default one enlarges the table when it's 90&#37; full.
+     * @param growthPolicy The {@link GrowthPolicy} which decides the initial capacity and when the table resizes.
+     * @throws IllegalArgumentException if growthPolicy is {@code null}, or if its maximum load factor is not smaller than 1.
+     */
+    public HopscotchHashTable(GrowthPolicy growthPolicy) {
+        setGrowthPolicy(growthPolicy, 1f);
+        allocateTable(primeGenerator.getCurrPrime());
+        hopInfo = new int[table.length];
+        overflow = new ArrayList<>(0);
+        softFlag = false;
+        count = 0;
+    }
+
+    /**
+     * Constructor with a capacity hint, for tables whose final size is known in advance: the table starts out large
+     * enough to hold expectedSize records without resizing, and never shrinks below that.
+     * @param expectedSize The number of records the table is expected to hold.
+     * @throws IllegalArgumentException if expectedSize is negative.
+     * @see GrowthPolicy#forExpectedSize(int)
+     */
+    public HopscotchHashTable(int expectedSize) {
+        this(DEFAULT_GROWTH_POLICY.forExpectedSize(expectedSize));
+    }
+
+    /**
+     * Inserts the pair &lt;key, value&gt; into this. If key is already in the table, its value is <b>updated</b>.
+     * Instances of {@link HopscotchHashTable} are enlarged when they are 90&#37; full (or as full as the maximum load
+     * factor of their {@link GrowthPolicy}), and only then. A key which cannot be moved into its neighborhood goes to
+     * the overflow list instead.
+     *
+     * @param key   The record's key.
+     * @param value The record's value.
+     * @return The {@link phonebook.utils.Probes} with the value added and the number of probes it makes.
+     * @throws IllegalArgumentException if either argument is {@code null}.
+     */
+    @Override
+    public Probes put(String key, String value) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException("null argument");
+        }
+
+        int h = key.hashCode();
+        int home = hash(h, table.length);
+        int numProbes = neighborhoodProbes(home);
+        int index = find(key, h, home);
+        if (index != -1) {//already here, just update
+            table[index].setValue(value);
+            return new Probes(value, numProbes);
+        }
+        if (!overflow.isEmpty()) {
+            numProbes += overflow.size();
+            index = findInOverflow(key, h);
+            if (index != -1) {
+                overflow.get(index).setValue(value);
+                return new Probes(value, numProbes);
+            }
+        }
+
+        if ((float) (count + 1) / table.length > growthPolicy.getMaxLoadFactor()) {
+            resize(primeGenerator.getNextPrime());
+        }
+        place(new KVPair(key, value), h);
+        count++;
+        return new Probes(value, numProbes);
+    }
+
+    /**
+     * Get the value associated with key in the {@link HashTable}. Only the cells of the key's neighborhood which hold
+     * keys with the same home cell are examined, so this method never makes more than {@link #NEIGHBORHOOD} probes,
+     * plus one for every key in the overflow list if the neighborhood doesn't have key.
+     *
+     * @param key The key to search for.
+     * @return The {@link phonebook.utils.Probes} with associated value and the number of probe used. If the key is {@code null}, return value {@code null}
+     * and 0 as number of probes; if the key doesn't exist in the database, return {@code null} and the number of probes used.
+     */
+    @Override
+    public Probes get(String key) {
+        if (key == null) {
+            return new Probes(null, 0);
+        }
+
+        int h = key.hashCode();
+        int home = hash(h, table.length);
+        int index = find(key, h, home);
+        if (index != -1) {
+            return new Probes(table[index].getValue(), neighborhoodProbes(home));
+        }
+        index = overflow.isEmpty() ? -1 : findInOverflow(key, h);
+        return new Probes(index == -1 ? null : overflow.get(index).getValue(), neighborhoodProbes(home) + overflow.size());
+    }
+
+    @Override
+    public Probes remove(String key) {
+        if (key == null) {
+            return new Probes(null, 0);
+        }
+
+        int h = key.hashCode();
+        int home = hash(h, table.length);
+        int numProbes = neighborhoodProbes(home);
+        int index = find(key, h, home);
+        String value;
+        if (index != -1) {
+            value = table[index].getValue();
+            table[index] = null;
+            hopInfo[home] &= ~(1 << ((index - home + table.length) % table.length));
+        } else {
+            numProbes += overflow.size();
+            index = overflow.isEmpty() ? -1 : findInOverflow(key, h);
+            if (index == -1) {
+                return new Probes(null, numProbes);
+            }
+            value = overflow.remove(index).getValue();
+        }
+        count--;
+        if (belowMinLoad(count, table.length)) {//mostly empty, shrink the table
+            resize(primeGenerator.getPreviousPrime());
+        }
+        return new Probes(value, numProbes);
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        return key != null && (find(key, key.hashCode(), hash(key)) != -1 || findInOverflow(key, key.hashCode()) != -1);
+    }
+
+    @Override
+    public boolean containsValue(String value) {
+        for (KVPair pair : table) {
+            if (pair != null && pair.getValue().equals(value)) {
+                return true;
+            }
+        }
+        for (KVPair pair : overflow) {
+            if (pair.getValue().equals(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Iterates over the records of the table, and then over the overflowing ones.
+     * @return An {@link Iterator} over the {@link KVPair}s of the table, which does not support removal.
+     */
+    @Override
+    public Iterator<KVPair> iterator() {
+        List<KVPair> pairs = new ArrayList<>(count);
+        super.iterator().forEachRemaining(pairs::add);
+        pairs.addAll(overflow);
+        return pairs.iterator();
+    }
+
+    @Override
+    public int size() {
+        return count;
+    }
+
+    @Override
+    public int capacity() {
+        return table.length;
+    }
+}
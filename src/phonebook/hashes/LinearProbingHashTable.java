@@ -14,6 +14,14 @@ import phonebook.utils.Probes;
  * inserted without collisions. {@link QuadraticProbingHashTable} is a {@link HashTable} that
  * tries to avoid this problem, albeit sacrificing cache locality.</p>
  *
+ * <p>Under hard deletion, the records that follow a deleted one in its cluster are moved back into the gap it leaves
+ * whenever they could not be found past it anymore, so a deletion only costs as much as the rest of its cluster.</p>
+ *
+ * <p>Under soft deletion, insertions take the first tombstone on their probe sequence instead of walking past it.
+ * Tombstones are purged in place, at the same capacity, once they take up more than 1/8 of the cells, or more than
+ * 1/16 of them when an insertion would otherwise enlarge the table. Workloads that keep adding and removing records
+ * therefore neither grow the table nor lengthen its clusters.</p>
+ *
  * @author Isaac Solomon
  *
  * @see HashTable
@@ -28,9 +36,68 @@ public class LinearProbingHashTable extends OpenAddressingHashTable {
     /* ** INSERT ANY PRIVATE METHODS OR FIELDS YOU WANT TO USE HERE: ******/
     /* ********************************************************************/
 
+    // Purges every tombstone of a soft deletion table, without changing its capacity or allocating a new table. We
+    // start right after a cell that was empty all along, which no cluster spans, take every record out in order and
+    // put it back at the first empty cell from its home. That cell is never past the one it came from, and every cell
+    // before it on the way is a record we have already put back, so every search still finds what it looks for.
+    private int compact() {
+        int start = 0;
+        while (table[start] != null) {//there is always one, since the table never fills up
+            start++;
+        }
+        for (int i = 0; i < table.length; i++) {
+            if (table[i] == TOMBSTONE) {
+                table[i] = null;
+            }
+        }
+        tombstones = 0;
+
+        int probes = 0;
+        for (int n = 1; n < table.length; n++) {
+            int i = (start + n) % table.length;
+            if (table[i] != null) {
+                KVPair pair = table[i];
+                table[i] = null;
+                int index = hash(hashes[i], table.length);
+                probes++;
+                while (table[index] != null) {
+                    index = (index + 1) % table.length;
+                    probes++;
+                }
+                table[index] = pair;
+                hashes[index] = hashes[i];
+            }
+        }
+        return probes;
+    }
+
 
 
 
+    // Empties the cell of a hard deletion, and repairs the rest of its cluster in place (Knuth's Algorithm R): every
+    // record after the gap whose home is not between the gap and itself would become unreachable, so it moves back
+    // into the gap, which moves to the cell it left. No record is hashed again, no pair is allocated, and only the
+    // cells up to the end of the cluster are examined. Returns the number of cells examined.
+    private int closeGap(int gap) {
+        table[gap] = null;
+        int probes = 0;
+        int index = gap;
+        while (true) {
+            index = (index + 1) % table.length;
+            probes++;
+            if (table[index] == null) {//end of the cluster
+                return probes;
+            }
+            int home = hash(hashes[index], table.length);
+            boolean reachable = (gap <= index) ? (gap < home && home <= index) : (gap < home || home <= index);
+            if (!reachable) {
+                table[gap] = table[index];
+                hashes[gap] = hashes[index];
+                table[index] = null;
+                gap = index;
+            }
+        }
+    }
 
     /* ******************************************/
     /*  IMPLEMENT THE FOLLOWING PUBLIC METHODS: */
@@ -38,13 +105,51 @@ public class LinearProbingHashTable extends OpenAddressingHashTable {
 
     /**
      * Constructor with soft deletion option. Initializes the internal storage with a size equal to the starting value of  {@link PrimeGenerator}.
-     *
      * @param soft A boolean indicator of whether we want to use soft deletion or not. {@code true} if and only if
-     *             we want soft deletion, {@code false} otherwise.
+     *               we want soft deletion, {@code false} otherwise.
      */
     public LinearProbingHashTable(boolean soft) {
-        primeGenerator = new PrimeGenerator();
-        table = new KVPair[primeGenerator.getCurrPrime()];
+        this(soft, false, GrowthPolicy.DEFAULT);
+    }
+
+    /**
+     * Constructor with soft deletion option and a {@link GrowthPolicy}.
+     * @param soft A boolean indicator of whether we want to use soft deletion or not. {@code true} if and only if
+     *               we want soft deletion, {@code false} otherwise.
+     * @param growthPolicy The {@link GrowthPolicy} which decides the initial capacity and when the table resizes.
+     * @throws IllegalArgumentException if growthPolicy is {@code null}, or if its maximum load factor is too high.
+     */
+    public LinearProbingHashTable(boolean soft, GrowthPolicy growthPolicy) {
+        this(soft, false, growthPolicy);
+    }
+
+    /**
+     * Constructor with soft deletion option and a capacity hint, for tables whose final size is known in advance: the
+     * table starts out large enough to hold expectedSize records without ever resizing, and never shrinks below that.
+     * @param soft A boolean indicator of whether we want to use soft deletion or not. {@code true} if and only if
+     *               we want soft deletion, {@code false} otherwise.
+     * @param expectedSize The number of records the table is expected to hold.
+     * @throws IllegalArgumentException if expectedSize is negative.
+     * @see GrowthPolicy#forExpectedSize(int)
+     */
+    public LinearProbingHashTable(boolean soft, int expectedSize) {
+        this(soft, GrowthPolicy.DEFAULT.forExpectedSize(expectedSize));
+    }
+
+    /**
+     * Constructor with soft deletion and incremental resizing options, and a {@link GrowthPolicy}.
+     * @param soft A boolean indicator of whether we want to use soft deletion or not. {@code true} if and only if
+     *               we want soft deletion, {@code false} otherwise.
+     * @param incremental {@code true} if resizes should move records to the new table a few at a time, over the
+     *             operations that follow them, instead of all at once.
+     * @param growthPolicy The {@link GrowthPolicy} which decides the initial capacity and when the table resizes.
+     * @throws IllegalArgumentException if growthPolicy is {@code null}, or if its maximum load factor is too high.
+     * @see OpenAddressingHashTable#incremental
+     */
+    public LinearProbingHashTable(boolean soft, boolean incremental, GrowthPolicy growthPolicy) {
+        setGrowthPolicy(growthPolicy, 1f);
+        this.incremental = incremental;
+        allocateTable(primeGenerator.getCurrPrime());
 
 
         if (soft == true){
@@ -57,6 +162,19 @@ public class LinearProbingHashTable extends OpenAddressingHashTable {
 
     }
 
+    /**
+     * Constructor with soft deletion and incremental resizing options. Initializes the internal storage with a size equal to the starting value of  {@link PrimeGenerator}.
+     *
+     * @param soft A boolean indicator of whether we want to use soft deletion or not. {@code true} if and only if
+     *             we want soft deletion, {@code false} otherwise.
+     * @param incremental {@code true} if resizes should move records to the new table a few at a time, over the
+     *             operations that follow them, instead of all at once.
+     * @see OpenAddressingHashTable#incremental
+     */
+    public LinearProbingHashTable(boolean soft, boolean incremental) {
+        this(soft, incremental, GrowthPolicy.DEFAULT);
+    }
+
     /**
      * Inserts the pair &lt;key, value&gt; into this. The container should <b>not</b> allow for {@code null}
      * keys and values, and we <b>will</b> test if you are throwing a {@link IllegalArgumentException} from your code
@@ -66,7 +184,7 @@ public class LinearProbingHashTable extends OpenAddressingHashTable {
      * constant time</em>.
      * <p>
      * Instances of {@link LinearProbingHashTable} will follow the writeup's guidelines about how to internally resize
-     * the hash table when the capacity exceeds 50&#37;
+     * the hash table when the capacity exceeds 50&#37;, or the maximum load factor of its {@link GrowthPolicy}
      *
      * @param key   The record's key.
      * @param value The record's value.
@@ -82,32 +200,38 @@ public class LinearProbingHashTable extends OpenAddressingHashTable {
             throw new IllegalArgumentException("null argument");
         }
 
+        if (incremental) {
+            return putIncrementally(key, value);
+        }
+        int h = key.hashCode();
+
         if (softFlag == false) {//hard deletions
 
 
-            if ((float)size()/ table.length >= .5) {//exceeds threshold, increase capacity of table
+            if (exceedsMaxLoad(count, table.length)) {//exceeds threshold, increase capacity of table
                 KVPair[] temp = table;//hold onto old table
+                int[] tempHashes = hashes;
 
-                table = new KVPair[primeGenerator.getNextPrime()];//create bigger table
+                allocateTable(primeGenerator.getNextPrime());//create bigger table
 
-                numProbes += resizeHard(temp, table);//resize and reinsert into bigger table
+                numProbes += resizeHard(temp, tempHashes);//resize and reinsert into bigger table
 
             }
 
-            if (table[hash(key)] == null) {//no collision, cell is empty
-                table[hash(key)] = pair;//simply insert our pair
+            int index = hash(h, table.length);
+
+            if (table[index] == null) {//no collision, cell is empty
+                table[index] = pair;//simply insert our pair
+                hashes[index] = h;
                 numProbes++;
 
             } else {//collision, look for empty cell
                 boolean foundaHome = false;
 
-                int index = hash(key);
-
-
-
                 while (foundaHome == false) {//keep searching
                     if (table[index] == null) {//found cell, insert
                         table[index] = pair;
+                        hashes[index] = h;
                         foundaHome = true;
                         numProbes++;
 
@@ -127,53 +251,36 @@ public class LinearProbingHashTable extends OpenAddressingHashTable {
         }
         else{//soft deletion
 
-            int index = hash(key);
-
-
-            if ((float)sizeWithTombstones()/ table.length >= .5){//resizing
+            if (exceedsMaxLoad(count + tombstones, table.length) && tombstones > table.length / 16){//tombstones are in the way, try without them first
+                numProbes += compact();
+            }
+            if (exceedsMaxLoad(count + tombstones, table.length)){//resizing
                 KVPair[] temp = table;//hold onto old table
+                int[] tempHashes = hashes;
 
-                table = new KVPair[primeGenerator.getNextPrime()];//create bigger table
-
-                numProbes += resizeSoft(temp, table);//resize and reinsert into bigger table
+                allocateTable(primeGenerator.getNextPrime());//create bigger table
 
+                numProbes += resizeSoft(temp, tempHashes);//resize and reinsert into bigger table
+                tombstones = 0;
 
             }
 
+            int index = hash(h, table.length);//after resizing, so that it is the home of key in the new table
 
-
-            if (table[index] == null) {//no collision, cell is empty
-                table[index] = pair;//simply insert our pair
+            while (table[index] != null && table[index] != TOMBSTONE){//the first tombstone on the way is as good as an empty cell
+                index++;//increment index
                 numProbes++;
 
-            }
-            else{
-                boolean foundaHome = false;
-
-                while (foundaHome == false){
-                    if (table[index] == null){//found cell with neither tombstones nor entries present
-                        table[index] = pair;
-                        foundaHome = true;
-                        numProbes++;
-
-                    }
-                    else{
-                        index++;//increment index
-                        numProbes++;
-
-                        if (index >= table.length) {//if index exceeds length, need to wrap around to start
-                            index = 0;//so set to 0
-                        }
-                    }
-
-
-
+                if (index >= table.length) {//if index exceeds length, need to wrap around to start
+                    index = 0;//so set to 0
                 }
-
             }
-
-
-
+            if (table[index] == TOMBSTONE){
+                tombstones--;
+            }
+            table[index] = pair;
+            hashes[index] = h;
+            numProbes++;
 
         }
 
@@ -183,7 +290,14 @@ public class LinearProbingHashTable extends OpenAddressingHashTable {
         return num;
     }
 
-    public int resizeSoft(KVPair[] oldTable, KVPair[] newTable){
+    /**
+     * Moves the records of oldTable into {@link #table}, which is empty, leaving the tombstones behind.
+     * @param oldTable The table before the resize.
+     * @param oldHashes The {@link #hashes} of oldTable, so that no key has to be hashed again.
+     * @return The number of probes made.
+     */
+    public int resizeSoft(KVPair[] oldTable, int[] oldHashes){
+        KVPair[] newTable = table;
         int probes = 0;
 
 
@@ -192,13 +306,14 @@ public class LinearProbingHashTable extends OpenAddressingHashTable {
                     KVPair temp = oldTable[i];
                     probes++;
 
-                    int index = hash(temp.getKey());//starting index
+                    int index = hash(oldHashes[i], newTable.length);//starting index
 
                     boolean foundHome = false;
 
                     while (foundHome == false){
                         if (newTable[index] == null){//found a home
                             newTable[index] = temp;
+                            hashes[index] = oldHashes[i];
                             foundHome = true;
 
                         }
@@ -222,20 +337,28 @@ public class LinearProbingHashTable extends OpenAddressingHashTable {
         return probes;
     }
 
-    public int resizeHard(KVPair[] oldTable, KVPair[] newTable) {
+    /**
+     * Moves the records of oldTable into {@link #table}, which is empty.
+     * @param oldTable The table before the resize.
+     * @param oldHashes The {@link #hashes} of oldTable, so that no key has to be hashed again.
+     * @return The number of probes made.
+     */
+    public int resizeHard(KVPair[] oldTable, int[] oldHashes) {
+        KVPair[] newTable = table;
         int probes = 0;
 
         for (int i = 0; i < oldTable.length; i++) {
             if (oldTable[i] != null) {//something there
                 KVPair temp = oldTable[i];
                 probes++;
-                int index = hash(temp.getKey());//starting index
+                int index = hash(oldHashes[i], newTable.length);//starting index
 
                 boolean foundHome = false;
 
                 while (foundHome == false) {
                     if (newTable[index] == null) {//found empty cell
                         newTable[index] = temp;
+                        hashes[index] = oldHashes[i];
                         foundHome = true;
                     }
                     else {//keep looking
@@ -272,9 +395,14 @@ public class LinearProbingHashTable extends OpenAddressingHashTable {
             return probes;
         }
 
+        if (incremental) {
+            return getIncrementally(key);
+        }
+        int h = key.hashCode();
+
         if (softFlag == false) {//hard deletion
 
-            int index = hash(key);
+            int index = hash(h, table.length);
 
 
 
@@ -282,11 +410,11 @@ public class LinearProbingHashTable extends OpenAddressingHashTable {
 
             while (found == false) {
                 if (table[index] != null) {
-                    if (table[index].getKey() == key) {//found
+                    if (holds(index, key, h)) {//found
                         value = table[index].getValue();
                         numProbes++;
                         break;
-                    } else if ((table[index].getKey() != key) && (table[index].getKey() != null)) {//not found but still in collision chain
+                    } else if (!holds(index, key, h)) {//not found but still in collision chain
                         index++;//increment index
                         numProbes++;
 
@@ -306,19 +434,19 @@ public class LinearProbingHashTable extends OpenAddressingHashTable {
         }
         else{//soft deletion
 
-            int index = hash(key);
+            int index = hash(h, table.length);
 
             boolean found = false;
 
             while (found == false){
                 if (table[index] != null){
-                    if (table[index].getKey() == key){
+                    if (holds(index, key, h)){
                         value = table[index].getValue();
                         numProbes++;
                         break;
 
                     }
-                    else if(table[index] == TOMBSTONE || table[index].getKey() != key){//tombstone or not what we want, keep looking
+                    else if(!holds(index, key, h)){//tombstone or not what we want, keep looking
                         index++;//increment index
                         numProbes++;
 
@@ -365,123 +493,35 @@ public class LinearProbingHashTable extends OpenAddressingHashTable {
             return probes;
         }
 
-        if (softFlag == false) {//hard deletion
-
-
-            int index = hash(key);
-
-            if (table[index] == null){//nothing there
-                Probes probes = new Probes(null, 1);
-                return probes;
+        if (incremental) {
+            return removeIncrementally(key);
+        }
+        int h = key.hashCode();
 
-            }
+        if (softFlag == false) {//hard deletion
 
+            int index = hash(h, table.length);
 
-            if (table[index].getKey() == key) {//found
-                value = table[index].getValue();//grab value
+            while (table[index] != null && !holds(index, key, h)) {//search through collision chain
+                index++;
                 numProbes++;
-                table[index] = null;//set to null
-                count--;
-
-
-                index++;//increment before reinserting cluster
-
-                if(index == table.length){
-                    index = 0;
-                }
-                int count = index;
-
-
-                if (table[index] == null){//no cluster, just increment probes
-                    numProbes++;
 
+                if (index >= table.length) {
+                    index = 0;//reset index
                 }
-                else {
-                    while (table[count] != null) {//reinsert stuff in cluster
-                        numProbes++;
-                        KVPair temp = table[count];
-                        table[count] = null;
-
-                        numProbes += put(temp.getKey(), temp.getValue()).getProbes();
-                        count++;
-
-                        if (count >= table.length) {
-                            count = 0;
-                        }
-
-                    }
-                    numProbes++;
-                }
-
-
             }
-            else {//search through collision chain
-                boolean found = false;
-
-                while (found == false) {
-                    if (table[index] != null) {//something there
-                        if (table[index].getKey() == key) {//found
-                            value = table[index].getValue();
-                            numProbes++;
-                            table[index] = null;
-                            count--;
-
-                            found = true;
-
-                            index++;//increment before reinserting cluster
-
-                            if(index == table.length){
-                                index = 0;
-                            }
-                            int count = index;
-
-
-                            if (table[index] == null){//no cluster, just increment probes
-                                numProbes++;
-
-                            }
-                            else {
-                                while (table[count] != null) {//reinsert stuff in cluster
-                                    KVPair temp = table[count];
-                                    table[count] = null;
-
-                                    numProbes += put(temp.getKey(), temp.getValue()).getProbes();
-                                    count++;
-
-                                    if (count >= table.length) {
-                                        count = 0;
-                                    }
-
-                                }
-                            }
-
-
-
-                        } else if ((table[index].getKey() != key) && (table[index] != null)) {//keep looking
-                            index++;
-                            numProbes++;
-
-                            if (index >= table.length) {
-                                index = 0;//reset index
-                            }
-
-
-                        }
-                    }
-                    else if (table[index] == null) {
-                        numProbes++;
-                        break;
-                    }
-
-
-                }
+            numProbes++;
 
+            if (table[index] != null) {//found
+                value = table[index].getValue();//grab value
+                count--;
+                numProbes += closeGap(index);//repair the rest of the cluster in place
             }
         }
 
         else{//soft deletion
 
-            int index = hash(key);
+            int index = hash(h, table.length);
 
             if (table[index] == null){//nothing there
                 Probes probes = new Probes(null, 1);
@@ -489,10 +529,11 @@ public class LinearProbingHashTable extends OpenAddressingHashTable {
 
             }
 
-            if (table[index].getKey() == key) {//found
+            if (holds(index, key, h)) {//found
                 value = table[index].getValue();//grab value
                 numProbes++;
                 table[index] = TOMBSTONE;//set to tombstone
+                tombstones++;
                 count--;
 
             }
@@ -501,17 +542,18 @@ public class LinearProbingHashTable extends OpenAddressingHashTable {
 
                 while (found == false) {
                     if (table[index] != null) {//something there
-                        if (table[index].getKey() == key) {//found
+                        if (holds(index, key, h)) {//found
                             value = table[index].getValue();
                             numProbes++;
                             table[index] = TOMBSTONE;
+                            tombstones++;
                             count--;
 
                             found = true;
 
 
 
-                        } else if ((table[index].getKey() != key) && (table[index] != null)) {//keep looking
+                        } else if (!holds(index, key, h)) {//keep looking
                             index++;
                             numProbes++;
 
@@ -539,6 +581,12 @@ public class LinearProbingHashTable extends OpenAddressingHashTable {
 
 
 
+        if (value != null && belowMinLoad(count, table.length)) {//mostly empty, shrink the table
+            numProbes += shrinkTable();
+        } else if (value != null && softFlag && tombstones > table.length / 8) {//too many tombstones, purge them in place
+            numProbes += compact();
+        }
+
         Probes probes = new Probes(value, numProbes);
         return probes;
     }
@@ -579,28 +627,11 @@ public class LinearProbingHashTable extends OpenAddressingHashTable {
 
     @Override
     public int size() {
-        int size = 0;
-
-        for (int i = 0; i<table.length; i++){
-            if (table[i] != null && table[i] != TOMBSTONE){
-                size++;
-            }
-        }
-        count = size;
-        return size;
+        return count;//exact, and includes the records still in oldTable during an incremental resize
     }
 
     public int sizeWithTombstones(){
-        int size = 0;
-
-        for (int i = 0; i<table.length; i++){
-            if (table[i] != null){
-                size++;
-            }
-        }
-        count = size;
-        return size;
-
+        return count + tombstones;
     }
 
     @Override
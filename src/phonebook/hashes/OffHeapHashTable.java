@@ -0,0 +1,452 @@
+package phonebook.hashes;
+
+import phonebook.utils.KVPair;
+import phonebook.utils.PrimeGenerator;
+import phonebook.utils.Probes;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * <p>{@link OffHeapHashTable} is a {@link HashTable} which keeps <b>all</b> of its data outside of the Java heap, in
+ * direct {@link ByteBuffer}s. Instead of an array of {@link phonebook.utils.KVPair}s pointing to {@link String}s, it
+ * has two buffers:</p>
+ *
+ * <ol>
+ *     <li>The <b>slots</b>, {@link #SLOT_BYTES} bytes per cell: the offset of the cell's record in the arena (plus one,
+ *     so that 0 means an empty cell), followed by the full hash code of the record's key.</li>
+ *     <li>The <b>arena</b>, where records are appended one after the other. A record is the length of the key in bytes,
+ *     the length of the value in bytes, and then the UTF-8 bytes of the key and of the value.</li>
+ * </ol>
+ *
+ * <p>The heap therefore only holds a couple of objects per table, no matter how many records it has, so the garbage
+ * collector has nothing to trace and the footprint is exactly the bytes of the records plus 8 bytes per cell. Collisions
+ * are resolved with Linear Probing, and the stored hash codes let us skip almost every record whose key doesn't
+ * match without reading it. Deletions shift the rest of the cluster back, so there are no tombstones. Updates and
+ * deletions leave their old records behind in the arena as garbage, which is dropped whenever the table is resized or
+ * when it takes up more than half of the arena. The slots shrink back when the table falls below the minimum load
+ * factor of its {@link GrowthPolicy}, and the arena with them.</p>
+ *
+ * <p>Records are addressed by {@code int} offsets into a single arena, so the live records of a table can take up at
+ * most {@link #MAX_ARENA_BYTES} bytes, and its slots at most as many. An insertion which needs more than that throws an
+ * {@link IllegalStateException}, and leaves the table as it was.</p>
+ *
+ * @author Isaac Solomon
+ *
+ * @see HashTable
+ * @see LinearProbingHashTable
+ */
+public class OffHeapHashTable implements HashTable {
+
+    /* ****************************************************************** */
+    /* ***** PRIVATE FIELDS / METHODS ************************************ */
+    /* ****************************************************************** */
+
+    /**
+     * The number of bytes every cell takes up in the slots buffer.
+     */
+    public static final int SLOT_BYTES = 8;
+
+    /**
+     * The largest arena, and the largest slots buffer, that a table can have: the references in the slots are offsets
+     * in the arena plus one, which have to fit in an {@code int}, like the capacity of a {@link ByteBuffer}.
+     */
+    public static final int MAX_ARENA_BYTES = Integer.MAX_VALUE - 1;
+
+    private static final int HEADER_BYTES = 8;
+    private static final int INITIAL_ARENA_BYTES = 1024;
+
+    private ByteBuffer slots;
+    private ByteBuffer arena;
+    private int capacity;
+    private int arenaEnd;       // Where the next record will be appended.
+    private int garbage;        // Bytes of the arena taken by records that are no longer referenced.
+    private int count;
+    private final PrimeGenerator primeGenerator;
+    private final GrowthPolicy growthPolicy;
+    private final float maxLoadFactor;
+    private final float minLoadFactor;
+    private final int minCapacity;
+
+    // We mask the top bit of the default hashCode() to filter away negative values.
+    private int index(int hash) {
+        return (hash & 0x7fffffff) % capacity;
+    }
+
+    private int ref(int cell) {
+        return slots.getInt(cell * SLOT_BYTES);
+    }
+
+    private int storedHash(int cell) {
+        return slots.getInt(cell * SLOT_BYTES + 4);
+    }
+
+    private void setSlot(int cell, int ref, int hash) {
+        slots.putInt(cell * SLOT_BYTES, ref);
+        slots.putInt(cell * SLOT_BYTES + 4, hash);
+    }
+
+    private int recordBytes(int offset) {
+        return HEADER_BYTES + arena.getInt(offset) + arena.getInt(offset + 4);
+    }
+
+    private boolean keyEquals(int offset, byte[] key) {
+        if (arena.getInt(offset) != key.length) {
+            return false;
+        }
+        for (int i = 0; i < key.length; i++) {
+            if (arena.get(offset + HEADER_BYTES + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String decode(int offset, int skip, int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = arena.get(offset + HEADER_BYTES + skip + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private String value(int offset) {
+        return decode(offset, arena.getInt(offset), arena.getInt(offset + 4));
+    }
+
+    // Returns the cell of key, or -(the empty cell that ended the search) - 1. probes[0] accumulates the probes made.
+    private int find(byte[] key, int hash, int[] probes) {
+        int cell = index(hash);
+        while (true) {
+            probes[0]++;
+            int ref = ref(cell);
+            if (ref == 0) {
+                return -cell - 1;
+            }
+            if (storedHash(cell) == hash && keyEquals(ref - 1, key)) {
+                return cell;
+            }
+            cell = (cell + 1) % capacity;
+        }
+    }
+
+    // The size of an arena with room for needed bytes: the smallest power of two that holds them, but no more than
+    // MAX_ARENA_BYTES. Sizes are computed in long, so that they can't wrap around past 1GB.
+    private static int arenaSize(long needed) {
+        if (needed > MAX_ARENA_BYTES) {
+            throw new IllegalStateException("An off-heap table can't hold more than " + MAX_ARENA_BYTES +
+                    " bytes of records, and this one needs " + needed + ".");
+        }
+        long size = INITIAL_ARENA_BYTES;
+        while (size < needed) {
+            size *= 2;
+        }
+        return (int) Math.min(size, MAX_ARENA_BYTES);
+    }
+
+    // The size of the slots of a table with the given capacity, under the same limit as the arena.
+    private static int slotsSize(int capacity) {
+        long size = (long) capacity * SLOT_BYTES;
+        if (size > MAX_ARENA_BYTES) {
+            throw new IllegalStateException("An off-heap table can't have more than " + MAX_ARENA_BYTES / SLOT_BYTES +
+                    " cells, and this one needs " + capacity + ".");
+        }
+        return (int) size;
+    }
+
+    // Makes sure the arena has room for extra more bytes, growing it if needed.
+    private void reserve(int extra) {
+        long needed = (long) arenaEnd + extra;
+        if (needed <= arena.capacity()) {
+            return;
+        }
+        ByteBuffer newArena = ByteBuffer.allocateDirect(arenaSize(needed));
+        ByteBuffer used = arena.duplicate();
+        used.position(0).limit(arenaEnd);
+        newArena.put(used);
+        arena = newArena;
+    }
+
+    // Appends a record and returns its offset in the arena.
+    private int append(byte[] key, byte[] value) {
+        reserve(HEADER_BYTES + key.length + value.length);
+        int offset = arenaEnd;
+        arena.putInt(offset, key.length);
+        arena.putInt(offset + 4, value.length);
+        for (int i = 0; i < key.length; i++) {
+            arena.put(offset + HEADER_BYTES + i, key[i]);
+        }
+        for (int i = 0; i < value.length; i++) {
+            arena.put(offset + HEADER_BYTES + key.length + i, value[i]);
+        }
+        arenaEnd += HEADER_BYTES + key.length + value.length;
+        return offset;
+    }
+
+    // Rebuilds both buffers: the slots with the given capacity, and the arena without any garbage, with room to grow.
+    private void rebuild(int newCapacity) {
+        int slotsBytes, arenaBytes;
+        try {//both sizes are checked before anything changes
+            slotsBytes = slotsSize(newCapacity);
+            arenaBytes = arenaSize(Math.min((long) arenaEnd - garbage + 1, MAX_ARENA_BYTES));
+        } catch (IllegalStateException e) {
+            primeGenerator.getPrimeAtLeast(capacity);//back to the capacity we keep
+            throw e;
+        }
+        ByteBuffer oldSlots = slots;
+        ByteBuffer oldArena = arena;
+        int oldCapacity = capacity;
+
+        capacity = newCapacity;
+        slots = ByteBuffer.allocateDirect(slotsBytes);
+        arena = ByteBuffer.allocateDirect(arenaBytes);
+        arenaEnd = 0;
+        garbage = 0;
+
+        for (int i = 0; i < oldCapacity; i++) {
+            int ref = oldSlots.getInt(i * SLOT_BYTES);
+            if (ref != 0) {
+                int hash = oldSlots.getInt(i * SLOT_BYTES + 4);
+                int bytes = HEADER_BYTES + oldArena.getInt(ref - 1) + oldArena.getInt(ref + 3);
+                int offset = arenaEnd;
+                for (int b = 0; b < bytes; b++) {
+                    arena.put(offset + b, oldArena.get(ref - 1 + b));
+                }
+                arenaEnd += bytes;
+
+                int cell = index(hash);
+                while (ref(cell) != 0) {
+                    cell = (cell + 1) % capacity;
+                }
+                setSlot(cell, offset + 1, hash);
+            }
+        }
+    }
+
+    private static byte[] encode(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /* **************************************** */
+    /*  PUBLIC METHODS:                         */
+    /* **************************************** */
+
+    /**
+     *  Default constructor. Initializes the slots with a size equal to the default of {@link PrimeGenerator}, and a
+     *  small arena which grows as needed.
+     */
+    public OffHeapHashTable() {
+        this(GrowthPolicy.DEFAULT);
+    }
+
+    /**
+     * Constructor with a {@link GrowthPolicy}.
+     * @param growthPolicy The {@link GrowthPolicy} which decides the initial number of slots and when they are resized.
+     * @throws IllegalArgumentException if growthPolicy is {@code null}, or if its maximum load factor is not smaller than 1.
+     */
+    public OffHeapHashTable(GrowthPolicy growthPolicy) {
+        if (growthPolicy == null) {
+            throw new IllegalArgumentException("null argument");
+        }
+        this.growthPolicy = growthPolicy;
+        maxLoadFactor = growthPolicy.requireMaxLoadFactor(1f).getMaxLoadFactor();
+        minLoadFactor = growthPolicy.getMinLoadFactor();
+        primeGenerator = growthPolicy.newPrimeGenerator();
+        capacity = primeGenerator.getCurrPrime();
+        minCapacity = capacity;
+        slots = ByteBuffer.allocateDirect(slotsSize(capacity));
+        arena = ByteBuffer.allocateDirect(INITIAL_ARENA_BYTES);
+        arenaEnd = 0;
+        garbage = 0;
+        count = 0;
+    }
+
+    /**
+     * Constructor with a capacity hint, for tables whose final size is known in advance: the slots start out large
+     * enough to hold expectedSize records without ever being resized, and are never shrunk below that.
+     * @param expectedSize The number of records the table is expected to hold.
+     * @throws IllegalArgumentException if expectedSize is negative.
+     * @see GrowthPolicy#forExpectedSize(int)
+     */
+    public OffHeapHashTable(int expectedSize) {
+        this(GrowthPolicy.DEFAULT.forExpectedSize(expectedSize));
+    }
+
+    /**
+     * Makes room for expectedSize records, by rebuilding the slots straight to the smallest prime capacity which holds
+     * them under the maximum load factor of its {@link GrowthPolicy}. Since the size of the records is not known in
+     * advance, the arena still grows as they are appended, by doubling.
+     * @param expectedSize The number of records the table should be able to hold.
+     * @throws IllegalArgumentException if expectedSize is negative.
+     */
+    @Override
+    public void ensureCapacity(int expectedSize) {
+        int newCapacity = growthPolicy.capacityFor(expectedSize);
+        if (newCapacity > capacity) {
+            rebuild(primeGenerator.getPrimeAtLeast(newCapacity));
+        }
+    }
+
+    /**
+     * Inserts the pair &lt;key, value&gt; into this. If key is already in the table, its value is <b>updated</b>.
+     * Instances of {@link OffHeapHashTable} are enlarged when they would be more than 50&#37; full, or more than the
+     * maximum load factor of their {@link GrowthPolicy}.
+     *
+     * @param key The record's key.
+     * @param value The record's value.
+     * @return The {@link phonebook.utils.Probes} with the value added and the number of probes it makes.
+     * @throws IllegalArgumentException if either argument is {@code null}.
+     */
+    @Override
+    public Probes put(String key, String value) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException("null argument");
+        }
+
+        byte[] keyBytes = encode(key);
+        byte[] valueBytes = encode(value);
+        int hash = key.hashCode();
+        int[] probes = new int[1];
+        int cell = find(keyBytes, hash, probes);
+        if (cell >= 0) {//already here, append the new record and drop the old one
+            int offset = append(keyBytes, valueBytes);
+            garbage += recordBytes(ref(cell) - 1);
+            setSlot(cell, offset + 1, hash);
+            if (garbage > arenaEnd / 2) {
+                rebuild(capacity);
+            }
+            return new Probes(value, probes[0]);
+        }
+
+        if (count + 1 >= capacity || (float) (count + 1) / capacity > maxLoadFactor) {//exceeds threshold, increase capacity of table
+            rebuild(primeGenerator.getNextPrime());
+            probes[0] = 0;
+            cell = find(keyBytes, hash, probes);
+        }
+        setSlot(-cell - 1, append(keyBytes, valueBytes) + 1, hash);
+        count++;
+        return new Probes(value, probes[0]);
+    }
+
+    @Override
+    public Probes get(String key) {
+        if (key == null) {
+            return new Probes(null, 0);
+        }
+
+        int[] probes = new int[1];
+        int cell = find(encode(key), key.hashCode(), probes);
+        return new Probes(cell < 0 ? null : value(ref(cell) - 1), probes[0]);
+    }
+
+    /**
+     * Removes key from this, if it's there. The rest of the cluster is shifted back into the freed cell, so no
+     * tombstones are ever left behind.
+     *
+     * @param key The key of the record to remove.
+     * @return The {@link phonebook.utils.Probes} with the removed value and the number of probes made.
+     */
+    @Override
+    public Probes remove(String key) {
+        if (key == null) {
+            return new Probes(null, 0);
+        }
+
+        int[] probes = new int[1];
+        int cell = find(encode(key), key.hashCode(), probes);
+        if (cell < 0) {
+            return new Probes(null, probes[0]);
+        }
+
+        String value = value(ref(cell) - 1);
+        garbage += recordBytes(ref(cell) - 1);
+        int hole = cell;
+        int next = (hole + 1) % capacity;
+        while (ref(next) != 0) {//backward shift every record that may not stay behind the hole
+            int home = index(storedHash(next));
+            boolean movable = (hole <= next) ? (home <= hole || home > next) : (home <= hole && home > next);
+            if (movable) {
+                setSlot(hole, ref(next), storedHash(next));
+                hole = next;
+            }
+            next = (next + 1) % capacity;
+        }
+        setSlot(hole, 0, 0);
+        count--;
+        if (capacity > minCapacity && (float) count / capacity < minLoadFactor) {//mostly empty, shrink the slots
+            rebuild(primeGenerator.getPreviousPrime());
+        } else if (garbage > arenaEnd / 2) {
+            rebuild(capacity);
+        }
+        return new Probes(value, probes[0]);
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        return key != null && find(encode(key), key.hashCode(), new int[1]) >= 0;
+    }
+
+    @Override
+    public boolean containsValue(String value) {
+        for (int i = 0; i < capacity; i++) {
+            if (ref(i) != 0 && value(ref(i) - 1).equals(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int size() {
+        return count;
+    }
+
+    @Override
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Iterates over the records of the table, decoding each of them into a new {@link KVPair} on the heap.
+     * @return An {@link Iterator} over the records of the table, which does not support removal.
+     */
+    @Override
+    public Iterator<KVPair> iterator() {
+        return new Iterator<KVPair>() {
+
+            private int next = advance(0);
+
+            private int advance(int from) {
+                while (from < capacity && ref(from) == 0) {
+                    from++;
+                }
+                return from;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next < capacity;
+            }
+
+            @Override
+            public KVPair next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int offset = ref(next) - 1;
+                next = advance(next + 1);
+                return new KVPair(decode(offset, 0, arena.getInt(offset)), value(offset));
+            }
+        };
+    }
+
+    /**
+     * Returns the number of bytes of off-heap memory this table currently holds, for both the slots and the arena.
+     * @return The size of the slots buffer plus the size of the arena, in bytes.
+     */
+    public long offHeapBytes() {
+        return (long) slots.capacity() + arena.capacity();
+    }
+}
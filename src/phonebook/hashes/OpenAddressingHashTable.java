@@ -2,6 +2,13 @@ package phonebook.hashes;
 
 import phonebook.utils.KVPair;
 import phonebook.utils.PrimeGenerator;
+import phonebook.utils.Probes;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 /**
  * <p>{@code OpenAddressingHashTable} is an {@code abstract} class that models <b>openly addressed hash tables</b>, i.e
@@ -71,14 +78,15 @@ public abstract class OpenAddressingHashTable implements HashTable{
 
     /**
      * A hash function that uses the default hash code for {@link String} types, but masks the top
-     * bit to avoid negative hashes.
+     * bit to avoid negative hashes. Tables with {@link #powerOfTwo} capacities {@link #mix(int)} it and mask its low
+     * bits instead.
      * @param key The {@link String} key to find the hash code of.
      * @return The hash code of the parameter {@link String} as produced by {@link String#hashCode()},
      * but with the top bit masked.
      * @see String#hashCode()
      */
     protected int hash(String key) {
-        return (key.hashCode() & 0x7fffffff) % table.length;
+        return hash(key.hashCode(), table.length);
     }
 
     /**
@@ -105,4 +113,556 @@ public abstract class OpenAddressingHashTable implements HashTable{
     /* *** ADD ANY ADDITIONAL PROTECTED FIELDS OR METHODS HERE: ****** */
     /* *************************************************************** */
 
+    /**
+     * The number of cells of {@link #oldTable} that every operation moves into {@link #table} while an incremental
+     * resize is in progress.
+     */
+    public static final int MIGRATION_STEP = 8;
+
+    /**
+     * {@code true} if this table resizes <b>incrementally</b>: instead of moving every record into the new table at
+     * once, the old table is kept around in {@link #oldTable}, and every subsequent operation moves a few of its
+     * records over, until it's empty. Searches look at both tables in the meantime.
+     */
+    protected boolean incremental;
+
+    /**
+     * The table an incremental resize is moving records away from, {@code null} when no such resize is in progress.
+     * Nothing is ever inserted into it, and cells become {@link #TOMBSTONE}s when their record is moved or removed,
+     * so that the probe sequences going through them stay intact.
+     */
+    protected KVPair[] oldTable;
+
+    /**
+     * The {@link #hashes} of {@link #oldTable}.
+     */
+    protected int[] oldHashes;
+
+    /**
+     * The next cell of {@link #oldTable} to be moved into {@link #table}.
+     */
+    protected int migrationIndex;
+
+    /**
+     * The full {@link String#hashCode()} of the key in every cell of {@link #table}, for the tables which keep them.
+     * Whenever a record is put in a cell, its hash code is put in the same cell of this array, so that resizes never
+     * have to look at keys again, and searches can skip the cells whose hash code differs from that of their key
+     * with a single {@code int} comparison, before comparing any {@link String}s. The hash codes of empty cells and
+     * {@link #TOMBSTONE}s mean nothing. {@link SwissHashTable} keeps fingerprints in its control bytes instead, and
+     * leaves it {@code null}. {@link CuckooHashTable} keeps the first of its own two hashes of the key here.
+     * @see #allocateTable(int)
+     * @see #holds(int, String, int)
+     */
+    protected int[] hashes;
+
+    /**
+     * Replaces {@link #table} and {@link #hashes} by empty arrays of the given capacity.
+     * @param capacity The capacity of the new table.
+     */
+    protected void allocateTable(int capacity) {
+        table = new KVPair[capacity];
+        hashes = new int[capacity];
+    }
+
+    /**
+     * Whether the given cell of {@link #table} holds key. Cells with another hash code are ruled out without looking
+     * at their key.
+     * @param index The index of a cell.
+     * @param key The key to look for.
+     * @param hashCode The {@link String#hashCode()} of key.
+     * @return {@code true} if, and only if, the cell holds a record with key as its key.
+     */
+    protected boolean holds(int index, String key, int hashCode) {
+        return hashes[index] == hashCode && table[index] != null && table[index] != TOMBSTONE
+                && table[index].getKey().equals(key);
+    }
+
+    /**
+     * The number of {@link #TOMBSTONE}s in {@link #table}, for the tables which keep track of them.
+     */
+    protected int tombstones;
+
+    /**
+     * The {@link GrowthPolicy} of this table, which decides when it resizes. {@link #primeGenerator} follows it too.
+     */
+    protected GrowthPolicy growthPolicy;
+
+    /**
+     * The capacity this table starts with, which it never shrinks below.
+     */
+    protected int minCapacity;
+
+    /**
+     * {@code true} if the capacities of this table are powers of two, as decided by its {@link GrowthPolicy}. Hash
+     * codes are then reduced with a mask instead of a division, after {@link #mix(int)} has spread their high bits
+     * into the low ones.
+     * @see GrowthPolicy#withPowerOfTwoCapacities()
+     */
+    protected boolean powerOfTwo;
+
+    private int divisor;        // The length that reciprocal was computed for.
+    private long reciprocal;
+
+    /**
+     * Computes h modulo length. For the length of {@link #table}, this takes a {@link PrimeGenerator#fastMod(int, long, int)}
+     * with the reciprocal that {@link #primeGenerator} handed out along with that length, rather than a division. The
+     * reciprocal is picked up again whenever {@link #table} is replaced by one of another length.
+     * @param h A non-negative hash code, or any sum of non-negative {@code int}s, read as an unsigned {@code int}.
+     * @param length The length of a table.
+     * @return h modulo length.
+     */
+    protected int reduce(int h, int length) {
+        if (length != table.length) {//e.g oldTable during an incremental resize
+            return Integer.remainderUnsigned(h, length);
+        }
+        if (length != divisor) {
+            reciprocal = (primeGenerator != null && primeGenerator.getCurrPrime() == length)
+                    ? primeGenerator.getCurrReciprocal() : PrimeGenerator.reciprocal(length);
+            divisor = length;
+        }
+        return PrimeGenerator.fastMod(h, reciprocal, length);
+    }
+
+    /**
+     * The finalizer of MurmurHash3, which makes every bit of the result depend on every bit of h, so that the low bits
+     * of {@link String#hashCode()} alone are enough to index a table with {@link #powerOfTwo} capacities.
+     * @param h A hash code.
+     * @return The scrambled hash code.
+     */
+    protected static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    /**
+     * Sets {@link #growthPolicy}, and a {@link #primeGenerator} which starts from its initial capacity and steps by
+     * its growth multiplier. Constructors call this before they allocate {@link #table}.
+     * @param policy The {@link GrowthPolicy}.
+     * @param maxLoadLimit The largest maximum load factor that the table supports.
+     * @throws IllegalArgumentException if policy is {@code null}, or if its maximum load factor is too high.
+     */
+    protected void setGrowthPolicy(GrowthPolicy policy, float maxLoadLimit) {
+        if (policy == null) {
+            throw new IllegalArgumentException("null argument");
+        }
+        growthPolicy = policy.requireMaxLoadFactor(maxLoadLimit);
+        primeGenerator = policy.newPrimeGenerator();
+        powerOfTwo = policy.hasPowerOfTwoCapacities();
+        minCapacity = primeGenerator.getCurrPrime();
+    }
+
+    /**
+     * Whether a table of the given length should be enlarged before it holds load cells.
+     * @param load The number of records, and of any other cells that a search can't stop at.
+     * @param length The length of the table.
+     * @return {@code true} if load reaches the maximum load factor of {@link #growthPolicy}, or if one more record
+     * would leave no empty cell in the table.
+     */
+    protected boolean exceedsMaxLoad(int load, int length) {
+        return load + 1 >= length || (float) load / length >= growthPolicy.getMaxLoadFactor();
+    }
+
+    /**
+     * Whether a table of the given length should shrink after a deletion. Tables under soft deletion never shrink,
+     * since that would purge the tombstones they are meant to keep.
+     * @param load The number of records.
+     * @param length The length of the table.
+     * @return {@code true} if the table is under hard deletion, larger than {@link #minCapacity}, and load is below the
+     * minimum load factor of {@link #growthPolicy}.
+     */
+    protected boolean belowMinLoad(int load, int length) {
+        return !softFlag && length > minCapacity && (float) load / length < growthPolicy.getMinLoadFactor();
+    }
+
+    /**
+     * Moves every record into a table of the given capacity, through {@link #reinsert(KVPair, int)}, or starts an
+     * incremental resize into it if the table is {@link #incremental}. Tombstones are dropped along the way. Tables
+     * which place their records some other way override this.
+     * @param capacity The capacity of the new table, which {@link #primeGenerator} has to be on already.
+     * @return The number of probes made.
+     */
+    protected int resizeTo(int capacity) {
+        if (incremental) {
+            return startMigration(capacity);
+        }
+        KVPair[] old = table;//hold onto old table
+        int[] oldCodes = hashes;
+        allocateTable(capacity);
+        tombstones = 0;
+        int probes = 0;
+        for (int i = 0; i < old.length; i++) {
+            if (old[i] != null && old[i] != TOMBSTONE) {
+                probes += reinsert(old[i], oldCodes[i]);
+            }
+        }
+        return probes;
+    }
+
+    /**
+     * Moves every record into a table of the previous prime capacity.
+     * @return The number of probes made.
+     * @see #resizeTo(int)
+     * @see PrimeGenerator#getPreviousPrime()
+     */
+    protected int shrinkTable() {
+        return resizeTo(primeGenerator.getPreviousPrime());
+    }
+
+    /**
+     * Makes room for expectedSize records, by resizing the table straight to the smallest prime capacity which holds
+     * them under the maximum load factor of {@link #growthPolicy}.
+     * @param expectedSize The number of records the table should be able to hold.
+     * @throws IllegalArgumentException if expectedSize is negative.
+     * @see #resizeTo(int)
+     */
+    @Override
+    public void ensureCapacity(int expectedSize) {
+        int capacity = growthPolicy.capacityFor(expectedSize);
+        if (capacity > table.length) {
+            resizeTo(primeGenerator.getPrimeAtLeast(capacity));
+        }
+    }
+
+    /**
+     * The same as {@link #hash(String)}, but for a table of the given length, which doesn't have to be {@link #table}.
+     * @param key The {@link String} key to find the hash code of.
+     * @param length The length of the table.
+     * @return The hash code of key as produced by {@link String#hashCode()}, with the top bit masked, modulo length.
+     */
+    protected int hash(String key, int length) {
+        return hash(key.hashCode(), length);
+    }
+
+    /**
+     * The same as {@link #hash(String, int)}, but from a hash code that was computed already, e.g one of {@link #hashes}.
+     * @param hashCode The {@link String#hashCode()} of a key.
+     * @param length The length of the table.
+     * @return The home cell of the key in a table of the given length.
+     */
+    protected int hash(int hashCode, int length) {
+        if (powerOfTwo) {
+            return mix(hashCode) & (length - 1);
+        }
+        return reduce(hashCode & 0x7fffffff, length);
+    }
+
+    /**
+     * The cell that the attempt-th probe for a key lands on, in a table of the given length. The default is linear
+     * probing; tables with a different probe sequence override it.
+     * @param hashCode The {@link String#hashCode()} of the key.
+     * @param attempt How many probes were made before this one.
+     * @param length The length of the table.
+     * @return The index of the cell to probe.
+     */
+    protected int probe(int hashCode, int attempt, int length) {
+        return (int) ((hash(hashCode, length) + (long) attempt) % length);
+    }
+
+    /**
+     * Puts a record which is known not to be in {@link #table} into the first empty cell of its probe sequence.
+     * @param pair The record.
+     * @param hashCode The {@link String#hashCode()} of its key.
+     * @return The number of probes made.
+     */
+    protected int reinsert(KVPair pair, int hashCode) {
+        for (int attempt = 0; attempt < table.length; attempt++) {
+            int index = probe(hashCode, attempt, table.length);
+            if (table[index] == null) {
+                table[index] = pair;
+                hashes[index] = hashCode;
+                return attempt + 1;
+            }
+        }
+        throw new IllegalStateException("No empty cell in the probe sequence of " + pair.getKey() + ".");
+    }
+
+    /**
+     * Searches for key in t, following its probe sequence past {@link #TOMBSTONE}s.
+     * @param t The table to search, either {@link #table} or {@link #oldTable}.
+     * @param codes The {@link #hashes} of t.
+     * @param key The key to search for.
+     * @param hashCode The {@link String#hashCode()} of key.
+     * @param probes probes[0] is incremented for every probe made.
+     * @return The index of key in t, -1 if it's not there.
+     */
+    protected int locate(KVPair[] t, int[] codes, String key, int hashCode, int[] probes) {
+        for (int attempt = 0; attempt < t.length; attempt++) {
+            probes[0]++;
+            int index = probe(hashCode, attempt, t.length);
+            if (t[index] == null) {
+                return -1;
+            }
+            if (codes[index] == hashCode && t[index] != TOMBSTONE && t[index].getKey().equals(key)) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Moves up to cells cells of {@link #oldTable} into {@link #table}, and drops {@link #oldTable} once it's empty.
+     * @param cells The maximum number of cells to move.
+     * @return The number of probes made.
+     */
+    protected int migrate(int cells) {
+        int probes = 0;
+        while (oldTable != null && cells-- > 0) {
+            KVPair pair = oldTable[migrationIndex];
+            if (pair != null && pair != TOMBSTONE) {
+                oldTable[migrationIndex] = TOMBSTONE;
+                probes += reinsert(pair, oldHashes[migrationIndex]);
+            }
+            if (++migrationIndex == oldTable.length) {
+                oldTable = null;
+                oldHashes = null;
+            }
+        }
+        return probes;
+    }
+
+    /**
+     * Starts an incremental resize into a new, empty table. Any resize still in progress is finished first.
+     * @param capacity The capacity of the new table.
+     * @return The number of probes made.
+     */
+    protected int startMigration(int capacity) {
+        int probes = migrate(Integer.MAX_VALUE);
+        oldTable = table;
+        oldHashes = hashes;
+        allocateTable(capacity);
+        migrationIndex = 0;
+        tombstones = 0;
+        return probes;
+    }
+
+    /**
+     * {@link HashTable#put(String, String)} for incremental tables. The load of the table counts the records still in
+     * {@link #oldTable} and the {@link #TOMBSTONE}s, and a new resize starts when it reaches the maximum load factor.
+     * @param key The record's key, not {@code null}.
+     * @param value The record's value, not {@code null}.
+     * @return The {@link phonebook.utils.Probes} with the value added and the number of probes it makes.
+     */
+    protected Probes putIncrementally(String key, String value) {
+        int[] probes = {migrate(MIGRATION_STEP)};
+        int hashCode = key.hashCode();
+        int index = locate(table, hashes, key, hashCode, probes);
+        if (index != -1) {//already here, just update
+            table[index].setValue(value);
+            return new Probes(value, probes[0]);
+        }
+        if (oldTable != null && (index = locate(oldTable, oldHashes, key, hashCode, probes)) != -1) {//it will carry its new value over
+            oldTable[index].setValue(value);
+            return new Probes(value, probes[0]);
+        }
+
+        if (exceedsMaxLoad(count + tombstones, table.length)) {
+            probes[0] += startMigration(primeGenerator.getNextPrime());
+        }
+        probes[0] += reinsert(new KVPair(key, value), hashCode);
+        count++;
+        return new Probes(value, probes[0]);
+    }
+
+    /**
+     * {@link HashTable#get(String)} for incremental tables: searches {@link #table}, and then {@link #oldTable}.
+     * @param key The key to search for, not {@code null}.
+     * @return The {@link phonebook.utils.Probes} with associated value and the number of probes made.
+     */
+    protected Probes getIncrementally(String key) {
+        int[] probes = {migrate(MIGRATION_STEP)};
+        int hashCode = key.hashCode();
+        int index = locate(table, hashes, key, hashCode, probes);
+        if (index != -1) {
+            return new Probes(table[index].getValue(), probes[0]);
+        }
+        if (oldTable != null && (index = locate(oldTable, oldHashes, key, hashCode, probes)) != -1) {
+            return new Probes(oldTable[index].getValue(), probes[0]);
+        }
+        return new Probes(null, probes[0]);
+    }
+
+    /**
+     * {@link HashTable#remove(String)} for incremental tables. Removed records always leave a {@link #TOMBSTONE}
+     * behind. Under hard deletion, once they take up more than 1/8 of the table, they are purged by an incremental
+     * resize to the same capacity, or to the previous prime capacity if the table is below its minimum load factor.
+     * @param key The key to remove, not {@code null}.
+     * @return The {@link phonebook.utils.Probes} with the removed value and the number of probes made.
+     */
+    protected Probes removeIncrementally(String key) {
+        int[] probes = {migrate(MIGRATION_STEP)};
+        String value = null;
+        int hashCode = key.hashCode();
+        int index = locate(table, hashes, key, hashCode, probes);
+        if (index != -1) {
+            value = table[index].getValue();
+            table[index] = TOMBSTONE;
+            tombstones++;
+            count--;
+        } else if (oldTable != null && (index = locate(oldTable, oldHashes, key, hashCode, probes)) != -1) {
+            value = oldTable[index].getValue();
+            oldTable[index] = TOMBSTONE;
+            count--;
+        }
+        if (value != null) {
+            if (belowMinLoad(count, table.length)) {
+                probes[0] += shrinkTable();
+            } else if (!softFlag && tombstones > table.length / 8) {
+                probes[0] += startMigration(table.length);
+            }
+        }
+        return new Probes(value, probes[0]);
+    }
+
+    /**
+     * A second hash function for tables that need two addresses per key, like {@link CuckooHashTable}.
+     * It scrambles the bits of {@link String#hashCode()} with the MurmurHash3 finalizer before reducing them,
+     * so that keys which collide under {@link #hash(String)} are very unlikely to collide under this one too.
+     * @param key The {@link String} key to find the secondary hash code of.
+     * @return A non-negative index into the table, computed independently of {@link #hash(String)}.
+     */
+    protected int secondaryHash(String key) {
+        return secondaryHash(key.hashCode());
+    }
+
+    /**
+     * The same as {@link #secondaryHash(String)}, but from a hash code that was computed already.
+     * @param hashCode The {@link String#hashCode()} of a key.
+     * @return A non-negative index into the table, computed independently of {@link #hash(String)}.
+     */
+    protected int secondaryHash(int hashCode) {
+        int h = mix(hashCode ^ 0x9e3779b9);//seeded, so that an empty String does not hash to 0
+        return powerOfTwo ? h & (table.length - 1) : reduce(h & 0x7fffffff, table.length);
+    }
+
+    // Tags of the cells in a snapshot.
+    private static final byte EMPTY_CELL = 0, TOMBSTONE_CELL = 1, RECORD_CELL = 2;
+
+    /**
+     * Writes the cells of {@link #table} as they are, for {@link #readCells(DataInput)}: its capacity, {@link #count}
+     * and {@link #tombstones}, and then every cell in order, with the hash code, key and value of its record. Any
+     * incremental resize in progress is finished first. Tables which keep more than {@link #table} and {@link #hashes}
+     * override this, and {@link #readCells(DataInput)} along with it.
+     * @param out Where to write the cells.
+     * @throws IOException if out can't be written to.
+     * @see TableSnapshots
+     */
+    protected void writeCells(DataOutput out) throws IOException {
+        migrate(Integer.MAX_VALUE);
+        out.writeInt(table.length);
+        out.writeInt(count);
+        out.writeInt(tombstones);
+        for (int i = 0; i < table.length; i++) {
+            if (table[i] == null) {
+                out.writeByte(EMPTY_CELL);
+            } else if (table[i] == TOMBSTONE) {
+                out.writeByte(TOMBSTONE_CELL);
+            } else {
+                out.writeByte(RECORD_CELL);
+                out.writeInt(hashes[i]);
+                out.writeUTF(table[i].getKey());
+                out.writeUTF(table[i].getValue());
+            }
+        }
+    }
+
+    /**
+     * Replaces the contents of this table by the cells written by {@link #writeCells(DataOutput)}, straight into a
+     * table of the same capacity, so that no record is ever hashed or probed for. The table has to have the same
+     * {@link GrowthPolicy} as the one which wrote them.
+     * @param in Where to read the cells from.
+     * @throws IOException if in can't be read from, or holds a capacity that this table can't have.
+     * @see TableSnapshots
+     */
+    protected void readCells(DataInput in) throws IOException {
+        allocateTable(readCapacity(in));
+        count = readCount(in, table.length);
+        tombstones = readCount(in, table.length);
+        for (int i = 0; i < table.length; i++) {
+            byte cell = in.readByte();
+            if (cell == TOMBSTONE_CELL) {
+                table[i] = TOMBSTONE;
+            } else if (cell == RECORD_CELL) {
+                hashes[i] = in.readInt();
+                table[i] = new KVPair(in.readUTF(), in.readUTF());
+            } else if (cell != EMPTY_CELL) {
+                throw new IOException("Invalid cell: " + cell);
+            }
+        }
+    }
+
+    /**
+     * Reads the capacity of a table, and puts {@link #primeGenerator} on it, so that the table resizes from there.
+     * @param in Where to read the capacity from.
+     * @return The capacity.
+     * @throws IOException if in can't be read from, or if the capacity is not one that {@link #primeGenerator} hands out.
+     */
+    protected int readCapacity(DataInput in) throws IOException {
+        int capacity = in.readInt();
+        if (capacity < 2 || capacity > PrimeGenerator.MAX_PRIME || primeGenerator.getPrimeAtLeast(capacity) != capacity) {
+            throw new IOException("Invalid capacity: " + capacity);
+        }
+        return capacity;
+    }
+
+    /**
+     * Reads a number of cells, e.g {@link #count}.
+     * @param in Where to read it from.
+     * @param capacity The capacity of the table.
+     * @return The number of cells.
+     * @throws IOException if in can't be read from, or if the number is negative or larger than capacity.
+     */
+    protected static int readCount(DataInput in, int capacity) throws IOException {
+        int cells = in.readInt();
+        if (cells < 0 || cells > capacity) {
+            throw new IOException("Invalid number of cells: " + cells);
+        }
+        return cells;
+    }
+
+    /**
+     * Iterates over every record of the table, skipping empty cells and tombstones. During an incremental resize, the
+     * records still in {@link #oldTable} come last. Tables which store records elsewhere have to override this.
+     * @return An {@link Iterator} over the {@link KVPair}s of the table, which does not support removal.
+     */
+    @Override
+    public Iterator<KVPair> iterator() {
+        return new Iterator<KVPair>() {
+
+            private KVPair[] current = table;
+            private int next = advance(0);
+
+            private int advance(int from) {
+                while (true) {
+                    while (from < current.length && (current[from] == null || current[from] == TOMBSTONE)) {
+                        from++;
+                    }
+                    if (from < current.length || current != table || oldTable == null) {
+                        return from;
+                    }
+                    current = oldTable;
+                    from = 0;
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next < current.length;
+            }
+
+            @Override
+            public KVPair next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                KVPair retVal = current[next];
+                next = advance(next + 1);
+                return retVal;
+            }
+        };
+    }
+
 }
@@ -28,6 +28,28 @@ public class OrderedLinearProbingHashTable extends OpenAddressingHashTable {
     /* ** INSERT ANY PRIVATE METHODS OR FIELDS YOU WANT TO USE HERE: ******/
     /* ********************************************************************/
 
+    // Keeps the chains of incremental resizes in order too. Like put(), it ignores tombstones while reordering.
+    @Override
+    protected int reinsert(KVPair pair, int hashCode) {
+        int index = hash(hashCode, table.length);
+        int probes = 1;
+        while (table[index] != null) {
+            if (table[index] != TOMBSTONE && pair.getKey().compareTo(table[index].getKey()) < 0) {
+                KVPair temp = table[index];//the smaller key takes the cell, the bigger one moves on
+                int tempHash = hashes[index];
+                table[index] = pair;
+                hashes[index] = hashCode;
+                pair = temp;
+                hashCode = tempHash;
+            }
+            index = (index + 1) % table.length;
+            probes++;
+        }
+        table[index] = pair;
+        hashes[index] = hashCode;
+        return probes;
+    }
+
     /* ******************************************/
     /*  IMPLEMENT THE FOLLOWING PUBLIC METHODS: */
     /* **************************************** */
@@ -37,10 +59,49 @@ public class OrderedLinearProbingHashTable extends OpenAddressingHashTable {
      * @param soft A boolean indicator of whether we want to use soft deletion or not. {@code true} if and only if
      *               we want soft deletion, {@code false} otherwise.
      */
-    public OrderedLinearProbingHashTable(boolean soft){
-        primeGenerator = new PrimeGenerator();
+    public OrderedLinearProbingHashTable(boolean soft) {
+        this(soft, false, GrowthPolicy.DEFAULT);
+    }
+
+    /**
+     * Constructor with soft deletion option and a {@link GrowthPolicy}.
+     * @param soft A boolean indicator of whether we want to use soft deletion or not. {@code true} if and only if
+     *               we want soft deletion, {@code false} otherwise.
+     * @param growthPolicy The {@link GrowthPolicy} which decides the initial capacity and when the table resizes.
+     * @throws IllegalArgumentException if growthPolicy is {@code null}, or if its maximum load factor is too high.
+     */
+    public OrderedLinearProbingHashTable(boolean soft, GrowthPolicy growthPolicy) {
+        this(soft, false, growthPolicy);
+    }
+
+    /**
+     * Constructor with soft deletion option and a capacity hint, for tables whose final size is known in advance: the
+     * table starts out large enough to hold expectedSize records without ever resizing, and never shrinks below that.
+     * @param soft A boolean indicator of whether we want to use soft deletion or not. {@code true} if and only if
+     *               we want soft deletion, {@code false} otherwise.
+     * @param expectedSize The number of records the table is expected to hold.
+     * @throws IllegalArgumentException if expectedSize is negative.
+     * @see GrowthPolicy#forExpectedSize(int)
+     */
+    public OrderedLinearProbingHashTable(boolean soft, int expectedSize) {
+        this(soft, GrowthPolicy.DEFAULT.forExpectedSize(expectedSize));
+    }
+
+    /**
+     * Constructor with soft deletion and incremental resizing options, and a {@link GrowthPolicy}.
+     * @param soft A boolean indicator of whether we want to use soft deletion or not. {@code true} if and only if
+     *               we want soft deletion, {@code false} otherwise.
+     * @param incremental {@code true} if resizes should move records to the new table a few at a time, over the
+     *             operations that follow them, instead of all at once.
+     * @param growthPolicy The {@link GrowthPolicy} which decides the initial capacity and when the table resizes.
+     * @throws IllegalArgumentException if growthPolicy is {@code null}, or if its maximum load factor is too high.
+     * @see OpenAddressingHashTable#incremental
+     */
+    public OrderedLinearProbingHashTable(boolean soft, boolean incremental, GrowthPolicy growthPolicy) {
+        setGrowthPolicy(growthPolicy, 1f);
+        this.incremental = incremental;
 
-        table = new KVPair[primeGenerator.getCurrPrime()];
+        allocateTable(primeGenerator.getCurrPrime());
 
 
         if (soft == true){
@@ -52,6 +113,19 @@ public class OrderedLinearProbingHashTable extends OpenAddressingHashTable {
         count = 0;
     }
 
+    /**
+     * Constructor with soft deletion and incremental resizing options. Initializes the internal storage with a size equal to the starting value of  {@link PrimeGenerator}.
+     *
+     * @param soft A boolean indicator of whether we want to use soft deletion or not. {@code true} if and only if
+     *             we want soft deletion, {@code false} otherwise.
+     * @param incremental {@code true} if resizes should move records to the new table a few at a time, over the
+     *             operations that follow them, instead of all at once.
+     * @see OpenAddressingHashTable#incremental
+     */
+    public OrderedLinearProbingHashTable(boolean soft, boolean incremental) {
+        this(soft, incremental, GrowthPolicy.DEFAULT);
+    }
+
 
 
     /**
@@ -67,7 +141,7 @@ public class OrderedLinearProbingHashTable extends OpenAddressingHashTable {
      * the tombstone during the reordering of the keys in the chain. We will have some example in the writeup.
      *
      * Instances of {@link OrderedLinearProbingHashTable} will follow the writeup's guidelines about how to internally resize
-     * the hash table when the capacity exceeds 50&#37;
+     * the hash table when the capacity exceeds 50&#37;, or the maximum load factor of its {@link GrowthPolicy}
      * @param key The record's key.
      * @param value The record's value.
      * @throws IllegalArgumentException if either argument is {@code null}.
@@ -83,31 +157,40 @@ public class OrderedLinearProbingHashTable extends OpenAddressingHashTable {
             throw new IllegalArgumentException("null argument");
         }
 
+        if (incremental) {
+            return putIncrementally(key, value);
+        }
+        int h = key.hashCode();
+
         if (softFlag == false){//hard deletions
 
-            if ((float) size()/ table.length >= .5){//resizing time
+            if (exceedsMaxLoad(count, table.length)){//resizing time
                 KVPair[] temp = table;//hold onto old table
+                int[] tempHashes = hashes;
 
-                table = new KVPair[primeGenerator.getNextPrime()];//create bigger table
+                allocateTable(primeGenerator.getNextPrime());//create bigger table
 
-                numProbes += resize(temp, table);//resize and reinsert into bigger table
+                numProbes += resize(temp, tempHashes);//resize and reinsert into bigger table
             }
 
+            int index = hash(h, table.length);
 
-            if (table[hash(key)] == null) {//no collision, cell is empty
-                table[hash(key)] = pair;//simply insert our pair
+            if (table[index] == null) {//no collision, cell is empty
+                table[index] = pair;//simply insert our pair
+                hashes[index] = h;
                 numProbes++;
 
             }
 
             else{//collision
-                int index = hash(key);
                 KVPair currPair = pair;//hold onto current pair
+                int currHash = h;
                 boolean foundaHome = false;
 
                 while (foundaHome == false) {
                     if (table[index] == null) {//found cell, insert
                         table[index] = currPair;
+                        hashes[index] = currHash;
                         foundaHome = true;
                         numProbes++;
 
@@ -117,8 +200,11 @@ public class OrderedLinearProbingHashTable extends OpenAddressingHashTable {
 
                         if (currPair.getKey().compareTo(table[index].getKey()) < 0) {//current key is less than key at this index
                             KVPair temp = table[index];//hold onto what was at this index
+                            int tempHash = hashes[index];
                             table[index] = currPair;//set index to original pair
+                            hashes[index] = currHash;
                             currPair = temp; //set currPair to what was at this index
+                            currHash = tempHash;
 
                         }
                         index++;
@@ -139,29 +225,34 @@ public class OrderedLinearProbingHashTable extends OpenAddressingHashTable {
 
         else{//soft deletions
 
-            if ((float) sizeWithTombstones()/ table.length >= .5){//resizing time
+            if (exceedsMaxLoad(count + tombstones, table.length)){//resizing time
                 KVPair[] temp = table;//hold onto old table
+                int[] tempHashes = hashes;
 
-                table = new KVPair[primeGenerator.getNextPrime()];//create bigger table
+                allocateTable(primeGenerator.getNextPrime());//create bigger table
 
-                numProbes += resize(temp, table);//resize and reinsert into bigger table
+                numProbes += resize(temp, tempHashes);//resize and reinsert into bigger table
+                tombstones = 0;
             }
 
+            int index = hash(h, table.length);
 
-            if (table[hash(key)] == null) {//no collision, cell is empty
-                table[hash(key)] = pair;//simply insert our pair
+            if (table[index] == null) {//no collision, cell is empty
+                table[index] = pair;//simply insert our pair
+                hashes[index] = h;
                 numProbes++;
 
             }
 
             else{//collision
-                int index = hash(key);
                 KVPair currPair = pair;//hold onto current pair
+                int currHash = h;
                 boolean foundaHome = false;
 
                 while (foundaHome == false){
                     if (table[index] == null) {//found cell, insert
                         table[index] = currPair;
+                        hashes[index] = currHash;
                         foundaHome = true;
                         numProbes++;
 
@@ -179,8 +270,11 @@ public class OrderedLinearProbingHashTable extends OpenAddressingHashTable {
                     else{//not empty, not tombstone
                         if (currPair.getKey().compareTo(table[index].getKey()) < 0) {//current key is less than key at this index
                             KVPair temp = table[index];//hold onto what was at this index
+                            int tempHash = hashes[index];
                             table[index] = currPair;//set index to original pair
+                            hashes[index] = currHash;
                             currPair = temp; //set currPair to what was at this index
+                            currHash = tempHash;
 
                         }
                         index++;
@@ -202,32 +296,43 @@ public class OrderedLinearProbingHashTable extends OpenAddressingHashTable {
         }
 
 
+        count++;
         Probes num = new Probes(value, numProbes);
         return num;
     }
 
 
-    public int resize(KVPair[] oldTable, KVPair[] newTable) {
+    /**
+     * Moves the records of oldTable into {@link #table}, which is empty, keeping every chain in order.
+     * @param oldTable The table before the resize.
+     * @param oldHashes The {@link #hashes} of oldTable, so that no key has to be hashed again.
+     * @return The number of probes made.
+     */
+    public int resize(KVPair[] oldTable, int[] oldHashes) {
+        KVPair[] newTable = table;
         int probes = 0;
 
         for (int i = 0; i < oldTable.length; i++) {
             if (oldTable[i] != null && oldTable[i] != TOMBSTONE) {//something there
                 KVPair temp = oldTable[i];
 
-                int index = hash(temp.getKey());//starting index
+                int index = hash(oldHashes[i], newTable.length);//starting index
 
                 if (newTable[index] == null) {//no collision, cell is empty
                     newTable[index] = temp;//simply insert our pair
+                    hashes[index] = oldHashes[i];
                     probes++;
 
                 }
                 else{
                     KVPair currPair = temp;//hold onto current pair
+                    int currHash = oldHashes[i];
                     boolean foundaHome = false;
 
                     while (foundaHome == false){
                         if (newTable[index] == null) {//found cell, insert
                             newTable[index] = currPair;
+                            hashes[index] = currHash;
                             foundaHome = true;
                             probes++;
 
@@ -235,9 +340,12 @@ public class OrderedLinearProbingHashTable extends OpenAddressingHashTable {
                         }
                         else{
                             if (currPair.getKey().compareTo(newTable[index].getKey()) < 0) {//current key is less than key at this index
-                                KVPair tempy = table[index];//hold onto what was at this index
-                                table[index] = currPair;//set index to original pair
+                                KVPair tempy = newTable[index];//hold onto what was at this index
+                                int tempyHash = hashes[index];
+                                newTable[index] = currPair;//set index to original pair
+                                hashes[index] = currHash;
                                 currPair = tempy; //set currPair to what was at this index
+                                currHash = tempyHash;
 
                             }
                             index++;
@@ -274,15 +382,20 @@ public class OrderedLinearProbingHashTable extends OpenAddressingHashTable {
             return probes;
         }
 
+        if (incremental) {
+            return getIncrementally(key);
+        }
+        int h = key.hashCode();
+
         if (softFlag == false){//hard deletions
 
-            int index = hash(key);
+            int index = hash(h, table.length);
 
             boolean found = false;
 
             while(found == false){
                 if (table[index] != null) {
-                    if (table[index].getKey() == key) {//found
+                    if (holds(index, key, h)) {//found
                         value = table[index].getValue();
                         numProbes++;
                         break;
@@ -314,13 +427,13 @@ public class OrderedLinearProbingHashTable extends OpenAddressingHashTable {
 
         else{//soft bois
 
-            int index = hash(key);
+            int index = hash(h, table.length);
 
             boolean found = false;
 
             while (found == false){
                 if(table[index] != null){
-                    if (table[index].getKey() == key){
+                    if (holds(index, key, h)){
                         value = table[index].getValue();
                         numProbes++;
                         break;
@@ -390,13 +503,18 @@ public class OrderedLinearProbingHashTable extends OpenAddressingHashTable {
             return probes;
         }
 
+        if (incremental) {
+            return removeIncrementally(key);
+        }
+        int h = key.hashCode();
+
 
         if (softFlag == false) {//hard deletion
 
-            int index = hash(key);
+            int index = hash(h, table.length);
 
 
-            if (table[index].getKey() == key) {//found
+            if (holds(index, key, h)) {//found
                 value = table[index].getValue();//grab value
                 numProbes++;
                 table[index] = null;//set to null
@@ -426,6 +544,7 @@ public class OrderedLinearProbingHashTable extends OpenAddressingHashTable {
                             table[count] = null;
 
                             numProbes += put(temp.getKey(), temp.getValue()).getProbes();
+                            this.count--;//put() counted it again
                             count++;
 
                             if (count >= table.length) {
@@ -450,7 +569,7 @@ public class OrderedLinearProbingHashTable extends OpenAddressingHashTable {
 
                 while (found == false) {
                     if (table[index] != null) {//something there
-                        if (table[index].getKey() == key) {//found
+                        if (holds(index, key, h)) {//found
                             value = table[index].getValue();
                             numProbes++;
                             table[index] = null;
@@ -478,6 +597,7 @@ public class OrderedLinearProbingHashTable extends OpenAddressingHashTable {
                                     table[count] = null;
 
                                     numProbes += put(temp.getKey(), temp.getValue()).getProbes();
+                                    this.count--;//put() counted it again
                                     count++;
 
                                     if (count >= table.length) {
@@ -489,7 +609,7 @@ public class OrderedLinearProbingHashTable extends OpenAddressingHashTable {
 
 
 
-                        } else if ((table[index].getKey() != key) && (table[index] != null)) {//keep looking
+                        } else if (!holds(index, key, h)) {//keep looking
                             index++;
                             numProbes++;
 
@@ -513,7 +633,7 @@ public class OrderedLinearProbingHashTable extends OpenAddressingHashTable {
 
         else{//soft deletion
 
-            int index = hash(key);
+            int index = hash(h, table.length);
 
             if (table[index] == null){
                 Probes probes = new Probes(null, 1);
@@ -521,10 +641,11 @@ public class OrderedLinearProbingHashTable extends OpenAddressingHashTable {
 
             }
 
-            if (table[index].getKey() == key) {//found
+            if (holds(index, key, h)) {//found
                 value = table[index].getValue();//grab value
                 numProbes++;
                 table[index] = TOMBSTONE;//set to tombstone
+                tombstones++;
                 count--;
             }
             else{//search thru cluster
@@ -532,15 +653,16 @@ public class OrderedLinearProbingHashTable extends OpenAddressingHashTable {
 
                 while (found == false){
                     if (table[index] != null){
-                        if (table[index].getKey() == key) {//found
+                        if (holds(index, key, h)) {//found
                             value = table[index].getValue();
                             numProbes++;
                             table[index] = TOMBSTONE;
+                            tombstones++;
                             count--;
 
                             found = true;
                         }
-                        else if(table[index].getKey() != key || table[index] == TOMBSTONE){
+                        else if(!holds(index, key, h)){
                             index++;
                             numProbes++;
 
@@ -568,6 +690,10 @@ public class OrderedLinearProbingHashTable extends OpenAddressingHashTable {
 
 
 
+        if (value != null && belowMinLoad(count, table.length)) {//mostly empty, shrink the table
+            numProbes += shrinkTable();
+        }
+
         Probes probes = new Probes(value, numProbes);
         return probes;
     }
@@ -604,28 +730,11 @@ public class OrderedLinearProbingHashTable extends OpenAddressingHashTable {
 
     @Override
     public int size() {
-        int size = 0;
-
-        for (int i = 0; i<table.length; i++){
-            if (table[i] != null){
-                size++;
-            }
-        }
-        count = size;
-        return size;
+        return count;//exact, and includes the records still in oldTable during an incremental resize
     }
 
     public int sizeWithTombstones(){
-        int size = 0;
-
-        for (int i = 0; i<table.length; i++){
-            if (table[i] != null){
-                size++;
-            }
-        }
-        count = size;
-        return size;
-
+        return count + tombstones;
     }
 
     @Override
@@ -0,0 +1,440 @@
+package phonebook.hashes;
+
+import phonebook.utils.KVPair;
+import phonebook.utils.PrimeGenerator;
+import phonebook.utils.Probes;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * <p>{@link PhoneNumberHashTable} is a {@link HashTable} specialized for <b>phone numbers</b> as keys. Since a phone
+ * number is just a string of digits, every key is normalized into a primitive {@code long}: separators like dashes,
+ * spaces, dots, parentheses and a leading plus are dropped, and the remaining digits are read as a number with an
+ * extra leading 1, so that &quot;007&quot; and &quot;7&quot; stay different keys. Keys are stored in a {@code long[]}
+ * and compared with {@code ==}, and hashing a key is a couple of multiplications, instead of {@link String#hashCode()}
+ * and {@link String#equals(Object)} on every probe. The values live in a separate array, and every cell of the table
+ * only keeps an {@code int} index into it, so the table allocates no objects per record besides the values
+ * themselves.</p>
+ *
+ * <p>Collisions are resolved with Linear Probing, and deletions shift the rest of the cluster back, so there are no
+ * tombstones. Two keys which only differ in their separators, like &quot;301-405-1000&quot; and &quot;301 405 1000&quot;,
+ * are the <b>same</b> key. Keys with characters other than digits and separators, and keys with more than
+ * {@link #MAX_DIGITS} digits, are rejected. This makes {@link PhoneNumberHashTable} suitable for the phone number index
+ * of a {@link phonebook.Phonebook} only.</p>
+ *
+ * @author Isaac Solomon
+ *
+ * @see HashTable
+ * @see LinearProbingHashTable
+ * @see CollisionResolver#NUMERIC_LINEAR_PROBING
+ */
+public class PhoneNumberHashTable implements HashTable {
+
+    /* ****************************************************************** */
+    /* ***** PRIVATE FIELDS / METHODS ************************************ */
+    /* ****************************************************************** */
+
+    /**
+     * The maximum number of digits of a key. One more digit could overflow a {@code long} with the leading 1.
+     */
+    public static final int MAX_DIGITS = 18;
+
+    private long[] keys;
+    private int[] refs;         // Index of the cell's value in values, plus one. 0 marks an empty cell.
+    private String[] values;
+    private int[] freeValues;   // Stack of unused indices of values below valuesEnd.
+    private int freeCount;
+    private int valuesEnd;
+    private int count;
+    private final PrimeGenerator primeGenerator;
+    private final GrowthPolicy growthPolicy;
+    private final float maxLoadFactor;
+    private final float minLoadFactor;
+    private final int minCapacity;
+
+    /**
+     * Normalizes a phone number into the {@code long} that {@link PhoneNumberHashTable} uses as its key.
+     *
+     * @param number The phone number.
+     * @return The digits of number, with a leading 1, as a {@code long}.
+     * @throws IllegalArgumentException if number contains anything else than digits and separators, no digits at
+     * all, or more than {@link #MAX_DIGITS} digits.
+     */
+    public static long normalize(String number) {
+        long key = 1;
+        int digits = 0;
+        for (int i = 0; i < number.length(); i++) {
+            char c = number.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (++digits > MAX_DIGITS) {
+                    throw new IllegalArgumentException("Phone number has more than " + MAX_DIGITS + " digits: " + number);
+                }
+                key = key * 10 + (c - '0');
+            } else if (c != '-' && c != ' ' && c != '.' && c != '(' && c != ')' && !(c == '+' && digits == 0)) {
+                throw new IllegalArgumentException("Not a phone number: " + number);
+            }
+        }
+        if (digits == 0) {
+            throw new IllegalArgumentException("Not a phone number: " + number);
+        }
+        return key;
+    }
+
+    // Consecutive phone numbers only differ in their lowest digits, so we scramble every bit of the key (murmur3 fmix64).
+    private int index(long key, int length) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) ((key & 0x7fffffffffffffffL) % length);
+    }
+
+    // Returns the cell of key, or -(the empty cell that ended the search) - 1. probes[0] accumulates the probes made.
+    private int find(long key, int[] probes) {
+        int cell = index(key, keys.length);
+        while (true) {
+            probes[0]++;
+            if (refs[cell] == 0) {
+                return -cell - 1;
+            }
+            if (keys[cell] == key) {
+                return cell;
+            }
+            cell = (cell + 1) % keys.length;
+        }
+    }
+
+    private int storeValue(String value) {
+        int ref;
+        if (freeCount > 0) {
+            ref = freeValues[--freeCount];
+        } else {
+            if (valuesEnd == values.length) {
+                values = Arrays.copyOf(values, values.length * 2);
+                freeValues = Arrays.copyOf(freeValues, values.length);
+            }
+            ref = valuesEnd++;
+        }
+        values[ref] = value;
+        return ref + 1;
+    }
+
+    private void freeValue(int ref) {
+        values[ref - 1] = null;//let the GC have the String
+        freeValues[freeCount++] = ref - 1;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;//hold onto old table
+        int[] oldRefs = refs;
+        keys = new long[capacity];
+        refs = new int[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldRefs[i] != 0) {
+                int cell = index(oldKeys[i], capacity);
+                while (refs[cell] != 0) {
+                    cell = (cell + 1) % capacity;
+                }
+                keys[cell] = oldKeys[i];
+                refs[cell] = oldRefs[i];
+            }
+        }
+    }
+
+    /* **************************************** */
+    /*  PUBLIC METHODS:                         */
+    /* **************************************** */
+
+    /**
+     *  Default constructor. Initializes the internal storage with a size equal to the default of {@link PrimeGenerator}.
+     */
+    public PhoneNumberHashTable() {
+        this(GrowthPolicy.DEFAULT);
+    }
+
+    /**
+     * Constructor with a {@link GrowthPolicy}.
+     * @param growthPolicy The {@link GrowthPolicy} which decides the initial capacity and when the table resizes.
+     * @throws IllegalArgumentException if growthPolicy is {@code null}, or if its maximum load factor is not smaller than 1.
+     */
+    public PhoneNumberHashTable(GrowthPolicy growthPolicy) {
+        if (growthPolicy == null) {
+            throw new IllegalArgumentException("null argument");
+        }
+        this.growthPolicy = growthPolicy;
+        maxLoadFactor = growthPolicy.requireMaxLoadFactor(1f).getMaxLoadFactor();
+        minLoadFactor = growthPolicy.getMinLoadFactor();
+        primeGenerator = growthPolicy.newPrimeGenerator();
+        keys = new long[primeGenerator.getCurrPrime()];
+        minCapacity = keys.length;
+        refs = new int[keys.length];
+        values = new String[keys.length];
+        freeValues = new int[keys.length];
+        freeCount = 0;
+        valuesEnd = 0;
+        count = 0;
+    }
+
+    /**
+     * Constructor with a capacity hint, for tables whose final size is known in advance: the table starts out large
+     * enough to hold expectedSize records without ever resizing, and never shrinks below that.
+     * @param expectedSize The number of records the table is expected to hold.
+     * @throws IllegalArgumentException if expectedSize is negative.
+     * @see GrowthPolicy#forExpectedSize(int)
+     */
+    public PhoneNumberHashTable(int expectedSize) {
+        this(GrowthPolicy.DEFAULT.forExpectedSize(expectedSize));
+    }
+
+    /**
+     * Makes room for expectedSize records, by resizing the table straight to the smallest prime capacity which holds
+     * them under the maximum load factor of its {@link GrowthPolicy}, and the array of values to expectedSize.
+     * @param expectedSize The number of records the table should be able to hold.
+     * @throws IllegalArgumentException if expectedSize is negative.
+     */
+    @Override
+    public void ensureCapacity(int expectedSize) {
+        int capacity = growthPolicy.capacityFor(expectedSize);
+        if (capacity > keys.length) {
+            resize(primeGenerator.getPrimeAtLeast(capacity));
+        }
+        if (expectedSize > values.length) {
+            values = Arrays.copyOf(values, expectedSize);
+            freeValues = Arrays.copyOf(freeValues, expectedSize);
+        }
+    }
+
+    /**
+     * Inserts the pair &lt;number, value&gt; into this. If number, once normalized, is already in the table, its
+     * value is <b>updated</b>. Instances of {@link PhoneNumberHashTable} are enlarged when they are at least 50&#37; full,
+     * or as full as the maximum load factor of their {@link GrowthPolicy}.
+     *
+     * @param key The phone number.
+     * @param value The record's value.
+     * @return The {@link phonebook.utils.Probes} with the value added and the number of probes it makes.
+     * @throws IllegalArgumentException if either argument is {@code null}, or if key is not a phone number.
+     * @see #normalize(String)
+     */
+    @Override
+    public Probes put(String key, String value) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException("null argument");
+        }
+
+        long k = normalize(key);
+        int[] probes = new int[1];
+        int cell = find(k, probes);
+        if (cell >= 0) {//already here, just update
+            values[refs[cell] - 1] = value;
+            return new Probes(value, probes[0]);
+        }
+
+        if (count + 1 >= keys.length || (float) count / keys.length >= maxLoadFactor) {//exceeds threshold, increase capacity of table
+            resize(primeGenerator.getNextPrime());
+            probes[0] = 0;
+            cell = find(k, probes);
+        }
+        keys[-cell - 1] = k;
+        refs[-cell - 1] = storeValue(value);
+        count++;
+        return new Probes(value, probes[0]);
+    }
+
+    /**
+     * Get the value associated with the phone number key in the {@link HashTable}.
+     *
+     * @param key The phone number to search for.
+     * @return The {@link phonebook.utils.Probes} with associated value and the number of probe used. If the key is
+     * {@code null}, or is not a phone number, return value {@code null} and 0 as number of probes; if the key doesn't
+     * exist in the database, return {@code null} and the number of probes used.
+     */
+    @Override
+    public Probes get(String key) {
+        if (key == null) {
+            return new Probes(null, 0);
+        }
+
+        long k;
+        try {
+            k = normalize(key);
+        } catch (IllegalArgumentException notANumber) {
+            return new Probes(null, 0);
+        }
+        int[] probes = new int[1];
+        int cell = find(k, probes);
+        return new Probes(cell < 0 ? null : values[refs[cell] - 1], probes[0]);
+    }
+
+    @Override
+    public Probes remove(String key) {
+        if (key == null) {
+            return new Probes(null, 0);
+        }
+
+        long k;
+        try {
+            k = normalize(key);
+        } catch (IllegalArgumentException notANumber) {
+            return new Probes(null, 0);
+        }
+        int[] probes = new int[1];
+        int cell = find(k, probes);
+        if (cell < 0) {
+            return new Probes(null, probes[0]);
+        }
+
+        String value = values[refs[cell] - 1];
+        freeValue(refs[cell]);
+        int hole = cell;
+        int next = (hole + 1) % keys.length;
+        while (refs[next] != 0) {//backward shift every key that may not stay behind the hole
+            int home = index(keys[next], keys.length);
+            boolean movable = (hole <= next) ? (home <= hole || home > next) : (home <= hole && home > next);
+            if (movable) {
+                keys[hole] = keys[next];
+                refs[hole] = refs[next];
+                hole = next;
+            }
+            next = (next + 1) % keys.length;
+        }
+        refs[hole] = 0;
+        count--;
+        if (keys.length > minCapacity && (float) count / keys.length < minLoadFactor) {//mostly empty, shrink the table
+            resize(primeGenerator.getPreviousPrime());
+        }
+        return new Probes(value, probes[0]);
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        return get(key).getValue() != null;
+    }
+
+    @Override
+    public boolean containsValue(String value) {
+        for (int i = 0; i < valuesEnd; i++) {
+            if (values[i] != null && values[i].equals(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int size() {
+        return count;
+    }
+
+    @Override
+    public int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * Iterates over the records of the table. Since only normalized keys are stored, every key is reported as its
+     * bare digits, e.g &quot;3014051000&quot; for a record put as &quot;301-405-1000&quot;.
+     * @return An {@link Iterator} over new {@link KVPair}s for the records of the table, which does not support removal.
+     * @see #normalize(String)
+     */
+    @Override
+    public Iterator<KVPair> iterator() {
+        return new Iterator<KVPair>() {
+
+            private int next = advance(0);
+
+            private int advance(int from) {
+                while (from < keys.length && refs[from] == 0) {
+                    from++;
+                }
+                return from;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next < keys.length;
+            }
+
+            @Override
+            public KVPair next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                KVPair retVal = new KVPair(Long.toString(keys[next]).substring(1), values[refs[next] - 1]);
+                next = advance(next + 1);
+                return retVal;
+            }
+        };
+    }
+
+    /**
+     * Returns the {@link GrowthPolicy} of this table.
+     * @return The {@link GrowthPolicy} this table was created with.
+     */
+    GrowthPolicy getGrowthPolicy() {
+        return growthPolicy;
+    }
+
+    /**
+     * Writes the cells as they are, for {@link #readCells(DataInput)}: the capacity and the number of records, and
+     * then the normalized key of every cell, 0 for empty ones, followed by its value.
+     * @param out Where to write the cells.
+     * @throws IOException if out can't be written to.
+     * @see TableSnapshots
+     */
+    void writeCells(DataOutput out) throws IOException {
+        out.writeInt(keys.length);
+        out.writeInt(count);
+        for (int cell = 0; cell < keys.length; cell++) {
+            if (refs[cell] == 0) {
+                out.writeLong(0);//normalized keys start with a 1, so they are never 0
+            } else {
+                out.writeLong(keys[cell]);
+                out.writeUTF(values[refs[cell] - 1]);
+            }
+        }
+    }
+
+    /**
+     * Replaces the contents of this table by the cells written by {@link #writeCells(DataOutput)}, in a table of the
+     * same capacity, without hashing a single key. The values are packed at the start of their array.
+     * @param in Where to read the cells from.
+     * @throws IOException if in can't be read from, or holds a capacity that this table can't have.
+     * @see TableSnapshots
+     */
+    void readCells(DataInput in) throws IOException {
+        int capacity = in.readInt();
+        if (capacity < 2 || capacity > PrimeGenerator.MAX_PRIME || primeGenerator.getPrimeAtLeast(capacity) != capacity) {
+            throw new IOException("Invalid capacity: " + capacity);
+        }
+        int records = in.readInt();
+        if (records < 0 || records >= capacity) {
+            throw new IOException("Invalid number of records: " + records);
+        }
+        keys = new long[capacity];
+        refs = new int[capacity];
+        values = new String[capacity];
+        freeValues = new int[capacity];
+        freeCount = 0;
+        valuesEnd = 0;
+        for (int cell = 0; cell < capacity; cell++) {
+            long key = in.readLong();
+            if (key != 0) {
+                if (valuesEnd == records) {
+                    throw new IOException("More than " + records + " records.");
+                }
+                keys[cell] = key;
+                refs[cell] = storeValue(in.readUTF());
+            }
+        }
+        if (valuesEnd != records) {
+            throw new IOException("Only " + valuesEnd + " of " + records + " records.");
+        }
+        count = records;
+    }
+}
@@ -20,6 +20,12 @@ import phonebook.utils.Probes;
  * space in between memory probes allows other keys to be inserted without many collisions. The tradeoff
  * is that, in doing so, {@link QuadraticProbingHashTable} sacrifices <em>cache locality</em>.</p>
  *
+ * <p>Since the probe sequences of different keys cross each other instead of forming clusters, a deletion cannot be
+ * repaired locally. Hard deletions therefore leave a tombstone behind as well, and the tombstones are purged all at
+ * once, by a rebuild at the same capacity, when they take up more than 1/8 of the cells: every deletion costs O(1)
+ * amortized instead of a rebuild each. Until then, insertions count the tombstones against the maximum load factor,
+ * so that every probe sequence still meets an empty cell.</p>
+ *
  * @author Isaac Solomon
  *
  * @see HashTable
@@ -34,6 +40,21 @@ public class QuadraticProbingHashTable extends OpenAddressingHashTable {
     /* ** INSERT ANY PRIVATE METHODS OR FIELDS YOU WANT TO USE HERE: ******/
     /* ********************************************************************/
 
+    // Rebuilds the table at the same capacity, without the tombstones.
+    private int purge() {
+        KVPair[] temp = table;//hold onto old table
+        int[] tempHashes = hashes;
+        allocateTable(table.length);//same size, no tombstones
+        tombstones = 0;
+        return resize(temp, tempHashes);
+    }
+
+    // The same jumps as put(): the j-th probe lands j^2 + j cells away from the key's hash.
+    @Override
+    protected int probe(int hashCode, int attempt, int length) {
+        return (int) ((hash(hashCode, length) + (long) attempt * attempt + attempt) % length);
+    }
+
     /* ******************************************/
     /*  IMPLEMENT THE FOLLOWING PUBLIC METHODS: */
     /* **************************************** */
@@ -44,8 +65,54 @@ public class QuadraticProbingHashTable extends OpenAddressingHashTable {
      *               we want soft deletion, {@code false} otherwise.
      */
     public QuadraticProbingHashTable(boolean soft) {
-        primeGenerator = new PrimeGenerator();
-        table = new KVPair[primeGenerator.getCurrPrime()];
+        this(soft, false, GrowthPolicy.DEFAULT);
+    }
+
+    /**
+     * Constructor with soft deletion option and a {@link GrowthPolicy}.
+     * Quadratic probing only visits about half of the cells of a table, so the maximum load factor may not exceed 50&#37;,
+     * and only of a prime table, so capacities may not be powers of two.
+     * @param soft A boolean indicator of whether we want to use soft deletion or not. {@code true} if and only if
+     *               we want soft deletion, {@code false} otherwise.
+     * @param growthPolicy The {@link GrowthPolicy} which decides the initial capacity and when the table resizes.
+     * @throws IllegalArgumentException if growthPolicy is {@code null}, or if its maximum load factor is too high.
+     */
+    public QuadraticProbingHashTable(boolean soft, GrowthPolicy growthPolicy) {
+        this(soft, false, growthPolicy);
+    }
+
+    /**
+     * Constructor with soft deletion option and a capacity hint, for tables whose final size is known in advance: the
+     * table starts out large enough to hold expectedSize records without ever resizing, and never shrinks below that.
+     * @param soft A boolean indicator of whether we want to use soft deletion or not. {@code true} if and only if
+     *               we want soft deletion, {@code false} otherwise.
+     * @param expectedSize The number of records the table is expected to hold.
+     * @throws IllegalArgumentException if expectedSize is negative.
+     * @see GrowthPolicy#forExpectedSize(int)
+     */
+    public QuadraticProbingHashTable(boolean soft, int expectedSize) {
+        this(soft, GrowthPolicy.DEFAULT.forExpectedSize(expectedSize));
+    }
+
+    /**
+     * Constructor with soft deletion and incremental resizing options, and a {@link GrowthPolicy}.
+     * Quadratic probing only visits about half of the cells of a table, so the maximum load factor may not exceed 50&#37;.
+     * @param soft A boolean indicator of whether we want to use soft deletion or not. {@code true} if and only if
+     *               we want soft deletion, {@code false} otherwise.
+     * @param incremental {@code true} if resizes should move records to the new table a few at a time, over the
+     *             operations that follow them, instead of all at once.
+     * @param growthPolicy The {@link GrowthPolicy} which decides the initial capacity and when the table resizes.
+     * @throws IllegalArgumentException if growthPolicy is {@code null}, if its maximum load factor is too high, or if
+     * its capacities are powers of two.
+     * @see OpenAddressingHashTable#incremental
+     */
+    public QuadraticProbingHashTable(boolean soft, boolean incremental, GrowthPolicy growthPolicy) {
+        setGrowthPolicy(growthPolicy, .5f);
+        if (powerOfTwo) {
+            throw new IllegalArgumentException("Quadratic probing needs prime capacities.");
+        }
+        this.incremental = incremental;
+        allocateTable(primeGenerator.getCurrPrime());
 
 
         if (soft == true){
@@ -58,6 +125,19 @@ public class QuadraticProbingHashTable extends OpenAddressingHashTable {
 
     }
 
+    /**
+     * Constructor with soft deletion and incremental resizing options. Initializes the internal storage with a size equal to the starting value of  {@link PrimeGenerator}.
+     *
+     * @param soft A boolean indicator of whether we want to use soft deletion or not. {@code true} if and only if
+     *             we want soft deletion, {@code false} otherwise.
+     * @param incremental {@code true} if resizes should move records to the new table a few at a time, over the
+     *             operations that follow them, instead of all at once.
+     * @see OpenAddressingHashTable#incremental
+     */
+    public QuadraticProbingHashTable(boolean soft, boolean incremental) {
+        this(soft, incremental, GrowthPolicy.DEFAULT);
+    }
+
     @Override
     public Probes put(String key, String value) {
         KVPair pair = new KVPair(key,value);
@@ -67,22 +147,31 @@ public class QuadraticProbingHashTable extends OpenAddressingHashTable {
             throw new IllegalArgumentException("null argument");
         }
 
+        if (incremental) {
+            return putIncrementally(key, value);
+        }
+        int h = key.hashCode();
+
         if(softFlag == false){//hard deletions
 
-            if ((float)size()/ table.length >= .5) {//exceeds threshold, increase capacity of table
+            if (exceedsMaxLoad(count + tombstones, table.length)) {//exceeds threshold, increase capacity of table, tombstones waiting for a purge count too
                 KVPair[] temp = table;//hold onto old table
+                int[] tempHashes = hashes;
 
-                table = new KVPair[primeGenerator.getNextPrime()];//create bigger table
+                allocateTable(primeGenerator.getNextPrime());//create bigger table
 
-                numProbes += resize(temp, table);//resize and reinsert into bigger table
+                numProbes += resize(temp, tempHashes);//resize and reinsert into bigger table
+                tombstones = 0;
 
             }
 
 
-            int index = hash(key);
+            int index = hash(h, table.length);
 
             if (table[index] == null){//no collision, just insert
                 table[index] = pair;
+                hashes[index] = h;
+                count++;
                 numProbes++;
             }
             else{
@@ -93,10 +182,12 @@ public class QuadraticProbingHashTable extends OpenAddressingHashTable {
                 while (foundaHome == false){
 
                     int offSet = (numJumps*numJumps) + numJumps;
-                    int newIndex = (index+offSet)%table.length;//modulo to wrap around
+                    int newIndex = reduce(index+offSet, table.length);//modulo to wrap around
 
                     if (table[newIndex]==null){//found empty cell
                         table[newIndex] = pair;//insert
+                        hashes[newIndex] = h;
+                        count++;
                         foundaHome = true;
                         numProbes++;
                     }
@@ -121,20 +212,24 @@ public class QuadraticProbingHashTable extends OpenAddressingHashTable {
         }
         else{//soft deletions
 
-            if ((float)sizeWithTombstones()/ table.length >= .5) {//exceeds threshold, increase capacity of table
+            if (exceedsMaxLoad(count + tombstones, table.length)) {//exceeds threshold, increase capacity of table
                 KVPair[] temp = table;//hold onto old table
+                int[] tempHashes = hashes;
 
-                table = new KVPair[primeGenerator.getNextPrime()];//create bigger table
+                allocateTable(primeGenerator.getNextPrime());//create bigger table
 
-                numProbes += resize(temp, table);//resize and reinsert into bigger table
+                numProbes += resize(temp, tempHashes);//resize and reinsert into bigger table
+                tombstones = 0;
 
             }
 
 
-            int index = hash(key);
+            int index = hash(h, table.length);
 
             if (table[index] == null){//no collision, just insert
                 table[index] = pair;
+                hashes[index] = h;
+                count++;
                 numProbes++;
             }
             else{
@@ -145,11 +240,13 @@ public class QuadraticProbingHashTable extends OpenAddressingHashTable {
                 while (foundaHome == false){
 
                     int offSet = (numJumps*numJumps) + numJumps;
-                    int newIndex = (index+offSet)%table.length;//modulo to wrap around
+                    int newIndex = reduce(index+offSet, table.length);//modulo to wrap around
 
 
                     if (table[newIndex] == null){
                         table[newIndex] = pair;//insert
+                        hashes[newIndex] = h;
+                        count++;
                         foundaHome = true;
                         numProbes++;
 
@@ -182,7 +279,14 @@ public class QuadraticProbingHashTable extends OpenAddressingHashTable {
         return num;
     }
 
-    public int resize(KVPair[] oldTable, KVPair[] newTable) {
+    /**
+     * Moves the records of oldTable into {@link #table}, which is empty.
+     * @param oldTable The table before the resize.
+     * @param oldHashes The {@link #hashes} of oldTable, so that no key has to be hashed again.
+     * @return The number of probes made.
+     */
+    public int resize(KVPair[] oldTable, int[] oldHashes) {
+        KVPair[] newTable = table;
         int probes = 0;
 
         for (int i = 0; i<oldTable.length; i++){
@@ -191,10 +295,11 @@ public class QuadraticProbingHashTable extends OpenAddressingHashTable {
                 KVPair temp = oldTable[i];
 
 
-                int index = hash(temp.getKey());//starting index
+                int index = hash(oldHashes[i], newTable.length);//starting index
 
                 if (newTable[index] == null){//no collision, just insert
                     newTable[index] = temp;
+                    hashes[index] = oldHashes[i];
                     probes++;
                 }
                 else{
@@ -205,10 +310,11 @@ public class QuadraticProbingHashTable extends OpenAddressingHashTable {
                     while (foundaHome == false){
 
                         int offSet = (numJumps*numJumps) + numJumps;
-                        int newIndex = (index+offSet)%newTable.length;//modulo to wrap around
+                        int newIndex = reduce(index+offSet, newTable.length);//modulo to wrap around
 
                         if (newTable[newIndex]==null){//found empty cell
                             newTable[newIndex] = temp;//insert
+                            hashes[newIndex] = oldHashes[i];
                             foundaHome = true;
                             probes++;
                             break;
@@ -246,8 +352,13 @@ public class QuadraticProbingHashTable extends OpenAddressingHashTable {
             return probes;
         }
 
+        if (incremental) {
+            return getIncrementally(key);
+        }
+        int h = key.hashCode();
+
         if (softFlag == false){//hard bois
-            int index = hash(key);
+            int index = hash(h, table.length);
 
             if (table[index] == null){//nothing there, fail
                 Probes probes = new Probes(value, 1);
@@ -255,7 +366,7 @@ public class QuadraticProbingHashTable extends OpenAddressingHashTable {
 
             }
 
-            if (table[index].getKey() == key){//found on first try
+            if (holds(index, key, h)){//found on first try
                 value = table[index].getValue();
                 Probes probes = new Probes(value, 1);
                 return probes;
@@ -270,10 +381,10 @@ public class QuadraticProbingHashTable extends OpenAddressingHashTable {
                 while (found == false) {
 
                     int offSet = (numJumps*numJumps) + numJumps;
-                    int newIndex = (index+offSet)%table.length;//modulo to wrap around
+                    int newIndex = reduce(index+offSet, table.length);//modulo to wrap around
                     if (table[newIndex] != null) {//something there
 
-                        if (table[newIndex].getKey() == key) {//found
+                        if (holds(newIndex, key, h)) {//found
 
                             value = table[newIndex].getValue();
                             numProbes++;
@@ -300,7 +411,7 @@ public class QuadraticProbingHashTable extends OpenAddressingHashTable {
         }
 
         else{//soft bois
-            int index = hash(key);
+            int index = hash(h, table.length);
 
             if (table[index] == null){//nothing there, fail
                 Probes probes = new Probes(value, 1);
@@ -308,7 +419,7 @@ public class QuadraticProbingHashTable extends OpenAddressingHashTable {
 
             }
 
-            if (table[index].getKey() == key){//found on first try
+            if (holds(index, key, h)){//found on first try
                 value = table[index].getValue();
                 Probes probes = new Probes(value, 1);
                 return probes;
@@ -323,10 +434,10 @@ public class QuadraticProbingHashTable extends OpenAddressingHashTable {
                 while (found == false){
 
                     int offSet = (numJumps*numJumps) + numJumps;
-                    int newIndex = (index+offSet)%table.length;//modulo to wrap around
+                    int newIndex = reduce(index+offSet, table.length);//modulo to wrap around
 
-                    if (table[index] != null){
-                        if (table[newIndex].getKey() == key) {//found
+                    if (table[newIndex] != null){
+                        if (holds(newIndex, key, h)) {//found
 
                             value = table[newIndex].getValue();
                             numProbes++;
@@ -371,29 +482,26 @@ public class QuadraticProbingHashTable extends OpenAddressingHashTable {
             return probes;
         }
 
+        if (incremental) {
+            return removeIncrementally(key);
+        }
+        int h = key.hashCode();
+
         if (softFlag == false){//hard deletions
 
-            int index = hash(key);
+            int index = hash(h, table.length);
 
             if (table[index] == null){
                 Probes probes = new Probes(null, 1);
                 return probes;
             }
 
-            if (table[index].getKey() == key){//found
+            if (holds(index, key, h)){//found
                 value = table[index].getValue();//grab value
                 numProbes++;
-                table[index] = null;//set to null
-
-
-                //reinsertion time
-                KVPair[] temp = table;//hold onto old table
-                table = new KVPair[primeGenerator.getCurrPrime()];//make new table of same size to reinsert into
-
-                numProbes += resize(temp, table);
-
-
-
+                table[index] = TOMBSTONE;//keeps the probe sequences through this cell intact until the next purge
+                tombstones++;
+                count--;
 
             }
 
@@ -404,24 +512,19 @@ public class QuadraticProbingHashTable extends OpenAddressingHashTable {
 
                 while (found == false){
                     int offSet = (numJumps*numJumps) + numJumps;
-                    int newIndex = (index+offSet)%table.length;//modulo to wrap around
+                    int newIndex = reduce(index+offSet, table.length);//modulo to wrap around
 
                     if (table[newIndex] != null){
 
-                        if (table[newIndex].getKey() == key){//found
+                        if (holds(newIndex, key, h)){//found
 
                             value = table[newIndex].getValue();
                             numProbes++;
-                            table[newIndex] = null;
+                            table[newIndex] = TOMBSTONE;
+                            tombstones++;
+                            count--;
 
                             found = true;
-
-                            KVPair[] temp = table;//hold onto old table
-                            table = new KVPair[primeGenerator.getCurrPrime()];//make new table of same size to reinsert into
-
-                            numProbes += resize(temp, table);
-
-
                             break;
 
 
@@ -451,17 +554,19 @@ public class QuadraticProbingHashTable extends OpenAddressingHashTable {
         }
         else{//soft serve ice cream deletes
 
-            int index = hash(key);
+            int index = hash(h, table.length);
 
             if (table[index] == null){
                 Probes probes = new Probes(null, 1);
                 return probes;
             }
 
-            if (table[index].getKey() == key) {//found
+            if (holds(index, key, h)) {//found
                 value = table[index].getValue();//grab value
                 numProbes++;
                 table[index] = TOMBSTONE;//set to null
+                tombstones++;
+                count--;
             }
             else{//search through chain
                 numProbes++;
@@ -470,15 +575,17 @@ public class QuadraticProbingHashTable extends OpenAddressingHashTable {
 
                 while (found == false){
                     int offSet = (numJumps*numJumps) + numJumps;
-                    int newIndex = (index+offSet)%table.length;//modulo to wrap around
+                    int newIndex = reduce(index+offSet, table.length);//modulo to wrap around
 
                     if (table[newIndex] != null){
 
-                        if (table[newIndex].getKey() == key) {//found
+                        if (holds(newIndex, key, h)) {//found
 
                             value = table[newIndex].getValue();
                             numProbes++;
                             table[newIndex] = TOMBSTONE;
+                            tombstones++;
+                            count--;
                             found = true;
                             break;
                         }
@@ -510,6 +617,12 @@ public class QuadraticProbingHashTable extends OpenAddressingHashTable {
 
 
 
+        if (value != null && belowMinLoad(count, table.length)) {//mostly empty, shrink the table
+            numProbes += shrinkTable();
+        } else if (value != null && !softFlag && tombstones > table.length / 8) {//purge the tombstones of hard deletions in one go
+            numProbes += purge();
+        }
+
         Probes probes = new Probes(value, numProbes);
         return probes;
     }
@@ -550,28 +663,11 @@ public class QuadraticProbingHashTable extends OpenAddressingHashTable {
     }
     @Override
     public int size(){
-        int size = 0;
-
-        for (int i = 0; i<table.length; i++){
-            if (table[i] != null){
-                size++;
-            }
-        }
-        count = size;
-        return size;
+        return count;//exact, and includes the records still in oldTable during an incremental resize
     }
 
     public int sizeWithTombstones(){
-        int size = 0;
-
-        for (int i = 0; i<table.length; i++){
-            if (table[i] != null){
-                size++;
-            }
-        }
-        count = size;
-        return size;
-
+        return count + tombstones;
     }
 
     @Override
@@ -0,0 +1,248 @@
+package phonebook.hashes;
+
+import phonebook.utils.KVPair;
+import phonebook.utils.PrimeGenerator;
+import phonebook.utils.Probes;
+
+/**
+ * <p>{@link RobinHoodHashTable} is an Openly Addressed {@link HashTable} which resolves collisions with
+ * <b>Robin Hood Hashing</b>. It probes linearly like {@link LinearProbingHashTable}, but every insertion
+ * compares its own <em>probe distance</em> (how far it currently is from its home cell) with the probe distance of
+ * the key sitting in the cell it is examining. If the resident key is &quot; richer &quot; (closer to home) than
+ * the key being inserted, the two swap places and the insertion continues with the evicted key. This keeps
+ * the variance of probe lengths very low, so the worst-case lookups are not much slower than the average ones.</p>
+ *
+ * <p>Since keys within a cluster are ordered by the distance from their home cell, an unsuccessful search can stop
+ * as soon as it meets a key that is closer to home than the searched key would be. Deletions are done with
+ * <b>backward - shift deletion</b>: the keys that follow the deleted one in its cluster are moved one cell back
+ * until we meet an empty cell or a key that sits in its home cell. As a result, this table never leaves tombstones
+ * behind and never has to re-insert a whole cluster after a deletion.</p>
+ *
+ * @author Isaac Solomon
+ *
+ * @see HashTable
+ * @see LinearProbingHashTable
+ * @see OrderedLinearProbingHashTable
+ * @see CollisionResolver
+ */
+public class RobinHoodHashTable extends OpenAddressingHashTable {
+
+    /* ********************************************************************/
+    /* ** INSERT ANY PRIVATE METHODS OR FIELDS YOU WANT TO USE HERE: ******/
+    /* ********************************************************************/
+
+    // How many cells the key stored at index is away from the cell it hashes to, from its stored hash code.
+    private int probeDistance(int index) {
+        int home = hash(hashes[index], table.length);
+        return (index - home + table.length) % table.length;
+    }
+
+    // Robin Hood insertion of a key that is known not to be in the table, starting at index, which is distance
+    // cells away from the key's home cell. Returns the number of probes made.
+    private int insert(KVPair pair, int hashCode, int index, int distance) {
+        int probes = 1;
+
+        while (table[index] != null) {
+            int residentDistance = probeDistance(index);
+            if (residentDistance < distance) {//resident is richer than us, take its place and carry it along
+                KVPair evicted = table[index];
+                int evictedHash = hashes[index];
+                table[index] = pair;
+                hashes[index] = hashCode;
+                pair = evicted;
+                hashCode = evictedHash;
+                distance = residentDistance;
+            }
+            index = (index + 1) % table.length;
+            distance++;
+            probes++;
+        }
+        table[index] = pair;
+        hashes[index] = hashCode;
+        return probes;
+    }
+
+    private int resize(int newCapacity) {
+        KVPair[] oldTable = table;//hold onto old table
+        int[] oldHashes = hashes;
+        allocateTable(newCapacity);
+        int probes = 0;
+
+        for (int i = 0; i < oldTable.length; i++) {
+            if (oldTable[i] != null) {
+                probes += insert(oldTable[i], oldHashes[i], hash(oldHashes[i], table.length), 0);
+            }
+        }
+        return probes;
+    }
+
+    @Override
+    protected int resizeTo(int capacity) {
+        return resize(capacity);
+    }
+
+    /* ******************************************/
+    /*  IMPLEMENT THE FOLLOWING PUBLIC METHODS: */
+    /* **************************************** */
+
+    /**
+     * Default constructor. Initializes the internal storage with a size equal to the starting value of {@link PrimeGenerator}.
+     * Since {@link RobinHoodHashTable} uses backward - shift deletion, it has no notion of soft deletion.
+     */
+    public RobinHoodHashTable() {
+        this(GrowthPolicy.DEFAULT);
+    }
+
+    /**
+     * Constructor with a {@link GrowthPolicy}. Since Robin Hood hashing keeps the variance of probe sequence lengths
+     * low, it still performs well with maximum load factors of 0.8 or 0.9.
+     * @param growthPolicy The {@link GrowthPolicy} which decides the initial capacity and when the table resizes.
+     * @throws IllegalArgumentException if growthPolicy is {@code null}, or if its maximum load factor is not smaller than 1.
+     */
+    public RobinHoodHashTable(GrowthPolicy growthPolicy) {
+        setGrowthPolicy(growthPolicy, 1f);
+        allocateTable(primeGenerator.getCurrPrime());
+        softFlag = false;
+        count = 0;
+    }
+
+    /**
+     * Constructor with a capacity hint, for tables whose final size is known in advance: the table starts out large
+     * enough to hold expectedSize records without resizing, and never shrinks below that.
+     * @param expectedSize The number of records the table is expected to hold.
+     * @throws IllegalArgumentException if expectedSize is negative.
+     * @see GrowthPolicy#forExpectedSize(int)
+     */
+    public RobinHoodHashTable(int expectedSize) {
+        this(GrowthPolicy.DEFAULT.forExpectedSize(expectedSize));
+    }
+
+    /**
+     * Inserts the pair &lt;key, value&gt; into this. If key is already in the table, its value is <b>updated</b>.
+     * Instances of {@link RobinHoodHashTable} resize the same way the other openly addressed tables do, i.e when
+     * the table is at least 50&#37; full, or as full as the maximum load factor of its {@link GrowthPolicy}.
+     *
+     * @param key   The record's key.
+     * @param value The record's value.
+     * @return The {@link phonebook.utils.Probes} with the value added and the number of probes it makes.
+     * @throws IllegalArgumentException if either argument is {@code null}.
+     */
+    @Override
+    public Probes put(String key, String value) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException("null argument");
+        }
+
+        int numProbes = 0;
+        if (exceedsMaxLoad(count, table.length)) {//exceeds threshold, increase capacity of table
+            numProbes += resize(primeGenerator.getNextPrime());
+        }
+
+        // Look for the key first; the search stops exactly where an insertion would start displacing keys.
+        int h = key.hashCode();
+        int index = hash(h, table.length);
+        int distance = 0;
+        while (table[index] != null && probeDistance(index) >= distance) {
+            numProbes++;
+            if (holds(index, key, h)) {//already here, just update
+                table[index].setValue(value);
+                return new Probes(value, numProbes);
+            }
+            index = (index + 1) % table.length;
+            distance++;
+        }
+
+        numProbes += insert(new KVPair(key, value), h, index, distance);//continue from where the search stopped
+        count++;
+        return new Probes(value, numProbes);
+    }
+
+    @Override
+    public Probes get(String key) {
+        if (key == null) {
+            return new Probes(null, 0);
+        }
+
+        int h = key.hashCode();
+        int index = hash(h, table.length);
+        int distance = 0;
+        int numProbes = 1;
+        while (table[index] != null && probeDistance(index) >= distance) {
+            if (holds(index, key, h)) {//found
+                return new Probes(table[index].getValue(), numProbes);
+            }
+            index = (index + 1) % table.length;
+            distance++;
+            numProbes++;
+        }
+        return new Probes(null, numProbes);//hit an empty cell or a richer key, so it's not here
+    }
+
+    /**
+     * <b>Return</b> the value associated with key in the {@link HashTable}, and <b>remove</b> the {@link phonebook.utils.KVPair} from the table.
+     * The keys following the deleted one in its cluster are shifted one cell back, so no tombstone is left behind.
+     *
+     * @param key The key to search for.
+     * @return The {@link phonebook.utils.Probes} with associated value and the number of probe used. If the key is {@code null}, return value {@code null}
+     * and 0 as number of probes; if the key doesn't exist in the database, return {@code null} and the number of probes used.
+     */
+    @Override
+    public Probes remove(String key) {
+        if (key == null) {
+            return new Probes(null, 0);
+        }
+
+        int h = key.hashCode();
+        int index = hash(h, table.length);
+        int distance = 0;
+        int numProbes = 1;
+        while (table[index] != null && probeDistance(index) >= distance) {
+            if (holds(index, key, h)) {//found, shift the rest of the cluster back
+                String value = table[index].getValue();
+                int next = (index + 1) % table.length;
+                while (table[next] != null && probeDistance(next) > 0) {
+                    table[index] = table[next];
+                    hashes[index] = hashes[next];
+                    index = next;
+                    next = (next + 1) % table.length;
+                    numProbes++;
+                }
+                table[index] = null;
+                count--;
+                if (belowMinLoad(count, table.length)) {//mostly empty, shrink the table
+                    numProbes += resize(primeGenerator.getPreviousPrime());
+                }
+                return new Probes(value, numProbes);
+            }
+            index = (index + 1) % table.length;
+            distance++;
+            numProbes++;
+        }
+        return new Probes(null, numProbes);
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        return get(key).getValue() != null;
+    }
+
+    @Override
+    public boolean containsValue(String value) {
+        for (KVPair pair : table) {
+            if (pair != null && pair.getValue().equals(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int size() {
+        return count;
+    }
+
+    @Override
+    public int capacity() {
+        return table.length;
+    }
+}
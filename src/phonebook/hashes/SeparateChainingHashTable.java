@@ -1,11 +1,18 @@
 package phonebook.hashes;
 
 import phonebook.exceptions.UnimplementedMethodException;
+import phonebook.utils.KVPair;
 import phonebook.utils.KVPairList;
 import phonebook.utils.PrimeGenerator;
 import phonebook.utils.Probes;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 
 /**<p>{@link SeparateChainingHashTable} is a {@link HashTable} that implements <b>Separate Chaining</b>
  * as its collision resolution strategy, i.e the collision chains are implemented as actual
@@ -15,6 +22,11 @@ import java.lang.reflect.Array;
  * Open Addressing methods, like those implemented in {@link LinearProbingHashTable} and {@link QuadraticProbingHashTable}
  * are more desirable in practice, since they use the original space of the table for the collision chains themselves.</p>
  *
+ * <p>The table resizes itself according to its {@link GrowthPolicy}: it is enlarged when it holds more records per
+ * cell than the maximum load factor, and shrinks back when mass deletions take it below the minimum load factor,
+ * without ever shrinking below its initial capacity. Every resize rehashes every chain, so chains stay short and
+ * searches stay constant time at any size.</p>
+ *
  * @author Isaac Solomon
  * @see HashTable
  * @see SeparateChainingHashTable
@@ -31,6 +43,8 @@ public class SeparateChainingHashTable implements HashTable{
     private KVPairList[] table;
     private int count;
     private PrimeGenerator primeGenerator;
+    private GrowthPolicy growthPolicy;
+    private int minCapacity;
     //private static int probes = 0;
 
     // We mask the top bit of the default hashCode() to filter away negative values.
@@ -39,6 +53,22 @@ public class SeparateChainingHashTable implements HashTable{
         return (key.hashCode() & 0x7fffffff) % table.length;
     }
 
+    // Moves every record into a new table of the given capacity, keeping the order of records that share a chain.
+    private void rehash(int capacity){
+        KVPairList[] temp = table;//hold on to old table
+
+        table = new KVPairList[capacity];
+        for (int i = 0; i < table.length; i++){
+            table[i] = new KVPairList();//initialize each bucket
+        }
+
+        for (KVPairList list : temp){
+            for (KVPair pair : list){
+                table[hash(pair.getKey())].addBack(pair.getKey(), pair.getValue());
+            }
+        }
+    }
+
     /* **************************************** */
     /*  IMPLEMENT THE FOLLOWING PUBLIC METHODS:  */
     /* **************************************** */
@@ -46,7 +76,21 @@ public class SeparateChainingHashTable implements HashTable{
      *  Default constructor. Initializes the internal storage with a size equal to the default of {@link PrimeGenerator}.
      */
     public SeparateChainingHashTable(){
-        primeGenerator = new PrimeGenerator();
+        this(GrowthPolicy.CHAINING);
+    }
+
+    /**
+     * Constructor with a {@link GrowthPolicy}. Since chains can hold any number of keys, the maximum load factor may
+     * exceed 1.
+     * @param growthPolicy The {@link GrowthPolicy} of the table.
+     * @throws IllegalArgumentException if growthPolicy is {@code null}.
+     */
+    public SeparateChainingHashTable(GrowthPolicy growthPolicy){
+        if (growthPolicy == null) {
+            throw new IllegalArgumentException("null argument");
+        }
+        this.growthPolicy = growthPolicy;
+        primeGenerator = growthPolicy.newPrimeGenerator();
         int prime = primeGenerator.getCurrPrime();
 
 
@@ -57,9 +101,21 @@ public class SeparateChainingHashTable implements HashTable{
 
         }
 
+        minCapacity = prime;
         count = 0;
     }
 
+    /**
+     * Constructor with a capacity hint, for tables whose final size is known in advance: the table starts out large
+     * enough to hold expectedSize records without ever resizing, and never shrinks below that.
+     * @param expectedSize The number of records the table is expected to hold.
+     * @throws IllegalArgumentException if expectedSize is negative.
+     * @see GrowthPolicy#forExpectedSize(int)
+     */
+    public SeparateChainingHashTable(int expectedSize){
+        this(GrowthPolicy.CHAINING.forExpectedSize(expectedSize));
+    }
+
 
 
 
@@ -72,6 +128,10 @@ public class SeparateChainingHashTable implements HashTable{
 
         count++;
 
+        if ((float) count / table.length > growthPolicy.getMaxLoadFactor()){//too many records per cell
+            enlarge();
+        }
+
 
         return num;
     }
@@ -90,6 +150,11 @@ public class SeparateChainingHashTable implements HashTable{
         }
         Probes result = table[hash(key)].removeByKey(key);
 
+        if (result.getValue() != null && table.length > minCapacity
+                && (float) count / table.length < growthPolicy.getMinLoadFactor()){//mostly empty
+            shrink();
+        }
+
 
         return result;
     }
@@ -122,39 +187,106 @@ public class SeparateChainingHashTable implements HashTable{
         return table.length; // Or the value of the current prime.
     }
 
+    @Override
+    public Iterator<KVPair> iterator() {
+        List<KVPair> pairs = new ArrayList<>(count);
+        for (KVPairList list : table) {
+            for (KVPair pair : list) {
+                pairs.add(pair);
+            }
+        }
+        return pairs.iterator();
+    }
+
     /**
-     * Enlarges this hash table. At the very minimum, this method should increase the <b>capacity</b> of the hash table and ensure
-     * that the new size is prime. The class {@link PrimeGenerator} implements the enlargement heuristic that
-     * we have talked about in class and can be used as a black box if you wish.
+     * Enlarges this hash table to the next prime capacity given by {@link PrimeGenerator}, and rehashes every chain into
+     * it. {@link #put(String, String)} calls this on its own when the table exceeds its maximum load factor.
      * @see PrimeGenerator#getNextPrime()
      */
     public void enlarge() {
-        int newPrime = primeGenerator.getNextPrime();
-
-        KVPairList[] temp = table;//hold on to old table
-
-
-        table = new KVPairList[newPrime];
-
-
-
-
+        rehash(primeGenerator.getNextPrime());
     }
 
     /**
-     * Shrinks this hash table. At the very minimum, this method should decrease the size of the hash table and ensure
-     * that the new size is prime. The class {@link PrimeGenerator} implements the shrinking heuristic that
-     * we have talked about in class and can be used as a black box if you wish.
+     * Shrinks this hash table to the previous prime capacity given by {@link PrimeGenerator}, and rehashes every chain
+     * into it. {@link #remove(String)} calls this on its own when the table falls below its minimum load factor.
      *
      * @see PrimeGenerator#getPreviousPrime()
      */
     public void shrink(){
-        int newPrime = primeGenerator.getPreviousPrime();
+        rehash(primeGenerator.getPreviousPrime());
+    }
 
-        KVPairList[] temp = table;//hold on to old table
+    /**
+     * Makes room for expectedSize records, by rehashing every chain straight into the smallest prime capacity which
+     * holds them under the maximum load factor of its {@link GrowthPolicy}.
+     * @param expectedSize The number of records the table should be able to hold.
+     * @throws IllegalArgumentException if expectedSize is negative.
+     * @see PrimeGenerator#getPrimeAtLeast(int)
+     */
+    @Override
+    public void ensureCapacity(int expectedSize) {
+        int capacity = growthPolicy.capacityFor(expectedSize);
+        if (capacity > table.length) {
+            rehash(primeGenerator.getPrimeAtLeast(capacity));
+        }
+    }
 
-        table = new KVPairList[newPrime];
+    /**
+     * Returns the {@link GrowthPolicy} of this table.
+     * @return The {@link GrowthPolicy} this table was created with.
+     */
+    GrowthPolicy getGrowthPolicy() {
+        return growthPolicy;
+    }
 
+    /**
+     * Writes the chains as they are, for {@link #readCells(DataInput)}: the capacity and the number of records, and
+     * then the length of every chain followed by its records, in order.
+     * @param out Where to write the chains.
+     * @throws IOException if out can't be written to.
+     * @see TableSnapshots
+     */
+    void writeCells(DataOutput out) throws IOException {
+        out.writeInt(table.length);
+        out.writeInt(count);
+        for (KVPairList list : table) {
+            out.writeInt(list.size());
+            for (KVPair pair : list) {
+                out.writeUTF(pair.getKey());
+                out.writeUTF(pair.getValue());
+            }
+        }
+    }
 
+    /**
+     * Replaces the contents of this table by the chains written by {@link #writeCells(DataOutput)}, in a table of
+     * the same capacity, without hashing a single key.
+     * @param in Where to read the chains from.
+     * @throws IOException if in can't be read from, or holds a capacity or chain lengths that this table can't have.
+     * @see TableSnapshots
+     */
+    void readCells(DataInput in) throws IOException {
+        int capacity = in.readInt();
+        if (capacity < 2 || capacity > PrimeGenerator.MAX_PRIME || primeGenerator.getPrimeAtLeast(capacity) != capacity) {
+            throw new IOException("Invalid capacity: " + capacity);
+        }
+        table = new KVPairList[capacity];
+        count = in.readInt();
+        int left = count;
+        for (int i = 0; i < table.length; i++) {
+            table[i] = new KVPairList();
+            int length = in.readInt();
+            if (length < 0 || length > left) {
+                throw new IOException("Invalid chain length: " + length);
+            }
+            left -= length;
+            for (int j = 0; j < length; j++) {
+                table[i].addBack(in.readUTF(), in.readUTF());
+            }
+        }
+        if (left != 0) {
+            throw new IOException(left + " records are missing from the chains.");
+        }
     }
 }
@@ -0,0 +1,379 @@
+package phonebook.hashes;
+
+import phonebook.utils.KVPair;
+import phonebook.utils.Probes;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * <p>{@link SwissHashTable} is an Openly Addressed {@link HashTable} modeled after Google's <b>SwissTable</b>.
+ * Next to the array of {@link KVPair}s, it keeps a parallel array of one <em>control byte</em> per cell. A control
+ * byte is either {@link #EMPTY}, {@link #DELETED}, or, for a full cell, the lowest 7 bits of the hash of the key
+ * stored in it. Cells are organized in <b>groups</b> of {@link #GROUP_SIZE}, and searches probe a whole group at a time:
+ * the group's control bytes are loaded as two {@code long}s and compared against the 7-bit fingerprint of the key with
+ * a handful of bitwise operations (&quot; SIMD within a register &quot;). Only the cells whose fingerprints match are
+ * dereferenced and compared with {@link String#equals(Object)}, so almost every probe that would miss never leaves
+ * the control bytes, which are small enough to stay in the cache.</p>
+ *
+ * <p>Unlike the other openly addressed tables, {@link SwissHashTable} has <b>power of two</b> capacities, probes
+ * groups in triangular-number steps and resizes when 7/8 of its cells have been used, by default. Deleted cells become
+ * {@link #EMPTY} again whenever their group still has an empty cell, since no search can have gone past that group;
+ * otherwise they are marked {@link #DELETED} and are purged by the next rehash. Below the minimum load factor of its
+ * {@link GrowthPolicy}, the table is halved.</p>
+ *
+ * @author Isaac Solomon
+ *
+ * @see HashTable
+ * @see OpenAddressingHashTable
+ * @see CollisionResolver
+ */
+public class SwissHashTable extends OpenAddressingHashTable {
+
+    /* ********************************************************************/
+    /* ** INSERT ANY PRIVATE METHODS OR FIELDS YOU WANT TO USE HERE: ******/
+    /* ********************************************************************/
+
+    /**
+     * The number of cells whose control bytes are scanned together.
+     */
+    public static final int GROUP_SIZE = 16;
+
+    /**
+     * Control byte of a cell that has never held a key since the last rehash.
+     */
+    public static final byte EMPTY = (byte) 0x80;
+
+    /**
+     * Control byte of a cell whose key was removed, but which searches still have to probe past.
+     */
+    public static final byte DELETED = (byte) 0xFE;
+
+    private static final GrowthPolicy DEFAULT_GROWTH_POLICY = new GrowthPolicy(.875f, .125f, 2f, GROUP_SIZE);
+
+    private static final long LSBS = 0x0101010101010101L;
+    private static final long MSBS = 0x8080808080808080L;
+
+    // Reads 8 control bytes at once. Little endian, so that control byte i of a word is its i-th lowest byte.
+    private static final VarHandle CONTROL_WORD = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private byte[] control;
+
+    // Cells we can still fill with keys before we have to rehash. Cells marked DELETED are not available.
+    private int growthLeft;
+
+    // h comes out of mix(), since String.hashCode() is weak in the low bits that make the fingerprint.
+    private static byte fingerprint(int h) {
+        return (byte) (h & 0x7f);
+    }
+
+    private static int firstGroup(int h, int groups) {
+        return (h >>> 7) & (groups - 1);
+    }
+
+    // Sets the high bit of every byte of word which equals fingerprint. Bytes right after a real match can
+    // occasionally be reported as well, which is fine, since we compare the keys of all candidates anyway.
+    private static long match(long word, byte fingerprint) {
+        long x = word ^ (LSBS * (fingerprint & 0xff));
+        return (x - LSBS) & ~x & MSBS;
+    }
+
+    // Sets the high bit of every EMPTY byte of word.
+    private static long matchEmpty(long word) {
+        return word & (~word << 6) & MSBS;
+    }
+
+    // Sets the high bit of every EMPTY or DELETED byte of word.
+    private static long matchEmptyOrDeleted(long word) {
+        return word & ~(word << 7) & MSBS;
+    }
+
+    private long word(int cell) {
+        return (long) CONTROL_WORD.get(control, cell);
+    }
+
+    private boolean groupHasEmpty(int start) {
+        return (matchEmpty(word(start)) | matchEmpty(word(start + 8))) != 0;
+    }
+
+    // The index of the cell with key in it, or -1 if there is none. probes[0] accumulates the probes made.
+    private int find(String key, int h, int[] probes) {
+        int groups = table.length / GROUP_SIZE;
+        int group = firstGroup(h, groups);
+        byte fp = fingerprint(h);
+
+        for (int step = 1; step <= groups; step++) {
+            int start = group * GROUP_SIZE;
+            probes[0]++;
+            for (int half = 0; half < GROUP_SIZE; half += 8) {
+                long candidates = match(word(start + half), fp);
+                while (candidates != 0) {
+                    int cell = start + half + (Long.numberOfTrailingZeros(candidates) >>> 3);
+                    if (table[cell] != null) {
+                        probes[0]++;
+                        if (table[cell].getKey().equals(key)) {
+                            return cell;
+                        }
+                    }
+                    candidates &= candidates - 1;
+                }
+            }
+            if (groupHasEmpty(start)) {//the key would have been put in this group
+                return -1;
+            }
+            group = (group + step) & (groups - 1);//triangular numbers visit every group of a power of two table
+        }
+        return -1;
+    }
+
+    // Puts a key that is known not to be in the table in the first EMPTY or DELETED cell of its probe sequence.
+    private void insert(KVPair pair, int h) {
+        int groups = table.length / GROUP_SIZE;
+        int group = firstGroup(h, groups);
+
+        for (int step = 1; ; step++) {
+            int start = group * GROUP_SIZE;
+            for (int half = 0; half < GROUP_SIZE; half += 8) {
+                long free = matchEmptyOrDeleted(word(start + half));
+                if (free != 0) {
+                    int cell = start + half + (Long.numberOfTrailingZeros(free) >>> 3);
+                    if (control[cell] == EMPTY) {
+                        growthLeft--;
+                    }
+                    control[cell] = fingerprint(h);
+                    table[cell] = pair;
+                    return;
+                }
+            }
+            group = (group + step) & (groups - 1);
+        }
+    }
+
+    // The smallest power of two which is at least capacity, and at least one group.
+    private static int powerOfTwoAbove(long capacity) {
+        return (int) Math.max(GROUP_SIZE, Long.highestOneBit(capacity - 1) << 1);
+    }
+
+    // The cells of a table of the given capacity that can be used before it has to rehash. One is always left EMPTY.
+    private int usable(int capacity) {
+        return Math.min(capacity - 1, (int) (capacity * growthPolicy.getMaxLoadFactor()));
+    }
+
+    private void allocate(int capacity) {
+        table = new KVPair[capacity];
+        control = new byte[capacity];
+        Arrays.fill(control, EMPTY);
+        growthLeft = usable(capacity);//re-inserted keys will take their cells back
+    }
+
+    // Rebuilds the table with the given capacity, which also purges every DELETED cell.
+    private void rehash(int capacity) {
+        KVPair[] oldTable = table;//hold onto old table
+        allocate(capacity);
+        for (KVPair pair : oldTable) {
+            if (pair != null) {
+                insert(pair, mix(pair.getKey().hashCode()));
+            }
+        }
+    }
+
+    /**
+     * Writes the capacity, the number of keys and of cells left before a rehash, the control bytes as they are, and
+     * then the key and value of every full cell.
+     * @param out Where to write the cells.
+     * @throws IOException if out can't be written to.
+     */
+    @Override
+    protected void writeCells(DataOutput out) throws IOException {
+        out.writeInt(table.length);
+        out.writeInt(count);
+        out.writeInt(growthLeft);
+        out.write(control);
+        for (int cell = 0; cell < table.length; cell++) {
+            if (control[cell] >= 0) {//full
+                out.writeUTF(table[cell].getKey());
+                out.writeUTF(table[cell].getValue());
+            }
+        }
+    }
+
+    /**
+     * Reads the cells back, control bytes first, without computing a single hash code.
+     * @param in Where to read the cells from.
+     * @throws IOException if in can't be read from, or if the capacity is not a power of two.
+     */
+    @Override
+    protected void readCells(DataInput in) throws IOException {
+        int capacity = in.readInt();
+        if (capacity < GROUP_SIZE || capacity > 1 << 30 || Integer.bitCount(capacity) != 1) {
+            throw new IOException("Invalid capacity: " + capacity);
+        }
+        allocate(capacity);
+        count = readCount(in, capacity);
+        growthLeft = readCount(in, capacity);
+        in.readFully(control);
+        for (int cell = 0; cell < capacity; cell++) {
+            if (control[cell] >= 0) {
+                table[cell] = new KVPair(in.readUTF(), in.readUTF());
+            } else if (control[cell] != EMPTY && control[cell] != DELETED) {
+                throw new IOException("Invalid control byte: " + control[cell]);
+            }
+        }
+    }
+
+    /* ******************************************/
+    /*  IMPLEMENT THE FOLLOWING PUBLIC METHODS: */
+    /* **************************************** */
+
+    /**
+     * Default constructor. Initializes the internal storage with a single group of {@link #GROUP_SIZE} cells.
+     * Since {@link SwissHashTable} handles its own {@link #DELETED} markers, it has no notion of soft deletion.
+     */
+    public SwissHashTable() {
+        this(DEFAULT_GROWTH_POLICY);
+    }
+
+    /**
+     * Constructor with a {@link GrowthPolicy}. Since capacities are powers of two, the initial capacity is rounded up
+     * to one, and so is the capacity after every enlargement, which therefore at least doubles the table.
+     * @param growthPolicy The {@link GrowthPolicy} which decides the initial capacity and when the table resizes.
+     * @throws IllegalArgumentException if growthPolicy is {@code null}, or if its maximum load factor is not smaller than 1.
+     */
+    public SwissHashTable(GrowthPolicy growthPolicy) {
+        if (growthPolicy == null) {
+            throw new IllegalArgumentException("null argument");
+        }
+        this.growthPolicy = growthPolicy.requireMaxLoadFactor(1f);
+        softFlag = false;
+        count = 0;
+        minCapacity = powerOfTwoAbove(growthPolicy.getInitialCapacity());
+        allocate(minCapacity);
+    }
+
+    /**
+     * Constructor with a capacity hint, for tables whose final size is known in advance: the table starts out large
+     * enough to hold expectedSize records without ever rehashing, and never shrinks below that.
+     * @param expectedSize The number of records the table is expected to hold.
+     * @throws IllegalArgumentException if expectedSize is negative.
+     */
+    public SwissHashTable(int expectedSize) {
+        this(DEFAULT_GROWTH_POLICY.forExpectedSize(expectedSize));
+    }
+
+    /**
+     * Makes room for expectedSize records, by rehashing the table straight to the smallest power of two which holds
+     * them under the maximum load factor of its {@link GrowthPolicy}.
+     * @param expectedSize The number of records the table should be able to hold.
+     * @throws IllegalArgumentException if expectedSize is negative.
+     */
+    @Override
+    public void ensureCapacity(int expectedSize) {
+        int capacity = powerOfTwoAbove(growthPolicy.capacityFor(expectedSize));
+        if (capacity > table.length) {
+            rehash(capacity);
+        }
+    }
+
+    /**
+     * Inserts the pair &lt;key, value&gt; into this. If key is already in the table, its value is <b>updated</b>.
+     * When no unused cells are left for insertions, the table is enlarged by the growth multiplier of its
+     * {@link GrowthPolicy}, or, if more than half of its used cells were deleted, just rehashed at the same capacity.
+     *
+     * @param key   The record's key.
+     * @param value The record's value.
+     * @return The {@link phonebook.utils.Probes} with the value added and the number of probes it makes. Every group
+     * scanned and every key compared counts as one probe.
+     * @throws IllegalArgumentException if either argument is {@code null}.
+     */
+    @Override
+    public Probes put(String key, String value) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException("null argument");
+        }
+
+        int h = mix(key.hashCode());
+        int[] probes = new int[1];
+        int cell = find(key, h, probes);
+        if (cell != -1) {//already here, just update
+            table[cell].setValue(value);
+            return new Probes(value, probes[0]);
+        }
+
+        if (growthLeft <= 0) {
+            rehash(count < usable(table.length) / 2 ? table.length :
+                    powerOfTwoAbove((long) Math.ceil(table.length * (double) growthPolicy.getGrowthMultiplier())));
+        }
+        insert(new KVPair(key, value), h);
+        count++;
+        return new Probes(value, probes[0]);
+    }
+
+    @Override
+    public Probes get(String key) {
+        if (key == null) {
+            return new Probes(null, 0);
+        }
+
+        int[] probes = new int[1];
+        int cell = find(key, mix(key.hashCode()), probes);
+        return new Probes(cell == -1 ? null : table[cell].getValue(), probes[0]);
+    }
+
+    @Override
+    public Probes remove(String key) {
+        if (key == null) {
+            return new Probes(null, 0);
+        }
+
+        int[] probes = new int[1];
+        int cell = find(key, mix(key.hashCode()), probes);
+        if (cell == -1) {
+            return new Probes(null, probes[0]);
+        }
+
+        String value = table[cell].getValue();
+        table[cell] = null;
+        if (groupHasEmpty(cell - cell % GROUP_SIZE)) {//no search ever went past this group
+            control[cell] = EMPTY;
+            growthLeft++;
+        } else {
+            control[cell] = DELETED;
+        }
+        count--;
+        if (table.length > minCapacity && (float) count / table.length < growthPolicy.getMinLoadFactor()
+                && count < usable(table.length / 2) / 2) {//mostly empty, halve the table, as long as it stays half empty
+            rehash(table.length / 2);
+        }
+        return new Probes(value, probes[0]);
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        return key != null && find(key, mix(key.hashCode()), new int[1]) != -1;
+    }
+
+    @Override
+    public boolean containsValue(String value) {
+        for (KVPair pair : table) {
+            if (pair != null && pair.getValue().equals(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int size() {
+        return count;
+    }
+
+    @Override
+    public int capacity() {
+        return table.length;
+    }
+}
@@ -0,0 +1,148 @@
+package phonebook.hashes;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * <p>{@link TableSnapshots} writes {@link HashTable}s to binary streams and reads them back <b>as they were</b>: with
+ * the same capacity, and every record in the same cell, chain or stash as before. Loading a table is therefore a
+ * sequential read straight into an array of the right size, which never resizes the table, hashes a key or probes a
+ * cell, unlike inserting its records one by one.</p>
+ *
+ * <p>A snapshot of a table starts with its {@link CollisionResolver}, its {@link GrowthPolicy} and its deletion and
+ * resizing modes, so that the table which reads it back behaves just like the one that wrote it. The cells follow,
+ * in a layout of their own for every kind of table. Snapshots carry no checksum: the caller is expected to guard the
+ * stream, as {@link phonebook.Phonebook#saveSnapshot(java.nio.file.Path)} does.</p>
+ *
+ * <p>Every {@link HashTable} that a {@link phonebook.Phonebook} can use is supported. Any incremental resize in
+ * progress is finished before a table is written.</p>
+ *
+ * @author Isaac Solomon
+ *
+ * @see CollisionResolver
+ * @see phonebook.Phonebook#saveSnapshot(java.nio.file.Path)
+ */
+public final class TableSnapshots {
+
+    private TableSnapshots() {
+    }
+
+    // The CollisionResolver of the tables that a Phonebook makes.
+    private static CollisionResolver resolverOf(HashTable table) {
+        if (table instanceof SeparateChainingHashTable) {
+            return CollisionResolver.SEPARATE_CHAINING;
+        } else if (table instanceof LinearProbingHashTable) {
+            return CollisionResolver.LINEAR_PROBING;
+        } else if (table instanceof OrderedLinearProbingHashTable) {
+            return CollisionResolver.ORDERED_LINEAR_PROBING;
+        } else if (table instanceof QuadraticProbingHashTable) {
+            return CollisionResolver.QUADRATIC_PROBING;
+        } else if (table instanceof RobinHoodHashTable) {
+            return CollisionResolver.ROBIN_HOOD;
+        } else if (table instanceof HopscotchHashTable) {
+            return CollisionResolver.HOPSCOTCH;
+        } else if (table instanceof CuckooHashTable) {
+            return CollisionResolver.CUCKOO;
+        } else if (table instanceof SwissHashTable) {
+            return CollisionResolver.SWISS_TABLE;
+        } else if (table instanceof DoubleHashingHashTable) {
+            return CollisionResolver.DOUBLE_HASHING;
+        } else if (table instanceof PhoneNumberHashTable) {
+            return CollisionResolver.NUMERIC_LINEAR_PROBING;
+        }
+        throw new IllegalArgumentException("Unsupported hash table: " + table.getClass().getSimpleName());
+    }
+
+    /**
+     * Writes a snapshot of table.
+     * @param table The {@link HashTable} to write.
+     * @param out Where to write it.
+     * @throws IOException if out can't be written to, or if a key or value is too long for
+     * {@link DataOutput#writeUTF(String)}.
+     * @throws IllegalArgumentException if either argument is {@code null}, or if table is not one of the tables that
+     * a {@link CollisionResolver} stands for.
+     */
+    public static void write(HashTable table, DataOutput out) throws IOException {
+        if (table == null || out == null) {
+            throw new IllegalArgumentException("null argument");
+        }
+        CollisionResolver resolver = resolverOf(table);
+        out.writeUTF(resolver.name());
+        if (table instanceof OpenAddressingHashTable) {
+            OpenAddressingHashTable openTable = (OpenAddressingHashTable) table;
+            openTable.growthPolicy.writeTo(out);
+            out.writeBoolean(openTable.softFlag);
+            out.writeBoolean(openTable.incremental);
+            openTable.writeCells(out);
+        } else if (table instanceof SeparateChainingHashTable) {
+            ((SeparateChainingHashTable) table).getGrowthPolicy().writeTo(out);
+            ((SeparateChainingHashTable) table).writeCells(out);
+        } else {
+            ((PhoneNumberHashTable) table).getGrowthPolicy().writeTo(out);
+            ((PhoneNumberHashTable) table).writeCells(out);
+        }
+    }
+
+    /**
+     * Reads back a table written by {@link #write(HashTable, DataOutput)}.
+     * @param in Where to read it from.
+     * @return A new {@link HashTable} of the same kind, with the same {@link GrowthPolicy}, capacity and layout as the
+     * one that was written.
+     * @throws IOException if in can't be read from, or doesn't hold a snapshot of a table.
+     * @throws IllegalArgumentException if in is {@code null}.
+     */
+    public static HashTable read(DataInput in) throws IOException {
+        if (in == null) {
+            throw new IllegalArgumentException("null argument");
+        }
+        try {
+            CollisionResolver resolver = CollisionResolver.valueOf(in.readUTF());
+            GrowthPolicy policy = GrowthPolicy.readFrom(in);
+            if (resolver == CollisionResolver.SEPARATE_CHAINING) {
+                SeparateChainingHashTable table = new SeparateChainingHashTable(policy);
+                table.readCells(in);
+                return table;
+            } else if (resolver == CollisionResolver.NUMERIC_LINEAR_PROBING) {
+                PhoneNumberHashTable table = new PhoneNumberHashTable(policy);
+                table.readCells(in);
+                return table;
+            }
+
+            boolean soft = in.readBoolean(), incremental = in.readBoolean();
+            OpenAddressingHashTable table;
+            switch (resolver) {
+                case LINEAR_PROBING:
+                    table = new LinearProbingHashTable(soft, incremental, policy);
+                    break;
+                case ORDERED_LINEAR_PROBING:
+                    table = new OrderedLinearProbingHashTable(soft, incremental, policy);
+                    break;
+                case QUADRATIC_PROBING:
+                    table = new QuadraticProbingHashTable(soft, incremental, policy);
+                    break;
+                case ROBIN_HOOD:
+                    table = new RobinHoodHashTable(policy);
+                    break;
+                case HOPSCOTCH:
+                    table = new HopscotchHashTable(policy);
+                    break;
+                case CUCKOO:
+                    table = new CuckooHashTable(policy);
+                    break;
+                case SWISS_TABLE:
+                    table = new SwissHashTable(policy);
+                    break;
+                case DOUBLE_HASHING:
+                    table = new DoubleHashingHashTable(soft, policy);
+                    break;
+                default:
+                    throw new IOException("Unsupported collision resolver: " + resolver);
+            }
+            table.readCells(in);
+            return table;
+        } catch (RuntimeException e) {//e.g an unknown resolver, or a policy that the table rejects
+            throw new IOException("Invalid table snapshot: " + e.getMessage(), e);
+        }
+    }
+}
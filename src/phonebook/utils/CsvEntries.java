@@ -0,0 +1,197 @@
+package phonebook.utils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * <p>{@link CsvEntries} holds the &lt; name, number &gt; entries of a UTF-8 text file with one {@code name,number}
+ * line per entry, in the order of the file. Names may contain commas themselves, since phone numbers never do: a line
+ * is split at its <b>last</b> comma, and both halves are trimmed. Blank lines are skipped, and lines may end with
+ * either {@code \n} or {@code \r\n}.</p>
+ *
+ * <p>Files of tens of millions of lines are read in parallel: the file is split into <b>chunks</b> that end right
+ * after a line break, every chunk is memory-mapped and parsed by its own task, and the entries of every chunk are
+ * then copied into two arrays of exactly the right size. Since line breaks are single bytes in UTF-8, a chunk never
+ * starts in the middle of a character.</p>
+ *
+ * @author Isaac Solomon
+ *
+ * @see phonebook.Phonebook#importFrom(Path)
+ */
+public final class CsvEntries {
+
+    /**
+     * The smallest chunk worth a task of its own, in bytes.
+     */
+    public static final int MIN_CHUNK = 1 << 20;
+
+    /**
+     * The largest chunk, in bytes. A chunk is mapped in one go, and a mapping can't exceed 2GB.
+     */
+    public static final int MAX_CHUNK = 1 << 30;
+
+    private final String[] names;
+    private final String[] numbers;
+
+    private CsvEntries(String[] names, String[] numbers) {
+        this.names = names;
+        this.numbers = numbers;
+    }
+
+    // The offset right after the first line break at or after position, or the size of the file.
+    private static long nextLine(FileChannel channel, long position) throws IOException {
+        ByteBuffer block = ByteBuffer.allocate(4096);
+        long size = channel.size();
+        while (position < size) {
+            block.clear();
+            int read = channel.read(block, position);//positional reads leave the channel alone for the other tasks
+            for (int i = 0; i < read; i++) {
+                if (block.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    // Parses the lines between start and end into names and numbers.
+    private static List<List<String>> parse(FileChannel channel, long start, long end) throws IOException {
+        MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        CharBuffer chars = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT)
+                .decode(bytes);
+        List<String> names = new ArrayList<>(), numbers = new ArrayList<>();
+        String text = chars.toString();
+        int from = 0;
+        while (from < text.length()) {
+            int to = text.indexOf('\n', from);
+            if (to == -1) {
+                to = text.length();
+            }
+            String line = text.substring(from, (to > from && text.charAt(to - 1) == '\r') ? to - 1 : to);
+            from = to + 1;
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            int comma = line.lastIndexOf(',');
+            String name = (comma == -1) ? "" : line.substring(0, comma).trim();
+            String number = (comma == -1) ? "" : line.substring(comma + 1).trim();
+            if (name.isEmpty() || number.isEmpty()) {
+                throw new IOException("Malformed line \"" + line + "\": expected name,number.");
+            }
+            names.add(name);
+            numbers.add(number);
+        }
+        List<List<String>> parsed = new ArrayList<>(2);
+        parsed.add(names);
+        parsed.add(numbers);
+        return parsed;
+    }
+
+    /**
+     * Reads every entry of file, in parallel for large files.
+     * @param file The path of a UTF-8 file of {@code name,number} lines.
+     * @return The entries of file, in order.
+     * @throws IOException if file can't be read, is not valid UTF-8, or has a non-blank line without a name or a
+     * number.
+     */
+    public static CsvEntries read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long chunks = Math.min(4L * Runtime.getRuntime().availableProcessors(), size / MIN_CHUNK);
+            chunks = Math.max(chunks, (size + MAX_CHUNK - 1) / MAX_CHUNK);
+            return read(channel, (int) Math.max(1, chunks));
+        }
+    }
+
+    /**
+     * Reads every entry of the file open on channel, split into the given number of chunks, some of which may end up
+     * empty.
+     * @param channel A {@link FileChannel} open for reading.
+     * @param chunks The number of chunks to parse in parallel.
+     * @return The entries of the file, in order.
+     * @throws IOException if the file can't be read, is not valid UTF-8, or has a non-blank line without a name or
+     * a number.
+     * @throws IllegalArgumentException if chunks is not positive, or too small for a chunk to be mapped.
+     */
+    static CsvEntries read(FileChannel channel, int chunks) throws IOException {
+        long size = channel.size();
+        if (chunks < 1 || (size + chunks - 1) / chunks > MAX_CHUNK) {
+            throw new IllegalArgumentException("Invalid number of chunks: " + chunks);
+        }
+        long[] bounds = new long[chunks + 1];
+        for (int i = 1; i < chunks; i++) {
+            bounds[i] = Math.max(bounds[i - 1], nextLine(channel, Math.max(0, size * i / chunks - 1)));
+        }
+        bounds[chunks] = size;
+
+        List<List<List<String>>> parsed;
+        try {
+            parsed = IntStream.range(0, chunks).parallel().mapToObj(i -> {
+                try {
+                    return parse(channel, bounds[i], bounds[i + 1]);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }).collect(Collectors.toList());//in the order of the chunks
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        int total = 0;
+        for (List<List<String>> chunk : parsed) {
+            total += chunk.get(0).size();
+        }
+        String[] names = new String[total], numbers = new String[total];
+        int i = 0;
+        for (List<List<String>> chunk : parsed) {
+            for (int j = 0; j < chunk.get(0).size(); j++, i++) {
+                names[i] = chunk.get(0).get(j);
+                numbers[i] = chunk.get(1).get(j);
+            }
+        }
+        return new CsvEntries(names, numbers);
+    }
+
+    /**
+     * Returns the number of entries.
+     * @return The number of non-blank lines of the file.
+     */
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * Returns the name of the i-th entry.
+     * @param i The index of the entry, in the order of the file.
+     * @return The name of the i-th entry.
+     * @throws ArrayIndexOutOfBoundsException if i is not between 0 and {@link #size()} - 1.
+     */
+    public String getName(int i) {
+        return names[i];
+    }
+
+    /**
+     * Returns the phone number of the i-th entry.
+     * @param i The index of the entry, in the order of the file.
+     * @return The phone number of the i-th entry.
+     * @throws ArrayIndexOutOfBoundsException if i is not between 0 and {@link #size()} - 1.
+     */
+    public String getNumber(int i) {
+        return numbers[i];
+    }
+}
@@ -0,0 +1,91 @@
+package phonebook.utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.Assert.*;
+
+/**
+ * <p>A jUnit testing framework for {@link CsvEntries}.</p>
+ *
+ * @see CsvEntries
+ * @author Isaac Solomon
+ */
+public class CsvEntriesTests {
+
+    private Path file;
+
+    private void write(String contents) throws IOException {
+        Files.write(file, contents.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private CsvEntries read(int chunks) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return CsvEntries.read(channel, chunks);
+        }
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        file = Files.createTempFile("entries", ".csv");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    public void testParsing() throws IOException {
+        write("Arnold,894-59-0011\r\n\n  \nDoe, Jane , 705-12-7500\nZo\u00eb,888-1212-3340");
+        CsvEntries entries = CsvEntries.read(file);
+        assertEquals(3, entries.size());
+        assertEquals("Arnold", entries.getName(0));
+        assertEquals("894-59-0011", entries.getNumber(0));
+        assertEquals("Names may have commas in them.", "Doe, Jane", entries.getName(1));
+        assertEquals("705-12-7500", entries.getNumber(1));
+        assertEquals("Zo\u00eb", entries.getName(2));
+        assertEquals("The last line needs no line break.", "888-1212-3340", entries.getNumber(2));
+
+        write("");
+        assertEquals(0, CsvEntries.read(file).size());
+    }
+
+    @Test
+    public void testChunksKeepLinesWhole() throws IOException {
+        StringBuilder contents = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            contents.append("Person \u00e9").append(i).append(',').append(1000000 + i).append(i % 3 == 0 ? "\r\n" : "\n");
+        }
+        write(contents.toString());
+        for (int chunks : new int[]{1, 2, 7, 64, 5000}) {// More chunks than lines leaves some of them empty.
+            CsvEntries entries = read(chunks);
+            assertEquals(chunks + " chunks lost lines.", 1000, entries.size());
+            for (int i = 0; i < 1000; i++) {
+                assertEquals(chunks + " chunks broke a line.", "Person \u00e9" + i, entries.getName(i));
+                assertEquals(chunks + " chunks broke a line.", Integer.toString(1000000 + i), entries.getNumber(i));
+            }
+        }
+    }
+
+    @Test
+    public void testMalformedLines() throws IOException {
+        for (String contents : new String[]{"Arnold 894-59-0011\n", "Arnold,\n", ",894-59-0011\n"}) {
+            write("Jessie,705-12-7500\n" + contents);
+            try {
+                CsvEntries.read(file);
+                fail("\"" + contents.trim() + "\" should have been rejected.");
+            } catch (IOException expected) {
+                // Good.
+            }
+        }
+    }
+}
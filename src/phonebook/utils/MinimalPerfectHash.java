@@ -0,0 +1,182 @@
+package phonebook.utils;
+
+/**
+ * <p>{@link MinimalPerfectHash} is an <b>immutable</b> minimal perfect hash function over a fixed set of {@link String}
+ * keys: it maps the n keys it was built from to the n indices 0, 1, ..., n - 1, without <b>any</b> collisions. Keys
+ * outside of that set are mapped to arbitrary indices in the same range, so callers that might look up unknown keys
+ * need to store the keys themselves and compare against them.</p>
+ *
+ * <p>It is built with the &quot; hash, displace, and compress &quot; (CHD) algorithm. The keys are first hashed into
+ * buckets of about {@link #AVERAGE_BUCKET_SIZE} keys. Then, from the biggest bucket to the smallest, we look for a
+ * <em>displacement</em> seed which sends every key of the bucket to an index that no earlier bucket took. Buckets
+ * with a single key are simply handed the indices that are still free. A lookup hashes the key once, reads the
+ * displacement of its bucket and hashes once more, so it costs the same no matter how many keys there are. The only
+ * storage is one {@code int} per bucket, i.e a few bits per key.</p>
+ *
+ * @author Isaac Solomon
+ *
+ * @see phonebook.FrozenPhonebook
+ */
+public class MinimalPerfectHash {
+
+    /**
+     * The average number of keys per bucket. Bigger buckets make for a smaller function, but take longer to build.
+     */
+    public static final int AVERAGE_BUCKET_SIZE = 5;
+
+    private static final int MAX_SEED = 1 << 24;
+    private static final long GOLDEN = 0x9e3779b97f4a7c15L;
+
+    private final int[] displacements;    // The seed of each bucket, or -(its index) - 1 for buckets of one key.
+    private final int size;
+
+    // 64-bit FNV-1a over the chars of key. String.hashCode() only has 32 bits, which would collide far too much.
+    private static long fingerprint(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    // The finalizer of MurmurHash3, which makes every bit of the result depend on every bit of h.
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private int bucket(long fingerprint) {
+        return (int) Long.remainderUnsigned(mix(fingerprint), displacements.length);
+    }
+
+    private static int index(long fingerprint, int seed, int size) {
+        return (int) Long.remainderUnsigned(mix(fingerprint + (seed + 1) * GOLDEN), size);
+    }
+
+    /**
+     * Builds a minimal perfect hash function over keys.
+     *
+     * @param keys The keys. They must all be distinct.
+     * @throws IllegalArgumentException if keys contains {@code null} or the same key twice.
+     */
+    public MinimalPerfectHash(String[] keys) {
+        size = keys.length;
+        int buckets = Math.max(1, (size + AVERAGE_BUCKET_SIZE - 1) / AVERAGE_BUCKET_SIZE);
+        displacements = new int[buckets];
+
+        long[] fingerprints = new long[size];
+        int[] bucketStart = new int[buckets + 1];
+        for (int i = 0; i < size; i++) {
+            if (keys[i] == null) {
+                throw new IllegalArgumentException("null key at position " + i);
+            }
+            fingerprints[i] = fingerprint(keys[i]);
+            bucketStart[bucket(fingerprints[i]) + 1]++;
+        }
+
+        // Counting sort of the keys by bucket, and of the buckets by decreasing size.
+        int maxBucketSize = 0;
+        for (int b = 0; b < buckets; b++) {
+            maxBucketSize = Math.max(maxBucketSize, bucketStart[b + 1]);
+            bucketStart[b + 1] += bucketStart[b];
+        }
+        int[] members = new int[size];
+        int[] fill = bucketStart.clone();
+        for (int i = 0; i < size; i++) {
+            members[fill[bucket(fingerprints[i])]++] = i;
+        }
+        int[] sizeStart = new int[maxBucketSize + 2];
+        for (int b = 0; b < buckets; b++) {
+            sizeStart[maxBucketSize - (bucketStart[b + 1] - bucketStart[b]) + 1]++;
+        }
+        for (int s = 0; s <= maxBucketSize; s++) {
+            sizeStart[s + 1] += sizeStart[s];
+        }
+        int[] order = new int[buckets];
+        for (int b = 0; b < buckets; b++) {
+            order[sizeStart[maxBucketSize - (bucketStart[b + 1] - bucketStart[b])]++] = b;
+        }
+
+        boolean[] taken = new boolean[size];
+        int[] candidates = new int[maxBucketSize];
+        int nextFree = 0;
+        for (int b : order) {
+            int from = bucketStart[b], bucketSize = bucketStart[b + 1] - from;
+            if (bucketSize == 0) {
+                break;// Every bucket after this one is empty too.
+            }
+            if (bucketSize == 1) {
+                while (taken[nextFree]) {
+                    nextFree++;
+                }
+                taken[nextFree] = true;
+                displacements[b] = -nextFree - 1;
+                continue;
+            }
+            for (int i = from; i < from + bucketSize; i++) {// Equal keys would never be separated by any seed.
+                for (int j = from; j < i; j++) {
+                    if (keys[members[i]].equals(keys[members[j]])) {
+                        throw new IllegalArgumentException("Duplicate key: " + keys[members[i]]);
+                    }
+                }
+            }
+            for (int seed = 0; ; seed++) {
+                if (seed == MAX_SEED) {
+                    throw new IllegalArgumentException("Could not find a displacement for a bucket of " + bucketSize + " keys.");
+                }
+                int placed = 0;
+                while (placed < bucketSize) {
+                    int index = index(fingerprints[members[from + placed]], seed, size);
+                    if (taken[index]) {
+                        break;
+                    }
+                    taken[index] = true;
+                    candidates[placed++] = index;
+                }
+                if (placed == bucketSize) {
+                    displacements[b] = seed;
+                    break;
+                }
+                for (int i = 0; i < placed; i++) {// Undo, and try the next seed.
+                    taken[candidates[i]] = false;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the index of key. If key was one of the keys this function was built from, the index is unique to it.
+     *
+     * @param key The key.
+     * @return An index between 0 (inclusive) and {@link #size()} (exclusive), or -1 if this function has no keys.
+     */
+    public int index(String key) {
+        if (size == 0) {
+            return -1;
+        }
+        long fingerprint = fingerprint(key);
+        int displacement = displacements[bucket(fingerprint)];
+        return (displacement < 0) ? -displacement - 1 : index(fingerprint, displacement, size);
+    }
+
+    /**
+     * Returns the number of keys this function was built from.
+     * @return The number of keys, which is also the number of possible indices.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of bits this function takes up, not counting the object headers.
+     * @return The number of bits of the displacements.
+     */
+    public long bits() {
+        return 32L * displacements.length;
+    }
+}
@@ -0,0 +1,57 @@
+package phonebook.utils;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * <p>A jUnit testing framework for {@link MinimalPerfectHash}.</p>
+ *
+ * @see MinimalPerfectHash
+ * @author Isaac Solomon
+ */
+public class MinimalPerfectHashTests {
+
+    private static String[] keys(int n) {
+        String[] keys = new String[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = "key" + i;
+        }
+        return keys;
+    }
+
+    @Test
+    public void testIsMinimalAndPerfect() {
+        for (int n : new int[]{1, 2, 7, 100, 10000}) {
+            String[] keys = keys(n);
+            MinimalPerfectHash mph = new MinimalPerfectHash(keys);
+            Set<Integer> seen = new HashSet<>();
+            for (String key : keys) {
+                int index = mph.index(key);
+                assertTrue("Index " + index + " out of range for " + n + " keys.", index >= 0 && index < n);
+                assertTrue("Two keys were given index " + index + ".", seen.add(index));
+            }
+        }
+    }
+
+    @Test
+    public void testFewBitsPerKey() {
+        MinimalPerfectHash mph = new MinimalPerfectHash(keys(10000));
+        assertTrue("A minimal perfect hash should only take a few bits per key.", mph.bits() / 10000.0 < 8);
+    }
+
+    @Test
+    public void testEmpty() {
+        MinimalPerfectHash mph = new MinimalPerfectHash(new String[0]);
+        assertEquals(0, mph.size());
+        assertEquals(-1, mph.index("anything"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDuplicateKeys() {
+        new MinimalPerfectHash(new String[]{"a", "b", "c", "d", "e", "a"});
+    }
+}
@@ -0,0 +1,132 @@
+package phonebook.utils;
+
+import phonebook.hashes.HashTable;
+
+/**
+ * <p>{@link PowerOfTwoGenerator} is a {@link PrimeGenerator} whose ladder is made of <b>powers of two</b> instead of
+ * primes, for {@link HashTable} instances which reduce their hash codes with a bit mask instead of a division. Such
+ * tables need a hash function that mixes every bit of the hash code into the low bits, since a mask throws the high
+ * bits away. In exchange, a lookup costs no division, and since the capacity only ever doubles or halves, the keys of
+ * one cell are split between two cells of the larger table.</p>
+ *
+ * <p>Every method keeps the contract of {@link PrimeGenerator}, except that &quot; prime &quot; should be read as
+ * &quot; power of two &quot;, and that the largest one is {@link #MAX_CAPACITY}.</p>
+ *
+ * @author Isaac Solomon
+ *
+ * @see PrimeGenerator
+ * @see phonebook.hashes.GrowthPolicy#withPowerOfTwoCapacities()
+ */
+public class PowerOfTwoGenerator extends PrimeGenerator {
+
+    /**
+     * The largest power of two that can be the length of an array.
+     */
+    public static final int MAX_CAPACITY = 1 << 30;
+
+    private final int first;
+    private final int shift;        // Every step multiplies or divides by 2^shift.
+    private int curr;
+
+    private static int powerOfTwoAtLeast(int bound) {
+        return (bound <= 2) ? 2 : Integer.highestOneBit(bound - 1) << 1;
+    }
+
+    /**
+     * Default constructor. The first power of two is 8, and every call to {@link #getNextPrime()} doubles it.
+     */
+    public PowerOfTwoGenerator() {
+        this(8, 2f);
+    }
+
+    /**
+     * Creates a {@link PowerOfTwoGenerator} with its own first power of two and growth multiplier.
+     * @param atLeast A lower bound for the first power of two: it is the smallest one which is not smaller.
+     * @param multiplier By how much {@link #getNextPrime()} multiplies the current power of two, and
+     *                   {@link #getPreviousPrime()} divides it. It has to be a power of two itself.
+     * @throws IllegalArgumentException if atLeast is smaller than 2 or larger than {@link #MAX_CAPACITY}, or if
+     * multiplier is not a power of two larger than 1.
+     */
+    public PowerOfTwoGenerator(int atLeast, float multiplier) {
+        super(2, 2f);
+        if (atLeast < 2 || atLeast > MAX_CAPACITY || !(multiplier > 1) || multiplier > MAX_CAPACITY
+                || multiplier != (float) Math.scalb(1.0, Math.getExponent(multiplier))) {
+            throw new IllegalArgumentException("PowerOfTwoGenerator(): invalid first power of two bound " + atLeast +
+                    " or multiplier " + multiplier + ".");
+        }
+        first = powerOfTwoAtLeast(atLeast);
+        shift = Math.getExponent(multiplier);
+        curr = first;
+    }
+
+    /**
+     * Retrieves the current power of two, 8 by default.
+     * @return The current power of two.
+     */
+    @Override
+    public int getCurrPrime() {
+        return curr;
+    }
+
+    /**
+     * Returns the current power of two times the multiplier, up to {@link #MAX_CAPACITY}.
+     * @return The next power of two.
+     * @throws NoMorePrimesException If the current power of two is already {@link #MAX_CAPACITY}.
+     */
+    @Override
+    public int getNextPrime() throws NoMorePrimesException {
+        if (curr == MAX_CAPACITY) {
+            throw new NoMorePrimesException("getNextPrime(): " + curr + " is the largest possible array length.");
+        }
+        curr = (int) Math.min((long) curr << shift, MAX_CAPACITY);
+        return curr;
+    }
+
+    /**
+     * Jumps straight to the smallest power of two which is <b>not smaller than bound</b>.
+     * @param bound The smallest acceptable power of two.
+     * @return The smallest power of two greater than or equal to bound.
+     * @throws NoMorePrimesException If bound is larger than {@link #MAX_CAPACITY}.
+     */
+    @Override
+    public int getPrimeAtLeast(int bound) throws NoMorePrimesException {
+        if (bound > MAX_CAPACITY) {
+            throw new NoMorePrimesException("getPrimeAtLeast(): " + bound + " exceeds the largest possible array length.");
+        }
+        curr = powerOfTwoAtLeast(bound);
+        return curr;
+    }
+
+    /**
+     * Returns the current power of two divided by the multiplier, down to 2.
+     * @return The previous power of two.
+     * @throws NoMorePrimesException If the current power of two is 2.
+     */
+    @Override
+    public int getPreviousPrime() throws NoMorePrimesException {
+        if (curr == 2) {
+            throw new NoMorePrimesException("getPreviousPrime(): 2 is the least capacity.");
+        }
+        curr = Math.max(2, curr >>> shift);
+        return curr;
+    }
+
+    /**
+     * Retrieves the reciprocal of the current power of two. Tables with power of two capacities mask their hash codes
+     * instead, so they have no use for it.
+     * @return The {@link #reciprocal(int)} of {@link #getCurrPrime()}.
+     */
+    @Override
+    public long getCurrReciprocal() {
+        return reciprocal(curr);
+    }
+
+    /**
+     * Resets the {@link PowerOfTwoGenerator}, making the next call to {@link #getCurrPrime()} return the first power of
+     * two, 8 by default.
+     */
+    @Override
+    public void reset() {
+        curr = first;
+    }
+}
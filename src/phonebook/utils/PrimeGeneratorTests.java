@@ -127,17 +127,11 @@ public class PrimeGeneratorTests {
         }
         assertNotNull("A call to getPreviousPrime() when getCurrentPrime() returns 2 should have thrown a NoMorePrimesException", rexc);
 
-        // The biggest prime number we store is 7907. We start making calls to getNextPrime() which will *more than double*
-        // the current prime number every time. 2^12 = 4096 and 2^13 = 8192. Without even looking at my list of primes
-        // I know that in at most 12 calls to getNextPrime() (the first one gives me 13) I am reaching a number that is definitely
-        // beyond my list of current primes.
+        // Primes are now generated on demand, so getNextPrime() only runs out at PrimeGenerator.MAX_PRIME. Every call
+        // almost doubles the current prime, so starting from 7, we get there in about 30 calls.
         rexc = null;
         int iterThrown = 0;
-        for(int i = 0; i < 15; i++){
-            // Embedding the try block inside the for loop makes the loop very slow, but allows for the index 'i' to be
-            // visible to the scope of the catch-blocks. This in turn allows us to throw an AssertionError with information
-            // about exactly *which* iteration failed.
-
+        for(int i = 0; i < 40 && rexc == null; i++){
             try {
                 pg.getNextPrime();
             } catch(NoMorePrimesException nmpe){
@@ -147,7 +141,56 @@ public class PrimeGeneratorTests {
                 fail("Call to getNextPrime() #" + (i + 1) + ": " + format(t) );
             }
         }
-        assertNotNull("Was expecting a NoMorePrimesException after " + (iterThrown + 1) + " calls to getNextPrime()", rexc);
+        assertNotNull("Was expecting a NoMorePrimesException once the current prime is PrimeGenerator.MAX_PRIME.", rexc);
+        assertEquals("Expected to reach PrimeGenerator.MAX_PRIME before running out of primes.",
+                PrimeGenerator.MAX_PRIME, pg.getCurrPrime());
+        assertTrue("Ran out of primes after only " + (iterThrown + 1) + " calls to getNextPrime().", iterThrown > 15);
+    }
+
+    /**
+     * Tests that primes well beyond the old list of stored primes, which stopped at 7907, follow the same ladder.
+     */
+    @Test
+    public void testLargePrimes(){
+        int[] ladder = {13, 23, 43, 83, 163, 317, 631, 1259, 2503, 5003, 9973, 19937, 39869, 79699, 159389};
+        for (int expected : ladder) {
+            assertEquals("Unexpected prime on the way up.", expected, pg.getNextPrime());
+        }
+        for (int i = ladder.length - 2; i >= 0; i--) {
+            int previous = pg.getPreviousPrime();
+            assertTrue("getPreviousPrime() should return a prime above half the current one.",
+                    previous > ladder[i + 1] / 2.0 && previous <= ladder[i] + 1);
+        }
+        assertEquals("Expected 2147483629 to be the largest prime which can be an array length.",
+                2147483629, PrimeGenerator.MAX_PRIME);
+    }
+
+    /**
+     * Tests {@link PrimeGenerator#PrimeGenerator(int, float)}, with its own first prime and growth multiplier.
+     */
+    @Test
+    public void testCustomLadder(){
+        PrimeGenerator custom = new PrimeGenerator(1000, 1.5f);
+        assertEquals("Expected the first prime to be the smallest prime above 1000.", 1009, custom.getCurrPrime());
+        assertEquals("Expected the largest prime below 1.5 * 1009.", 1511, custom.getNextPrime());
+        assertEquals("Expected the smallest prime above 1511 / 1.5.", 1009, custom.getPreviousPrime());
+        custom.getNextPrime();
+        custom.reset();
+        assertEquals("Expected reset() to go back to the first prime.", 1009, custom.getCurrPrime());
+
+        PrimeGenerator tiny = new PrimeGenerator(7, 1.01f);
+        assertEquals("A tiny multiplier should still move to the next prime.", 11, tiny.getNextPrime());
+        assertEquals("A tiny multiplier should still move to the previous prime.", 7, tiny.getPreviousPrime());
+        assertEquals("The default ladder should be unaffected.", 13, pg.getNextPrime());
+
+        for (float multiplier : new float[]{1f, 0f, Float.NaN}) {
+            try {
+                new PrimeGenerator(7, multiplier);
+                fail("Expected a multiplier of " + multiplier + " to be rejected.");
+            } catch (IllegalArgumentException expected) {
+                // Multipliers have to be larger than 1.
+            }
+        }
     }
 
     /**
@@ -178,4 +221,79 @@ public class PrimeGeneratorTests {
                 " calls to getPreviousPrime() and one call to reset(), we did not get 7 as the current prime number.",
                 7, pg.getCurrPrime());
     }
+
+    /**
+     * Tests that a {@link PowerOfTwoGenerator} walks up and down powers of two.
+     */
+    @Test
+    public void testPowerOfTwoLadder() {
+        PowerOfTwoGenerator powers = new PowerOfTwoGenerator(7, 2f);
+        assertEquals(8, powers.getCurrPrime());
+        assertEquals(16, powers.getNextPrime());
+        assertEquals(32, powers.getNextPrime());
+        assertEquals(16, powers.getPreviousPrime());
+        assertEquals(1024, powers.getPrimeAtLeast(1000));
+        assertEquals(1024, powers.getPrimeAtLeast(1024));
+        powers.reset();
+        assertEquals(8, powers.getCurrPrime());
+
+        powers = new PowerOfTwoGenerator(8, 4f);
+        assertEquals(32, powers.getNextPrime());
+        assertEquals(8, powers.getPreviousPrime());
+        assertEquals(2, powers.getPreviousPrime());
+        try {
+            powers.getPreviousPrime();
+            fail("2 is the least capacity.");
+        } catch (NoMorePrimesException expected) {
+            // Good.
+        }
+        powers.getPrimeAtLeast(PowerOfTwoGenerator.MAX_CAPACITY);
+        try {
+            powers.getNextPrime();
+            fail("Went past the largest array length.");
+        } catch (NoMorePrimesException expected) {
+            // Good.
+        }
+        for (float multiplier : new float[]{1f, 1.5f, 3f, Float.NaN}) {
+            try {
+                new PowerOfTwoGenerator(8, multiplier);
+                fail("Multiplier " + multiplier + " should be rejected.");
+            } catch (IllegalArgumentException expected) {
+                // Good.
+            }
+        }
+    }
+
+    /**
+     * Tests {@link PrimeGenerator#fastMod(int, long, int)} against the remainder operator, and that every prime is
+     * handed out with its reciprocal.
+     */
+    @Test
+    public void testFastMod() {
+        Random rng = new Random(47);
+        int[] divisors = {1, 2, 3, 7, 13, 1009, 65521, PrimeGenerator.MAX_PRIME, rng.nextInt(Integer.MAX_VALUE) + 1};
+        for (int divisor : divisors) {
+            long reciprocal = PrimeGenerator.reciprocal(divisor);
+            for (int dividend : new int[]{0, 1, divisor - 1, divisor, Integer.MAX_VALUE, -1, Integer.MIN_VALUE}) {
+                assertEquals(dividend + " mod " + divisor, Integer.remainderUnsigned(dividend, divisor),
+                        PrimeGenerator.fastMod(dividend, reciprocal, divisor));
+            }
+            for (int i = 0; i < 10000; i++) {
+                int dividend = rng.nextInt();
+                assertEquals(dividend + " mod " + divisor, Integer.remainderUnsigned(dividend, divisor),
+                        PrimeGenerator.fastMod(dividend, reciprocal, divisor));
+            }
+        }
+
+        for (int i = 0; i < 20; i++) {
+            assertEquals(PrimeGenerator.reciprocal(pg.getCurrPrime()), pg.getCurrReciprocal());
+            pg.getNextPrime();
+        }
+        pg.getPreviousPrime();
+        assertEquals(PrimeGenerator.reciprocal(pg.getCurrPrime()), pg.getCurrReciprocal());
+        pg.getPrimeAtLeast(1000);
+        assertEquals(PrimeGenerator.reciprocal(1009), pg.getCurrReciprocal());
+        pg.reset();
+        assertEquals(PrimeGenerator.reciprocal(7), pg.getCurrReciprocal());
+    }
 }